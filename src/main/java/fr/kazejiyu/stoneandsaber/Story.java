@@ -21,9 +21,10 @@
  ******************************************************************************/
 package fr.kazejiyu.stoneandsaber;
 
-import java.util.Random;
+import java.util.SplittableRandom;
 
 import fr.kazejiyu.stoneandsaber.human.Human;
+import fr.kazejiyu.stoneandsaber.human.characters.Duelist;
 import fr.kazejiyu.stoneandsaber.human.characters.Merchant;
 import fr.kazejiyu.stoneandsaber.human.characters.Ronin;
 import fr.kazejiyu.stoneandsaber.human.characters.Traitor;
@@ -42,14 +43,25 @@ public class Story
 {
 	public static final int NBR_GENERATIONS = 10;
 	
+	/**
+	 * Tells a new story.
+	 * 
+	 * @param args
+	 * 			May contain the root seed of the story. Telling twice 
+	 * 			a story with the same seed gives the same story.
+	 */
 	public static void main(String[] args)
 	{
+		long root = args.length > 0 ? Long.parseLong(args[0]) : new SplittableRandom().nextLong();
+		SplittableRandom rand = new SplittableRandom(root);
+		
 		WorldSeed seed = 
 			new WorldSeedParameters()
-				.samurais(randInRange(3, 10))
-				.yakuzas(randInRange(3, 10))
-				.merchants(randInRange(3, 5))
-				.traitors(randInRange(0, 2))
+				.samurais(randInRange(rand, 3, 10))
+				.yakuzas(randInRange(rand, 3, 10))
+				.merchants(randInRange(rand, 3, 5))
+				.traitors(randInRange(rand, 0, 2))
+				.seed(root)
 				.toSeed();
 		
 		World world = World.randomized(seed);
@@ -60,29 +72,37 @@ public class Story
 		fate.descendOnWorld();
 	}
 	
-	
-	private static void addPossibleEvents(Fate fate)
+	/**
+	 * Registers the events that can happen in a story.
+	 * 
+	 * @param fate
+	 * 			The fate to which the events are added.
+	 */
+	public static void addPossibleEvents(Fate fate)
 	{
 		// 1 chance sur 10 qu'un humain se mette à boire
 		
 		fate.addEvent(.1, "Human drink", world ->
-			world.anyone().ifPresent(Human::drink)
+			world.anyone().ifPresent(Human::drink), 
+			Human.class
 		);
 		
 		// 0.5 chance sur 10 qu'un ronin défie un yakuza  
 		
 		fate.addEvent(.05d, "Ronin challenge Yakuza", world -> 
 			world.any(Ronin.class).ifPresent(ronin ->
-				world.any(Yakuza.class).ifPresent(ronin::challenge)
-			)
+				world.any(Yakuza.class).ifPresent(yakuza -> ronin.challenge(yakuza, Duelist.DEFAULT_MAX_ROUNDS, world.duels()))
+			), 
+			Ronin.class, Yakuza.class
 		);
 		
 		// 0.5 chance sur 10 qu'un yakuza défie un ronin  
 		
 		fate.addEvent(.05d, "Yakuza challenge Ronin", world -> 
 			world.any(Yakuza.class).ifPresent(yakuza ->
-				world.any(Ronin.class).ifPresent(yakuza::challenge)
-			)
+				world.any(Ronin.class).ifPresent(ronin -> yakuza.challenge(ronin, Duelist.DEFAULT_MAX_ROUNDS, world.duels()))
+			), 
+			Yakuza.class, Ronin.class
 		);
 		
 		// 2 chances sur 10 qu'un yakuza extorque un marchand
@@ -90,7 +110,8 @@ public class Story
 		fate.addEvent(.2d, "Yakuza extort Merchant", world ->
 			world.any(Yakuza.class).ifPresent(yakuza ->
 				world.any(Merchant.class).ifPresent(yakuza::extort)
-			)
+			), 
+			Yakuza.class, Merchant.class
 		);
 		
 		// 2 chances sur 10 qu'un traître extorque un marchand
@@ -98,15 +119,17 @@ public class Story
 		fate.addEvent(.2d, "Traitor extort Merchant", world ->
 			world.any(Traitor.class).ifPresent(traitor ->
 				world.any(Merchant.class).ifPresent(traitor::extort)
-			)
+			), 
+			Traitor.class, Merchant.class
 		);
 		
 		// 2 chances sur 10 qu'un samurai fasse un don à un marchand 
 		
 		fate.addEvent(.2d, "Ronin donate to Merchant", world -> 
 			world.any(Ronin.class).ifPresent(ronin ->
-				world.any(Merchant.class).ifPresent(ronin::donate)
-			)
+				world.any(Merchant.class).ifPresent(merchant -> ronin.donate(merchant, world.random()))
+			), 
+			Ronin.class, Merchant.class
 		);
 		
 		// update the world at each tick
@@ -123,9 +146,7 @@ public class Story
 //		throw new IllegalArgumentException("Just STOP it !");
 //	}
     
-    private static final Random rand = new Random();
-    
-    private static int randInRange(int min, int max)
+    private static int randInRange(SplittableRandom rand, int min, int max)
     {
         return rand.nextInt((max - min) + 1) + min;
     }
@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.batch;
+
+import java.util.IntSummaryStatistics;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import fr.kazejiyu.stoneandsaber.human.Human;
+
+/**
+ * Aggregates the {@link RunResult}s of a batch of simulations.
+ */
+public final class BatchSummary
+{
+	/**
+	 * The number of survivors per run, for each class of {@link RunResult#CENSUS}.
+	 */
+	private final Map <Class<? extends Human>, IntSummaryStatistics> survivors = new LinkedHashMap<>();
+	
+	/**
+	 * The prestige of the clan per run.
+	 */
+	private final IntSummaryStatistics clanPrestige = new IntSummaryStatistics();
+	
+	/**
+	 * The honnor of the lord per run.
+	 */
+	private final IntSummaryStatistics lordHonnor = new IntSummaryStatistics();
+	
+	/**
+	 * The money owned by each survivor, all runs included.
+	 */
+	private final IntSummaryStatistics wealth = new IntSummaryStatistics();
+	
+	/**
+	 * The number of troubled humans at each generation, all runs included.
+	 */
+	private final IntSummaryStatistics troubled = new IntSummaryStatistics();
+	
+	/**
+	 * The percentage of duels whose outcome was cached, per run that simulated duels.
+	 */
+	private final IntSummaryStatistics duelHitRate = new IntSummaryStatistics();
+	
+	BatchSummary()
+	{
+		for( Class <? extends Human> type : RunResult.CENSUS )
+			survivors.put(type, new IntSummaryStatistics());
+	}
+	
+	/**
+	 * Takes the result of a new run into account.
+	 * 
+	 * @param result
+	 * 			The result of the run.
+	 */
+	void accept(RunResult result)
+	{
+		for( Entry <Class<? extends Human>, IntSummaryStatistics> entry : survivors.entrySet() )
+			entry.getValue().accept(result.survivors(entry.getKey()));
+		
+		clanPrestige.accept(result.clanPrestige());
+		lordHonnor.accept(result.lordHonnor());
+		wealth.combine(result.wealth());
+		troubled.combine(result.troubled());
+		
+		long lookups = result.duelHits() + result.duelMisses();
+		
+		if( lookups > 0 )
+			duelHitRate.accept((int) (100 * result.duelHits() / lookups));
+	}
+	
+	/**
+	 * @return the number of runs aggregated.
+	 */
+	public long runs()
+	{
+		return clanPrestige.getCount();
+	}
+	
+	/**
+	 * Returns the number of survivors of class <code>type</code> per run.
+	 * 
+	 * @param type
+	 * 			One of the classes of {@link RunResult#CENSUS}.
+	 * 
+	 * @return the number of survivors of class <code>type</code> per run.
+	 */
+	public IntSummaryStatistics survivors(Class <? extends Human> type)
+	{
+		return survivors.getOrDefault(type, new IntSummaryStatistics());
+	}
+	
+	public IntSummaryStatistics clanPrestige()
+	{
+		return clanPrestige;
+	}
+	
+	public IntSummaryStatistics lordHonnor()
+	{
+		return lordHonnor;
+	}
+	
+	/**
+	 * @return the money owned by each survivor, all runs included.
+	 */
+	public IntSummaryStatistics wealth()
+	{
+		return wealth;
+	}
+	
+	/**
+	 * @return the number of troubled humans at each generation, all runs included.
+	 */
+	public IntSummaryStatistics troubled()
+	{
+		return troubled;
+	}
+	
+	/**
+	 * @return the percentage of duels whose outcome was cached, per run that simulated duels.
+	 */
+	public IntSummaryStatistics duelHitRate()
+	{
+		return duelHitRate;
+	}
+	
+	@Override
+	public String toString()
+	{
+		StringBuilder sb = new StringBuilder();
+		
+		sb.append(String.format(" ----- %d RUNS:%n", runs()));
+		
+		for( Entry <Class<? extends Human>, IntSummaryStatistics> entry : survivors.entrySet() )
+			sb.append(format(entry.getKey().getSimpleName() + " survivors", entry.getValue()));
+		
+		sb.append(format("Clan prestige", clanPrestige));
+		sb.append(format("Lord honnor", lordHonnor));
+		sb.append(format("Money per survivor", wealth));
+		sb.append(format("Troubled per gen.", troubled));
+		sb.append(format("Duel cache hits %", duelHitRate));
+		
+		return sb.toString();
+	}
+	
+	private static String format(String label, IntSummaryStatistics stats)
+	{
+		return String.format("           %-20s min=%d avg=%.2f max=%d%n", 
+				label, stats.getCount() == 0 ? 0 : stats.getMin(), stats.getAverage(), stats.getCount() == 0 ? 0 : stats.getMax());
+	}
+}
@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.batch;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import fr.kazejiyu.stoneandsaber.Story;
+import fr.kazejiyu.stoneandsaber.world.Fate;
+import fr.kazejiyu.stoneandsaber.world.World;
+import fr.kazejiyu.stoneandsaber.world.WorldSeed;
+import fr.kazejiyu.stoneandsaber.world.WorldSeedParameters;
+
+/**
+ * Simulates many independent {@link World}s concurrently and aggregates their outcomes.
+ * <br><br>
+ * Each run creates its own world from a seed {@link WorldSeed#derive(int) derived} from
+ * the template, makes it undergo the events of a {@link Story} and records a {@link RunResult}.
+ * Since every run only depends on its seed, a batch gives the same summary whatever 
+ * the number of threads used.
+ * <br><br>
+ * Humans keep silent during a batch.
+ */
+public final class MonteCarlo
+{
+	/**
+	 * The seed from which the seed of each run is derived.
+	 */
+	private final WorldSeed template;
+	
+	/**
+	 * The number of worlds to simulate.
+	 */
+	private final int runs;
+	
+	/**
+	 * The number of worlds simulated concurrently.
+	 */
+	private final int threads;
+	
+	/**
+	 * The number of generations each world lives.
+	 */
+	private final int generations;
+	
+	/**
+	 * Creates a new batch of {@link Story#NBR_GENERATIONS} generations long simulations.
+	 * 
+	 * @param template
+	 * 			The parameters of the simulated worlds. Must not be <code>null</code>.
+	 * @param runs
+	 * 			The number of worlds to simulate.
+	 * @param threads
+	 * 			The number of worlds simulated concurrently.
+	 */
+	public MonteCarlo(WorldSeedParameters template, int runs, int threads)
+	{
+		this(template, runs, threads, Story.NBR_GENERATIONS);
+	}
+	
+	/**
+	 * Creates a new batch of simulations.
+	 * 
+	 * @param template
+	 * 			The parameters of the simulated worlds. Must not be <code>null</code>.
+	 * @param runs
+	 * 			The number of worlds to simulate.
+	 * @param threads
+	 * 			The number of worlds simulated concurrently.
+	 * @param generations
+	 * 			The number of generations each world lives.
+	 */
+	public MonteCarlo(WorldSeedParameters template, int runs, int threads, int generations)
+	{
+		if( runs < 0 )
+			throw new IllegalArgumentException("Cannot simulate "+runs+" worlds.");
+		
+		if( threads < 1 )
+			throw new IllegalArgumentException("At least one thread is required to simulate worlds.");
+		
+		if( generations < 0 )
+			throw new IllegalArgumentException("A world cannot live "+generations+" generations.");
+		
+		this.template = requireNonNull(template).toSeed();
+		this.runs = runs;
+		this.threads = threads;
+		this.generations = generations;
+	}
+	
+	/**
+	 * Simulates the worlds and aggregates their outcomes.
+	 * 
+	 * @return the outcomes of the simulations.
+	 * 
+	 * @throws InterruptedException if the current thread is interrupted while waiting for the runs.
+	 */
+	public BatchSummary run() throws InterruptedException
+	{
+		List <Callable<RunResult>> tasks = new ArrayList<>(runs);
+		
+		for( int i = 0 ; i < runs ; i++ ) {
+			WorldSeed seed = template.derive(i);
+			tasks.add(() -> simulate(seed, generations));
+		}
+		
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		
+		try {
+			BatchSummary summary = new BatchSummary();
+			
+			for( Future <RunResult> result : executor.invokeAll(tasks) )
+				summary.accept(result.get());
+			
+			return summary;
+		}
+		catch( ExecutionException e ) {
+			throw new IllegalStateException("A simulation failed: " + e.getCause().getMessage(), e.getCause());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	/**
+	 * Simulates a single world.
+	 * 
+	 * @param seed
+	 * 			The seed of the world.
+	 * @param generations
+	 * 			The number of generations the world lives.
+	 * 
+	 * @return the state of the world at the end of the simulation.
+	 */
+	public static RunResult simulate(WorldSeed seed, int generations)
+	{
+		World world = World.randomized(seed);
+		
+		Fate fate = new Fate(world, generations);
+		Story.addPossibleEvents(fate);
+		fate.descendOnWorld();
+		
+		return RunResult.of(world);
+	}
+	
+	/**
+	 * Simulates a batch of worlds and prints the summary.
+	 * 
+	 * @param args
+	 * 			May contain, in that order: the number of runs, the number of threads
+	 * 			and the root seed of the batch.
+	 * 
+	 * @throws InterruptedException if the main thread is interrupted.
+	 */
+	public static void main(String[] args) throws InterruptedException
+	{
+		int runs = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : new SplittableRandom().nextLong();
+		
+		WorldSeedParameters template = 
+			new WorldSeedParameters()
+				.samurais(10)
+				.yakuzas(10)
+				.merchants(5)
+				.traitors(2)
+				.seed(seed);
+		
+		long start = System.nanoTime();
+		BatchSummary summary = new MonteCarlo(template, runs, threads).run();
+		long elapsed = System.nanoTime() - start;
+		
+		System.out.printf(" ----- SEED: %d%n%n", seed);
+		System.out.print(summary);
+		System.out.printf("%n ----- %d RUNS ON %d THREADS TOOK %d ms.%n", runs, threads, elapsed / 1_000_000);
+	}
+}
@@ -0,0 +1,205 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.batch;
+
+import static java.util.Collections.unmodifiableMap;
+
+import java.util.Arrays;
+import java.util.IntSummaryStatistics;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import fr.kazejiyu.stoneandsaber.human.Human;
+import fr.kazejiyu.stoneandsaber.human.characters.Merchant;
+import fr.kazejiyu.stoneandsaber.human.characters.Samurai;
+import fr.kazejiyu.stoneandsaber.human.characters.Traitor;
+import fr.kazejiyu.stoneandsaber.human.characters.Yakuza;
+import fr.kazejiyu.stoneandsaber.world.World;
+import fr.kazejiyu.stoneandsaber.world.WorldSeed;
+
+/**
+ * The state of a {@link World} at the end of a simulation.
+ */
+public final class RunResult
+{
+	/**
+	 * The classes of the humans counted at the end of each run.
+	 * <br><br>
+	 * Since a traitor is a samurai, traitors are counted among samurais too.
+	 */
+	public static final List <Class<? extends Human>> CENSUS = 
+			Arrays.asList(Human.class, Samurai.class, Traitor.class, Yakuza.class, Merchant.class);
+	
+	/**
+	 * The seed the world has been created from.
+	 */
+	private final WorldSeed seed;
+	
+	/**
+	 * The number of survivors of each class of {@link #CENSUS}.
+	 */
+	private final Map <Class<? extends Human>, Integer> survivors;
+	
+	/**
+	 * The prestige of the clan.
+	 */
+	private final int clanPrestige;
+	
+	/**
+	 * The honnor of the lord.
+	 */
+	private final int lordHonnor;
+	
+	/**
+	 * The money owned by the survivors.
+	 */
+	private final IntSummaryStatistics wealth;
+	
+	/**
+	 * The number of troubled humans at each generation.
+	 */
+	private final IntSummaryStatistics troubled;
+	
+	/**
+	 * The number of duels whose outcome was found in the cache of the world.
+	 */
+	private final long duelHits;
+	
+	/**
+	 * The number of duels whose outcome had to be simulated.
+	 */
+	private final long duelMisses;
+	
+	private RunResult(WorldSeed seed, Map <Class<? extends Human>, Integer> survivors, 
+			int clanPrestige, int lordHonnor, IntSummaryStatistics wealth, IntSummaryStatistics troubled,
+			long duelHits, long duelMisses)
+	{
+		this.seed = seed;
+		this.survivors = unmodifiableMap(survivors);
+		this.clanPrestige = clanPrestige;
+		this.lordHonnor = lordHonnor;
+		this.wealth = wealth;
+		this.troubled = troubled;
+		this.duelHits = duelHits;
+		this.duelMisses = duelMisses;
+	}
+	
+	/**
+	 * Takes a snapshot of <code>world</code>.
+	 * 
+	 * @param world
+	 * 			The world which simulation is over.
+	 * 
+	 * @return the state of the world.
+	 */
+	static RunResult of(World world)
+	{
+		Map <Class<? extends Human>, Integer> survivors = new LinkedHashMap<>();
+		
+		for( Class <? extends Human> type : CENSUS )
+			survivors.put(type, world.count(type));
+		
+		IntSummaryStatistics troubled = new IntSummaryStatistics();
+		troubled.combine(world.troubledPerGeneration());
+		
+		return new RunResult(world.seed(), survivors, world.clan().prestige(), world.lord().honnor(), world.wealth(), troubled,
+				world.duels().hits(), world.duels().misses());
+	}
+	
+	/**
+	 * @return the seed the world has been created from.
+	 */
+	public WorldSeed seed()
+	{
+		return seed;
+	}
+	
+	/**
+	 * Returns the number of survivors of class <code>type</code>.
+	 * 
+	 * @param type
+	 * 			One of the classes of {@link #CENSUS}.
+	 * 
+	 * @return the number of survivors of class <code>type</code>.
+	 */
+	public int survivors(Class <? extends Human> type)
+	{
+		return survivors.getOrDefault(type, 0);
+	}
+	
+	/**
+	 * @return the number of survivors of each class of {@link #CENSUS}.
+	 */
+	public Map <Class<? extends Human>, Integer> survivors()
+	{
+		return survivors;
+	}
+	
+	public int clanPrestige()
+	{
+		return clanPrestige;
+	}
+	
+	public int lordHonnor()
+	{
+		return lordHonnor;
+	}
+	
+	/**
+	 * @return the money owned by the survivors.
+	 */
+	public IntSummaryStatistics wealth()
+	{
+		return wealth;
+	}
+	
+	/**
+	 * @return the number of troubled humans at each generation.
+	 */
+	public IntSummaryStatistics troubled()
+	{
+		return troubled;
+	}
+	
+	/**
+	 * @return the number of duels whose outcome was found in the cache of the world.
+	 */
+	public long duelHits()
+	{
+		return duelHits;
+	}
+	
+	/**
+	 * @return the number of duels whose outcome had to be simulated.
+	 */
+	public long duelMisses()
+	{
+		return duelMisses;
+	}
+	
+	@Override
+	public String toString()
+	{
+		return "Seed=["+seed.seed+"] Survivors="+survivors+" Prestige=["+clanPrestige+"] Honnor=["+lordHonnor+"]";
+	}
+}
@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.batch;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import fr.kazejiyu.stoneandsaber.behaviors.effect.AttackAction.Type;
+import fr.kazejiyu.stoneandsaber.behaviors.effect.AttackEffect;
+import fr.kazejiyu.stoneandsaber.behaviors.effect.ElementalType;
+import fr.kazejiyu.stoneandsaber.behaviors.effect.Stacking;
+import fr.kazejiyu.stoneandsaber.behaviors.effect.impl.AlterLife;
+import fr.kazejiyu.stoneandsaber.behaviors.effect.impl.LastingAttackEffect;
+import fr.kazejiyu.stoneandsaber.human.Human;
+import fr.kazejiyu.stoneandsaber.human.characters.HumanFactory;
+import fr.kazejiyu.stoneandsaber.human.characters.Merchant;
+
+/**
+ * Measures the memory used by each {@link Human} to keep its troubles.
+ * <br><br>
+ * Creates a population of merchants, then hits them with more and more distinct lasting
+ * fire effects, which {@link Stacking#ADD add} up, and prints the heap used per human at
+ * each step. The figures are approximate: they are read from the runtime after a garbage 
+ * collection, so the population should be large enough for the noise to be negligible.
+ */
+public final class TroubleFootprint
+{
+	/**
+	 * The numbers of hits successively undergone by every human.
+	 */
+	private static final int[] HITS = { 0, 1, 2, 4, 8 };
+	
+	private TroubleFootprint()
+	{
+		// not meant to be instantiated
+	}
+	
+	/**
+	 * Prints the memory used per human for each number of {@link #HITS}.
+	 * 
+	 * @param args
+	 * 			May contain the number of humans to create.
+	 */
+	public static void main(String[] args)
+	{
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+		
+		AttackEffect[] effects = new AttackEffect[HITS[HITS.length - 1]];
+		
+		for( int i = 0 ; i < effects.length ; i++ )
+			effects[i] = new LastingAttackEffect(
+					new AlterLife(Type.DECREASE, 1), ElementalType.FIRE, LastingAttackEffect.DEFAULT_TIME_DURATION, Stacking.ADD);
+		
+		long empty = used();
+		List <Merchant> merchants = new HumanFactory(new SplittableRandom(0)).createMerchants(count);
+		long untroubled = 0;
+		
+		System.out.printf(" ----- MEMORY USED PER HUMAN:%n%n");
+		
+		int inflicted = 0;
+		for( int hits : HITS )
+		{
+			for( ; inflicted < hits ; inflicted++ )
+				for( Merchant merchant : merchants )
+					merchant.addTrouble(effects[inflicted]);
+			
+			long troubled = used() - empty;
+			
+			if( hits == 0 )
+				untroubled = troubled;
+			
+			System.out.printf("           %d hit(s)   %6.1f bytes, %5.1f more than an untroubled human%n", 
+					hits, troubled / (double) count, (troubled - untroubled) / (double) count);
+		}
+		
+		// also keeps the merchants reachable until every measure is done
+		System.out.printf("%n ----- %d HUMANS MEASURED.%n", merchants.size());
+	}
+	
+	/**
+	 * @return the number of bytes used in the heap, once garbage collected.
+	 */
+	private static long used()
+	{
+		Runtime runtime = Runtime.getRuntime();
+		
+		for( int i = 0 ; i < 3 ; i++ )
+			System.gc();
+		
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
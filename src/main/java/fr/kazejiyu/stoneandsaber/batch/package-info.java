@@ -0,0 +1,4 @@
+/**
+ * The classes used to simulate many independent worlds at once and study their outcomes.
+ */
+package fr.kazejiyu.stoneandsaber.batch;
@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.behaviors;
+
+import fr.kazejiyu.stoneandsaber.behaviors.effect.ElementalType;
+
+/**
+ * The factors applied to the changes of life undergone by a {@link Status},
+ * according to their {@link ElementalType} and to the affinity of the status with it.
+ * <br><br>
+ * Damages are first scaled by the strength of the attacker, relatively to its default value.
+ * <br><br>
+ * A weakness increases the changes of life of its element by half, a resistance reduces 
+ * them by half; {@link ElementalType#NONE} has no affinity. The armor of the status is 
+ * folded into the factors of damages: physical and untyped damages are divided by the armor,
+ * relatively to its default value. Elemental damages only depend on the affinity, and 
+ * heals are neither reduced nor strengthened.
+ * <br><br>
+ * The factors are precomputed for each element and affinity, so that resolving a change
+ * of life costs a single array lookup. Each {@link Status} keeps its table and only asks
+ * for a new one when its armor changes. Tables are interned: the statuses having the same 
+ * armor share theirs, unless the armor is unusually high.
+ */
+final class DamageTable {
+	
+	/**
+	 * The affinity of a status with an element it is weak to.
+	 */
+	static final int WEAK = 0;
+	
+	/**
+	 * The affinity of a status with an element it is neither weak nor resistant to.
+	 */
+	static final int NEUTRAL = 1;
+	
+	/**
+	 * The affinity of a status with an element it resists.
+	 */
+	static final int RESISTANT = 2;
+	
+	/**
+	 * The factor applied to the changes of life of each affinity, in percent.
+	 */
+	private static final int[] AFFINITY_FACTORS = { 150, 100, 50 };
+	
+	/**
+	 * The number of affinities.
+	 */
+	private static final int AFFINITIES = AFFINITY_FACTORS.length;
+	
+	/**
+	 * The denominator of the factors of a table.
+	 */
+	private static final long SCALE = 100L * Status.DEFAULT_ARMOR * Status.DEFAULT_ARMOR;
+	
+	/**
+	 * The tables already built, indexed by armor.
+	 * <br><br>
+	 * Tables are immutable, so two threads building the same one at once merely waste one of them.
+	 */
+	private static final DamageTable[] INTERNED = new DamageTable[4 * Status.DEFAULT_ARMOR + 1];
+	
+	/**
+	 * The factors of damages, by element and affinity, scaled by {@link #SCALE}
+	 */
+	private final long[] damages;
+	
+	/**
+	 * The factors of heals, by element and affinity, scaled by {@link #SCALE}
+	 */
+	private final long[] heals;
+	
+	private DamageTable(int armor) {
+		ElementalType[] types = ElementalType.values();
+		
+		damages = new long[types.length * AFFINITIES];
+		heals = new long[damages.length];
+		
+		for( ElementalType type : types ) {
+			for( int affinity = 0 ; affinity < AFFINITIES ; affinity++ ) {
+				int factor = type == ElementalType.NONE ? 100 : AFFINITY_FACTORS[affinity];
+				
+				// an armor of A turns DEFAULT physical damages into DEFAULT / A of them
+				long defense = type == ElementalType.NONE || type == ElementalType.PHYSICAL
+							 ? Status.DEFAULT_ARMOR * (long) Status.DEFAULT_ARMOR * Status.DEFAULT_ARMOR / armor 
+							 : Status.DEFAULT_ARMOR * (long) Status.DEFAULT_ARMOR;
+				
+				damages[index(type, affinity)] = factor * defense;
+				heals[index(type, affinity)] = factor * SCALE / 100;
+			}
+		}
+	}
+	
+	/**
+	 * Returns the table of the statuses having <code>armor</code>.
+	 * <br><br>
+	 * An armor lower than 1 is taken as 1.
+	 */
+	static DamageTable of(int armor) {
+		armor = Math.max(armor, 1);
+		
+		if( armor >= INTERNED.length )
+			return new DamageTable(armor);
+		
+		DamageTable table = INTERNED[armor];
+		
+		if( table == null )
+			INTERNED[armor] = table = new DamageTable(armor);
+		
+		return table;
+	}
+	
+	/**
+	 * Returns the change of life actually undergone by a status when an effect
+	 * of type <code>type</code> changes its life by <code>delta</code>.
+	 * 
+	 * @param type
+	 * 			the type of the effect
+	 * @param affinity
+	 * 			the affinity of the status with <code>type</code>
+	 * @param delta
+	 * 			the change of life made by the effect: negative for damages
+	 * @param strength
+	 * 			the strength of the attacker, lower than 0 taken as 0
+	 * 
+	 * @return the change of life undergone, rounded towards 0
+	 */
+	int resolve(ElementalType type, int affinity, int delta, int strength) {
+		if( delta >= 0 )
+			return clamp(delta * heals[index(type, affinity)] / SCALE);
+		
+		int strengthened = clamp((long) delta * Math.max(strength, 0) / Status.DEFAULT_STRENGTH);
+		return clamp(strengthened * damages[index(type, affinity)] / SCALE);
+	}
+	
+	private static int clamp(long delta) {
+		return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, delta));
+	}
+	
+	private static int index(ElementalType type, int affinity) {
+		return type.ordinal() * AFFINITIES + affinity;
+	}
+}
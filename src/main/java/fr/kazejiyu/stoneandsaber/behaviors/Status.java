@@ -23,16 +23,27 @@ package fr.kazejiyu.stoneandsaber.behaviors;
 
 import static java.lang.Math.max;
 
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.Set;
-import java.util.TreeSet;
 
 import fr.kazejiyu.stoneandsaber.behaviors.effect.AttackEffect;
 import fr.kazejiyu.stoneandsaber.behaviors.effect.ElementalType;
+import fr.kazejiyu.stoneandsaber.behaviors.effect.impl.AlterLife;
 
 /**
  * A set of stats.
  * 
  * This class should be used to describe the status of an Entity.
+ * <br><br>
+ * The attributes are not held by the status itself but by a {@link StatusStore}:
+ * a status is merely a view on one of the store's slots. A status bound to no store,
+ * because it has not been adopted yet or has been released, keeps its attributes in 
+ * a small snapshot of its own.
+ * <br><br>
+ * The weaknesses and resistances are kept as bitmasks of {@link ElementalType}s. They, 
+ * together with the armor and the strength of the attacker, alter the changes of life 
+ * undergone through {@link #undergo(AttackEffect, int)} and {@link #alterLife(ElementalType, int, int)}.
  * 
  * @author Emmanuel Chebbi
  */
@@ -52,34 +63,40 @@ public class Status {
 	public static final int DEFAULT_STRENGTH = 100;
 	
 	/**
-	 * The life points
+	 * Indices of the attributes within {@link #detached}.
 	 */
-	private int life;
+	static final int LIFE = 0, LIFE_MAX = 1, STRENGTH = 2, ARMOR = 3, MONEY = 4;
 	
 	/**
-	 * The maximum life points
+	 * The store holding the attributes, <code>null</code> while the status is detached
 	 */
-	private int lifeMax;
+	private StatusStore <?> store;
 	
 	/**
-	 * The strength
+	 * The attributes of the status while it is bound to no store, indexed by {@link #LIFE}, 
+	 * {@link #LIFE_MAX}, {@link #STRENGTH}, {@link #ARMOR} and {@link #MONEY}
 	 */
-	private int strength;
+	private int[] detached;
 	
 	/**
-	 * The armor
+	 * The slot of the attributes within the store
 	 */
-	private int armor;
+	private int slot;
 	
 	/**
-	 * The weaknesses 
+	 * The weaknesses, as a bitmask indexed by {@link ElementalType#ordinal()}
 	 */
-	private Set <ElementalType> weaknesses;	// TODO weaknesses aren't currently used
+	private int weaknesses;
 	
 	/**
-	 * The weaknesses 
+	 * The resistances, as a bitmask indexed by {@link ElementalType#ordinal()}
 	 */
-	private Set <ElementalType> resistances; // TODO resistances aren't currently used
+	private int resistances;
+	
+	/**
+	 * The factors applied to the changes of life, according to the armor
+	 */
+	private DamageTable damages;
 	
 	/**
 	 * Creates a new Status with DEFAULT values.
@@ -90,49 +107,96 @@ public class Status {
 	
 	/**
 	 * Creates a new Status with given values.
+	 * <br><br>
+	 * The status is detached until it is adopted by a {@link StatusStore}.
 	 */
 	public Status( int life, int strength, int armor ) {
-		this.life = life;
-		this.armor = armor;
-		this.lifeMax = life;
-		this.strength = strength;
-		this.weaknesses = new TreeSet<>();
-		this.resistances = new TreeSet<>();
+		this.detached = new int[] { life, life, strength, armor, 0 };
+		this.damages = DamageTable.of(armor);
+	}
+	
+	/**
+	 * @return the store holding the attributes, <code>null</code> if the status is detached
+	 */
+	StatusStore <?> store() {
+		return store;
+	}
+	
+	/**
+	 * @return the slot of the attributes within the store
+	 */
+	int slot() {
+		return slot;
+	}
+	
+	/**
+	 * Makes the status a view on another slot.
+	 * <br><br>
+	 * Only called by {@link StatusStore} when attributes are moved.
+	 */
+	void bind(StatusStore <?> store, int slot) {
+		this.store = store;
+		this.slot = slot;
+		this.detached = null;
+	}
+	
+	/**
+	 * Makes the status hold <code>attributes</code> itself.
+	 * <br><br>
+	 * Only called by {@link StatusStore} when the status is released.
+	 */
+	void detach(int[] attributes) {
+		this.store = null;
+		this.detached = attributes;
+	}
+	
+	/**
+	 * @return the attributes held by the status itself, <code>null</code> if it is bound to a store
+	 */
+	int[] detached() {
+		return detached;
 	}
 
 	/**
 	 * @return the life
 	 */
 	public int life() {
-		return life;
+		return store == null ? detached[LIFE] : store.life(slot);
 	}
 
 	/**
 	 * @return the strength
 	 */
 	public int strength() {
-		return strength;
+		return store == null ? detached[STRENGTH] : store.strength(slot);
 	}
 
 	/**
 	 * @return the armor
 	 */
 	public int armor() {
-		return armor;
+		return store == null ? detached[ARMOR] : store.armor(slot);
 	}
 	
 	/**
-	 * @return the weaknesses
+	 * @return the money
+	 */
+	public int money() {
+		return store == null ? detached[MONEY] : store.money(slot);
+	}
+	
+	/**
+	 * @return a read-only copy of the weaknesses
 	 */
 	public Set<ElementalType> weaknesses() {
-		return weaknesses;
+		return typesOf(weaknesses);
 	}
 	
 	/**
-	 * @return the resistances
+	 * @return a read-only copy of the resistances
 	 */
 	public Set<ElementalType> resistances() {
-		return resistances;
+		return typesOf(resistances);
 	}
 	
 	/**
@@ -140,7 +204,7 @@ public class Status {
 	 * @return whether the life is greater than 0
 	 */
 	public boolean isAlive() {
-		return life > 0;
+		return life() > 0;
 	}
 	
 	/**
@@ -152,7 +216,7 @@ public class Status {
 	 * @return whether a Type is a weakness
 	 */
 	public boolean isAWeakness(ElementalType possibleWeakness) {
-		return weaknesses.contains(possibleWeakness);
+		return (weaknesses & bit(possibleWeakness)) != 0;
 	}
 	
 	/**
@@ -164,28 +228,46 @@ public class Status {
 	 * @return whether a Type is a resistance
 	 */
 	public boolean isAResistance(ElementalType possibleResistance) {
-		return resistances.contains(possibleResistance);
+		return (resistances & bit(possibleResistance)) != 0;
 	}
 
 	/**
 	 * @param life the life to set
 	 */
 	public void setLife(int life) {
-		this.life = max(0,life);
+		storeLife(max(0,life));
 	}
 
 	/**
 	 * @param strength the strength to set
 	 */
 	public void setStrength(int strength) {
-		this.strength = strength;
+		if( store == null )
+			detached[STRENGTH] = strength;
+		else
+			store.setStrength(slot, strength);
 	}
 
 	/**
 	 * @param armor the armor to set
 	 */
 	public void setArmor(int armor) {
-		this.armor = armor;
+		if( store == null )
+			detached[ARMOR] = armor;
+		else
+			store.setArmor(slot, armor);
+		
+		damages = DamageTable.of(armor);
+	}
+	
+	/**
+	 * @param money the money to set
+	 */
+	public void setMoney(int money) {
+		if( store == null )
+			detached[MONEY] = money;
+		else
+			store.setMoney(slot, money);
 	}
 	
 	/**
@@ -200,10 +282,12 @@ public class Status {
 	 * @return false is the weakness was already set, true otherwise
 	 */
 	public boolean addWeakness(ElementalType weakness) {
-		if( resistances.contains(weakness) )
-			resistances.remove(weakness);
-			
-		return weaknesses.add(weakness);
+		boolean added = !isAWeakness(weakness);
+		
+		resistances &= ~bit(weakness);
+		weaknesses |= bit(weakness);
+		
+		return added;
 	}
 	
 	/**
@@ -215,7 +299,9 @@ public class Status {
 	 * @return true is the weakness was set, false otherwise
 	 */
 	public boolean removeWeakness(ElementalType weakness) {
-		return weaknesses.remove(weakness);
+		boolean removed = isAWeakness(weakness);
+		weaknesses &= ~bit(weakness);
+		return removed;
 	}
 	
 	/**
@@ -230,10 +316,12 @@ public class Status {
 	 * @return false is the resistance was already set, true otherwise
 	 */
 	public boolean addResistance(ElementalType resistance) {
-		if( weaknesses.contains(resistance) )
-			weaknesses.remove(resistance);
-			
-		return resistances.add(resistance);
+		boolean added = !isAResistance(resistance);
+		
+		weaknesses &= ~bit(resistance);
+		resistances |= bit(resistance);
+		
+		return added;
 	}
 	
 	/**
@@ -245,7 +333,84 @@ public class Status {
 	 * @return true is the resistance was set, false otherwise
 	 */
 	public boolean removeResistance(ElementalType resistance) {
-		return resistances.remove(resistance);
+		boolean removed = isAResistance(resistance);
+		resistances &= ~bit(resistance);
+		return removed;
+	}
+	
+	/**
+	 * Returns the change of life actually undergone when an effect of type <code>type</code>
+	 * changes the life by <code>delta</code>.
+	 * <br><br>
+	 * The attacker is assumed to have the default strength.
+	 * 
+	 * @param type
+	 * 			the type of the effect
+	 * @param delta
+	 * 			the change of life made by the effect: negative for damages
+	 * 
+	 * @return the change of life undergone, rounded towards 0
+	 * 
+	 * @see #resolve(ElementalType, int, int)
+	 */
+	public int resolve(ElementalType type, int delta) {
+		return resolve(type, delta, DEFAULT_STRENGTH);
+	}
+	
+	/**
+	 * Returns the change of life actually undergone when an effect of type <code>type</code>
+	 * dealt by an attacker of strength <code>strength</code> changes the life by <code>delta</code>.
+	 * <br><br>
+	 * Damages are scaled by the strength of the attacker, relatively to its default value.
+	 * A weakness to <code>type</code> then increases the change by half, a resistance reduces
+	 * it by half. Physical and untyped damages are finally reduced by the armor, relatively
+	 * to its default value; elemental damages are not.
+	 * 
+	 * @param type
+	 * 			the type of the effect
+	 * @param delta
+	 * 			the change of life made by the effect: negative for damages
+	 * @param strength
+	 * 			the strength of the attacker
+	 * 
+	 * @return the change of life undergone, rounded towards 0
+	 */
+	public int resolve(ElementalType type, int delta, int strength) {
+		int affinity = isAWeakness(type) ? DamageTable.WEAK : isAResistance(type) ? DamageTable.RESISTANT : DamageTable.NEUTRAL;
+		return damages.resolve(type, affinity, delta, strength);
+	}
+	
+	/**
+	 * Changes the life as an effect of type <code>type</code> changing it by <code>delta</code> would.
+	 * <br><br>
+	 * The attacker is assumed to have the default strength.
+	 * 
+	 * @param type
+	 * 			the type of the effect
+	 * @param delta
+	 * 			the change of life made by the effect: negative for damages
+	 * 
+	 * @see #resolve(ElementalType, int)
+	 */
+	public void alterLife(ElementalType type, int delta) {
+		alterLife(type, delta, DEFAULT_STRENGTH);
+	}
+	
+	/**
+	 * Changes the life as an effect of type <code>type</code> dealt by an attacker 
+	 * of strength <code>strength</code> and changing it by <code>delta</code> would.
+	 * 
+	 * @param type
+	 * 			the type of the effect
+	 * @param delta
+	 * 			the change of life made by the effect: negative for damages
+	 * @param strength
+	 * 			the strength of the attacker
+	 * 
+	 * @see #resolve(ElementalType, int, int)
+	 */
+	public void alterLife(ElementalType type, int delta, int strength) {
+		setLife(life() + resolve(type, delta, strength));
 	}
 	
 	/**
@@ -254,10 +419,12 @@ public class Status {
 	 * 			the amount of damages
 	 */
 	public void onDamage(int damage) {
-		life -= damage;
+		int life = life() - damage;
 		
 		if( life < 0 )
 			life = 0;
+		
+		storeLife(life);
 	}
 	
 	/**
@@ -265,10 +432,13 @@ public class Status {
 	 * @param ease
 	 */
 	public void onHeal(int ease) {
-		life += ease;
+		int life = life() + ease;
+		int lifeMax = store == null ? detached[LIFE_MAX] : store.lifeMax(slot);
 		
 		if( life > lifeMax )
 			life = lifeMax;
+		
+		storeLife(life);
 	}
 	
 	public void onFire(int damage) {
@@ -277,32 +447,54 @@ public class Status {
 	
 	@Override
 	public String toString() {
-		return "HP:"+life+" STR:"+strength+" ARM:"+armor;
+		return "HP:"+life()+" STR:"+strength()+" ARM:"+armor();
 	}
 	
 	/**
 	 * Changes the state according to the effect received.
+	 * <br><br>
+	 * The weaknesses and resistances are honored by the actions aware of the
+	 * type of the effect, such as {@link AlterLife}.
 	 * 
 	 * @param effect
 	 * 			the effect received
 	 */
 	public void undergo(AttackEffect effect) {
-		/*switch( effect.getType() ) {
-		case CURE: onHeal(effect.getAmount());
-			break;
-		case FIRE: onFire(effect.getAmount());
-			break;
-		case GEL:
-			break;
-		case PHYSICAL: onDamage(effect.getAmount());
-			break;
-		case POISON:
-			break;
-		case THUNDER:
-			break;
-		default:
-			break;
+		undergo(effect, DEFAULT_STRENGTH);
+	}
+	
+	/**
+	 * Changes the state according to the effect received from an attacker of strength <code>strength</code>.
+	 * 
+	 * @param effect
+	 * 			the effect received
+	 * @param strength
+	 * 			the strength of the attacker
+	 * 
+	 * @see #undergo(AttackEffect)
+	 */
+	public void undergo(AttackEffect effect, int strength) {
+		effect.getAction().alterStatus(this, effect.getType(), strength);
+	}
+	
+	private void storeLife(int life) {
+		if( store == null )
+			detached[LIFE] = life;
+		else
+			store.setLife(slot, life);
+	}
+	
+	private static int bit(ElementalType type) {
+		return 1 << type.ordinal();
+	}
+	
+	private static Set<ElementalType> typesOf(int mask) {
+		Set<ElementalType> types = EnumSet.noneOf(ElementalType.class);
 		
-		}*/
+		for( ElementalType type : ElementalType.values() ) {
+			if( (mask & bit(type)) != 0 )
+				types.add(type);
+		}
+		return Collections.unmodifiableSet(types);
 	}
 }
@@ -0,0 +1,372 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.behaviors;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A column-oriented storage of {@link Status}es.
+ * <br><br>
+ * Instead of being held by each status, the attributes (life, strength, 
+ * armor, money, ...) are stored in primitive arrays indexed by a dense 
+ * <em>slot</em>. The {@link Status} instances bound to a store are mere 
+ * views that read and write through to these arrays.
+ * <br><br>
+ * This allows to walk the attributes of a whole population with a linear 
+ * scan over contiguous memory.
+ * <br><br>
+ * Slots are kept dense: when a status is released, the last one takes its slot.
+ * Slots should hence not be kept across a call to {@link #release(int)} or
+ * {@link #adopt(Object, Status)}.
+ * 
+ * @param <T> The type of the owners of the statuses.
+ */
+public final class StatusStore <T> {
+	private static final int DEFAULT_CAPACITY = 16;
+	
+	private int[] life;
+	private int[] lifeMax;
+	private int[] strength;
+	private int[] armor;
+	private int[] money;
+	
+	/**
+	 * The views bound to each slot.
+	 */
+	private Status[] statuses;
+	
+	/**
+	 * The owner of each status.
+	 */
+	private Object[] owners;
+	
+	/**
+	 * The number of slots in use.
+	 */
+	private int size = 0;
+	
+	/**
+	 * The statuses whose life has dropped to 0 since the last call to {@link #collectFallen(int...)}.
+	 */
+	private final List <Status> fallen = new ArrayList<>();
+	
+	/**
+	 * Whether {@link #fallen} records the statuses whose life drops to 0.
+	 */
+	private boolean recordingFalls = true;
+	
+	/**
+	 * Creates a new empty store.
+	 */
+	public StatusStore() {
+		this(DEFAULT_CAPACITY);
+	}
+	
+	/**
+	 * Creates a new empty store able to hold <code>capacity</code> statuses
+	 * before growing.
+	 * 
+	 * @param capacity
+	 * 			The initial capacity of the store.
+	 */
+	public StatusStore(int capacity) {
+		capacity = Math.max(1, capacity);
+		
+		life = new int[capacity];
+		lifeMax = new int[capacity];
+		strength = new int[capacity];
+		armor = new int[capacity];
+		money = new int[capacity];
+		statuses = new Status[capacity];
+		owners = new Object[capacity];
+	}
+	
+	/**
+	 * @return the number of statuses stored.
+	 */
+	public int size() {
+		return size;
+	}
+	
+	public int life(int slot) {
+		return life[slot];
+	}
+	
+	public int lifeMax(int slot) {
+		return lifeMax[slot];
+	}
+	
+	public int strength(int slot) {
+		return strength[slot];
+	}
+	
+	public int armor(int slot) {
+		return armor[slot];
+	}
+	
+	public int money(int slot) {
+		return money[slot];
+	}
+	
+	/**
+	 * @return the status stored in <code>slot</code>.
+	 */
+	public Status status(int slot) {
+		return statuses[slot];
+	}
+	
+	/**
+	 * @return the slot of <code>status</code>, or -1 if it is not stored in this store.
+	 */
+	public int slotOf(Status status) {
+		return status.store() == this ? status.slot() : -1;
+	}
+	
+	/**
+	 * @return the owner of the status stored in <code>slot</code>.
+	 */
+	@SuppressWarnings("unchecked")
+	public T owner(int slot) {
+		return (T) owners[slot];
+	}
+	
+	/**
+	 * Moves <code>status</code> into this store.
+	 * <br><br>
+	 * Its attributes are copied into a new slot, and the status
+	 * becomes a view on this slot.
+	 * 
+	 * @param owner
+	 * 			The owner of the status.
+	 * @param status
+	 * 			The status to move.
+	 * 
+	 * @return the slot of the status.
+	 */
+	public int adopt(T owner, Status status) {
+		StatusStore <?> previous = status.store();
+		int previousSlot = status.slot();
+		
+		if( previous == this )
+			return previousSlot;
+		
+		int slot;
+		
+		if( previous == null ) {
+			int[] attributes = status.detached();
+			slot = append(status, owner, 
+					attributes[Status.LIFE], attributes[Status.LIFE_MAX], 
+					attributes[Status.STRENGTH], attributes[Status.ARMOR], 
+					attributes[Status.MONEY]);
+		}
+		else {
+			slot = append(status, owner, 
+					previous.life[previousSlot], previous.lifeMax[previousSlot], 
+					previous.strength[previousSlot], previous.armor[previousSlot], 
+					previous.money[previousSlot]);
+			
+			previous.remove(previousSlot);
+		}
+		status.bind(this, slot);
+		
+		if( life[slot] <= 0 )
+			fall(status);
+		
+		return slot;
+	}
+	
+	/**
+	 * Makes room for <code>capacity</code> statuses at once, so that 
+	 * adopting many statuses does not grow the store several times.
+	 * 
+	 * @param capacity
+	 * 			The number of statuses the store must be able to hold.
+	 */
+	public void ensureCapacity(int capacity) {
+		if( capacity > statuses.length )
+			resize(Math.max(capacity, statuses.length * 2));
+	}
+	
+	/**
+	 * Removes the status stored in <code>slot</code> from the store.
+	 * <br><br>
+	 * The status remains usable: its attributes are copied into a single snapshot
+	 * held by the status itself.
+	 * 
+	 * @param slot
+	 * 			The slot of the status to release.
+	 */
+	public void release(int slot) {
+		Status status = statuses[slot];
+		int[] attributes = { life[slot], lifeMax[slot], strength[slot], armor[slot], money[slot] };
+		
+		remove(slot);
+		status.detach(attributes);
+	}
+	
+	/**
+	 * Appends a new status to the store.
+	 * 
+	 * @return the slot of the new status.
+	 */
+	int append(Status status, Object owner, int life, int lifeMax, int strength, int armor, int money) {
+		if( size == statuses.length )
+			grow();
+		
+		int slot = size++;
+		
+		this.life[slot] = life;
+		this.lifeMax[slot] = lifeMax;
+		this.strength[slot] = strength;
+		this.armor[slot] = armor;
+		this.money[slot] = money;
+		this.statuses[slot] = status;
+		this.owners[slot] = owner;
+		
+		return slot;
+	}
+	
+	/**
+	 * Removes the status stored in <code>slot</code> by moving the last one in its place.
+	 */
+	private void remove(int slot) {
+		int last = --size;
+		
+		if( slot != last ) {
+			life[slot] = life[last];
+			lifeMax[slot] = lifeMax[last];
+			strength[slot] = strength[last];
+			armor[slot] = armor[last];
+			money[slot] = money[last];
+			statuses[slot] = statuses[last];
+			owners[slot] = owners[last];
+			
+			statuses[slot].bind(this, slot);
+		}
+		statuses[last] = null;
+		owners[last] = null;
+	}
+	
+	private void grow() {
+		resize(statuses.length * 2);
+	}
+	
+	/**
+	 * Moves the columns to arrays of length <code>capacity</code>.
+	 */
+	private void resize(int capacity) {
+		life = Arrays.copyOf(life, capacity);
+		lifeMax = Arrays.copyOf(lifeMax, capacity);
+		strength = Arrays.copyOf(strength, capacity);
+		armor = Arrays.copyOf(armor, capacity);
+		money = Arrays.copyOf(money, capacity);
+		statuses = Arrays.copyOf(statuses, capacity);
+		owners = Arrays.copyOf(owners, capacity);
+	}
+	
+	void setLife(int slot, int value) {
+		if( value <= 0 && life[slot] > 0 )
+			fall(statuses[slot]);
+		
+		life[slot] = value;
+	}
+	
+	/**
+	 * Tells whether the statuses whose life drops to 0 are recorded until 
+	 * the next call to {@link #collectFallen(int...)}.
+	 * <br><br>
+	 * Recording is not thread-safe. Callers altering statuses of different slots 
+	 * concurrently must stop it meanwhile, keep track of the statuses that fell 
+	 * on their own, then hand them to {@link #collectFallen(int...)}.
+	 * 
+	 * @param record
+	 * 			Whether the statuses that fall must be recorded.
+	 */
+	public void recordFalls(boolean record) {
+		this.recordingFalls = record;
+	}
+	
+	/**
+	 * Returns the slots of the statuses whose life has dropped to 0 since the last call,
+	 * and is still 0.
+	 * <br><br>
+	 * Only the statuses that fell are visited, so that the cost does not depend 
+	 * on the number of statuses stored.
+	 * 
+	 * @param alsoFallen
+	 * 			The slots of statuses that fell while falls were not recorded.
+	 * 
+	 * @return the slots of the fallen statuses, in ascending order.
+	 * 
+	 * @see #recordFalls(boolean)
+	 */
+	public int[] collectFallen(int... alsoFallen) {
+		int[] slots = new int[fallen.size() + alsoFallen.length];
+		int count = 0;
+		
+		for( Status status : fallen ) {
+			// may have been released or healed meanwhile
+			if( status.store() == this && life[status.slot()] <= 0 )
+				slots[count++] = status.slot();
+		}
+		fallen.clear();
+		
+		for( int slot : alsoFallen ) {
+			if( slot < size && life[slot] <= 0 )
+				slots[count++] = slot;
+		}
+		
+		Arrays.sort(slots, 0, count);
+		
+		// a status may have fallen several times
+		int distinct = 0;
+		
+		for( int i = 0 ; i < count ; i++ ) {
+			if( distinct == 0 || slots[distinct - 1] != slots[i] )
+				slots[distinct++] = slots[i];
+		}
+		return Arrays.copyOf(slots, distinct);
+	}
+	
+	/**
+	 * Records that the life of <code>status</code> has dropped to 0, 
+	 * unless falls are not {@link #recordFalls(boolean) recorded}.
+	 */
+	private void fall(Status status) {
+		if( recordingFalls )
+			fallen.add(status);
+	}
+	
+	void setStrength(int slot, int value) {
+		strength[slot] = value;
+	}
+	
+	void setArmor(int slot, int value) {
+		armor[slot] = value;
+	}
+	
+	void setMoney(int slot, int value) {
+		money[slot] = value;
+	}
+}
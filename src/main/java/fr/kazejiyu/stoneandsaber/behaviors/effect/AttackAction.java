@@ -42,12 +42,12 @@ public abstract class AttackAction {
 	/**
 	 * The value of the action
 	 */
-	private int amount;
+	private final int amount;
 	
 	/**
 	 * The type of the action
 	 */
-	private Type action;
+	private final Type action;
 	
 	/**
 	 * Whether the {@link AttackAction} increases or decreases a {@link Status}'s attribute. 
@@ -92,4 +92,23 @@ public abstract class AttackAction {
 	 * 			The {@link Status} to alter.
 	 */
 	public abstract void alterStatus(Status status);
+	
+	/**
+	 * Alters a {@link Status} on behalf of an effect of type <code>type</code>.
+	 * <br><br>
+	 * By default, the type is ignored: the actions honoring weaknesses and resistances
+	 * must override this method.
+	 * 
+	 * @param status
+	 * 			The status to alter.
+	 * @param type
+	 * 			The type of the effect.
+	 */
+	public void alterStatus(Status status, ElementalType type) {
+		alterStatus(status);
+	}
+	
+	public void alterStatus(Status status, ElementalType type, int strength) {
+		alterStatus(status, type);
+	}
 }
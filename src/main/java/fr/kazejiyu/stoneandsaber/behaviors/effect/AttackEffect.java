@@ -37,6 +37,7 @@ import fr.kazejiyu.stoneandsaber.human.HumanEntity;
  *  <li>an {@link ElementalType}, which describes the type of the AttackEffect (used to manage weaknesses/resistances).</li>
  *  <li>an {@link AttackDuration}, which indicates whether the AttackEffect last in time</li>
  * </ul>
+ * An AttackEffect is immutable, so that it can be shared by many weapons and targets.
  * 
  * @author Emmanuel Chebbi
  */
@@ -45,15 +46,15 @@ public abstract class AttackEffect { // implements Cloneable {
 	/**
 	 * The type of the Effect
 	 */
-	private ElementalType type;
+	private final ElementalType type;
 	/**
 	 * Whether the Effect last in time
 	 */
-	private AttackDuration duration;
+	private final AttackDuration duration;
 	/**
 	 * The action to do
 	 */
-	private AttackAction action;
+	private final AttackAction action;
 	
 	/**
 	 * Creates a new AttackEffect with a given {@link AttackDuration}.
@@ -143,14 +144,6 @@ public abstract class AttackEffect { // implements Cloneable {
 	 */
 	public abstract boolean isOver();
 	
-	/**
-	 * Sets the {@link AttackAction} of the effect
-	 * @param action the new AttackAction
-	 */
-	public void setAction( AttackAction action ) {
-		this.action = action;
-	}
-	
 	@Override
 	public String toString() {
 		return /*(duration == AttackDuration.LASTING ? "L_" : "I_") +*/ type + ":" + action.getAmount();
@@ -166,4 +159,19 @@ public abstract class AttackEffect { // implements Cloneable {
 	 * 			the HumanEntity who will be affected by the effect
 	 */
 	public abstract void applyOn(Entity target);
+	
+	/**
+	 * Applies the effect, dealt by an attacker of strength <code>strength</code>, on a {@link HumanEntity}.
+	 * <br><br>
+	 * By default the strength is ignored: only the effects that know how to scale their
+	 * action take it into account.
+	 * 
+	 * @param target
+	 * 			the HumanEntity who will be affected by the effect
+	 * @param strength
+	 * 			the strength of the attacker
+	 */
+	public void applyOn(Entity target, int strength) {
+		applyOn(target);
+	}
 }
@@ -0,0 +1,50 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.behaviors.effect;
+
+/**
+ * How a lasting effect stacks with the effects of the same {@link ElementalType}
+ * already troubling its target.
+ * <br><br>
+ * Each stack deals the damages of the hit that caused it until its own duration is over.
+ * Refreshing the stacks of an element postpones their end until the duration of the
+ * new hit, without dealing more damages.
+ */
+public enum Stacking {
+	
+	/**
+	 * A new hit refreshes the stacks of its element, if any.
+	 * The element never deals more than a single stack.
+	 */
+	REFRESH,
+	
+	/**
+	 * A new hit always adds a stack.
+	 */
+	ADD,
+	
+	/**
+	 * A new hit adds a stack until a maximum number of stacks is reached,
+	 * then refreshes the existing ones.
+	 */
+	CAP
+}
@@ -23,6 +23,7 @@ package fr.kazejiyu.stoneandsaber.behaviors.effect.impl;
 
 import fr.kazejiyu.stoneandsaber.behaviors.Status;
 import fr.kazejiyu.stoneandsaber.behaviors.effect.AttackAction;
+import fr.kazejiyu.stoneandsaber.behaviors.effect.ElementalType;
 
 /**
  * An {@link AttackAction} which modify {@link Status}'s life.
@@ -40,6 +41,13 @@ public class AlterLife extends AttackAction {
 		super(action, amount);
 	}
 
+	/**
+	 * @return the change of life made by the action: negative when life is taken
+	 */
+	public int getDelta() {
+		return getAction() == Type.INCREASE ? getAmount() : -getAmount();
+	}
+
 	@Override
 	public void alterStatus(Status status) {
 		int life = status.life();
@@ -51,5 +59,19 @@ public class AlterLife extends AttackAction {
 				
 		status.setLife(life);
 	}
+	
+	/**
+	 * Alters the life through {@link Status#alterLife(ElementalType, int)}, so that
+	 * the weaknesses and resistances of the status are honored.
+	 */
+	@Override
+	public void alterStatus(Status status, ElementalType type) {
+		status.alterLife(type, getDelta());
+	}
+	
+	@Override
+	public void alterStatus(Status status, ElementalType type, int strength) {
+		status.alterLife(type, getDelta(), strength);
+	}
 
 }
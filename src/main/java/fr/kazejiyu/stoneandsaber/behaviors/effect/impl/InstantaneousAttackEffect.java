@@ -78,6 +78,11 @@ public class InstantaneousAttackEffect extends AttackEffect {
 
 	@Override
 	public void applyOn(Entity target) {
-		getAction().alterStatus( target.status() );
+		target.status().undergo(this);
+	}
+	
+	@Override
+	public void applyOn(Entity target, int strength) {
+		target.status().undergo(this, strength);
 	}
 }
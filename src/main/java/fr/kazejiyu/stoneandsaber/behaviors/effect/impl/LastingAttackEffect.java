@@ -25,10 +25,19 @@ import fr.kazejiyu.stoneandsaber.behaviors.effect.AttackAction;
 import fr.kazejiyu.stoneandsaber.behaviors.effect.AttackDuration;
 import fr.kazejiyu.stoneandsaber.behaviors.effect.AttackEffect;
 import fr.kazejiyu.stoneandsaber.behaviors.effect.ElementalType;
+import fr.kazejiyu.stoneandsaber.behaviors.effect.Stacking;
 import fr.kazejiyu.stoneandsaber.human.Entity;
 
 /**
  * An {@link AttackEffect} which is Lasting.
+ * <br><br>
+ * A LastingAttackEffect only defines the effect: it is immutable and may be shared 
+ * by any number of targets. The time remaining before the effect is over is specific 
+ * to each target and kept by its {@link Troubles}.
+ * <br><br>
+ * The {@link Stacking} of the effect tells how a new hit combines with the effects of
+ * the same {@link ElementalType} already troubling the target. By default, a new hit
+ * merely refreshes them.
  * 
  * @author Emmanuel Chebbi
  *
@@ -42,11 +51,15 @@ public class LastingAttackEffect extends AttackEffect {
 	/**
 	 * The duration in time of the effect
 	 */
-	private int timeDuration;
+	private final int timeDuration;
 	/**
-	 * The time remaining for the effect
+	 * How the effect stacks with the effects of the same type
 	 */
-	private int timeRemaining;
+	private final Stacking stacking;
+	/**
+	 * The maximum number of stacks of the effect's type it can lead to
+	 */
+	private final int maxStacks;
 	
 	/**
 	 * Creates a new LastingAttackEffect with a given {@link AttackAction}.
@@ -72,9 +85,7 @@ public class LastingAttackEffect extends AttackEffect {
 	 * 			the duration in time of the effect
 	 */
 	public LastingAttackEffect(AttackAction action, int timeDuration) {
-		super(action, AttackDuration.LASTING);
-		this.timeDuration = timeDuration;
-		this.timeRemaining = timeDuration;
+		this(action, ElementalType.NONE, timeDuration);
 	}
 	
 	/**
@@ -83,9 +94,56 @@ public class LastingAttackEffect extends AttackEffect {
 	 * @param type
 	 */
 	public LastingAttackEffect(AttackAction action, ElementalType type, int timeDuration) {
+		this(action, type, timeDuration, Stacking.REFRESH);
+	}
+	
+	/**
+	 * Creates a new LastingAttackEffect which stacks either by {@link Stacking#REFRESH refreshing}
+	 * or by {@link Stacking#ADD adding}.
+	 * 
+	 * @param action
+	 * 			the action to do when the effect occurs
+	 * @param type
+	 * 			the type of the effect
+	 * @param timeDuration
+	 * 			the duration in time of the effect
+	 * @param stacking
+	 * 			how the effect stacks with the effects of the same type
+	 * 
+	 * @throws IllegalArgumentException if <code>stacking</code> is {@link Stacking#CAP}, since
+	 * 			the maximum number of stacks is then required.
+	 */
+	public LastingAttackEffect(AttackAction action, ElementalType type, int timeDuration, Stacking stacking) {
+		this(action, type, timeDuration, stacking, stacking == Stacking.ADD ? Integer.MAX_VALUE : 1);
+		
+		if( stacking == Stacking.CAP )
+			throw new IllegalArgumentException("The maximum number of stacks of a capped effect is required.");
+	}
+	
+	/**
+	 * Creates a new LastingAttackEffect.
+	 * 
+	 * @param action
+	 * 			the action to do when the effect occurs
+	 * @param type
+	 * 			the type of the effect
+	 * @param timeDuration
+	 * 			the duration in time of the effect
+	 * @param stacking
+	 * 			how the effect stacks with the effects of the same type
+	 * @param maxStacks
+	 * 			the maximum number of stacks of the effect's type a hit can lead to, 
+	 * 			only relevant for {@link Stacking#CAP}
+	 */
+	public LastingAttackEffect(AttackAction action, ElementalType type, int timeDuration, Stacking stacking, int maxStacks) {
 		super(action, AttackDuration.LASTING, type);
+		
+		if( maxStacks < 1 )
+			throw new IllegalArgumentException("An effect cannot lead to "+maxStacks+" stacks.");
+		
 		this.timeDuration = timeDuration;
-		this.timeRemaining = timeDuration;
+		this.stacking = stacking;
+		this.maxStacks = stacking == Stacking.REFRESH ? 1 : stacking == Stacking.ADD ? Integer.MAX_VALUE : maxStacks;
 	}
 
 	/**
@@ -94,30 +152,38 @@ public class LastingAttackEffect extends AttackEffect {
 	public int getTimeDuration() {
 		return timeDuration;
 	}
-
+	
 	/**
-	 * @param timeDuration the timeDuration to set
+	 * @return how the effect stacks with the effects of the same type
 	 */
-	public void setTimeDuration(int timeDuration) {
-		this.timeDuration = timeDuration;
-	}
-	
-	protected int decreaseRemainingTime() {
-		return --timeRemaining;
+	public Stacking getStacking() {
+		return stacking;
 	}
 	
-	public int getTimeRemaining() {
-		return timeRemaining;
+	/**
+	 * @return the maximum number of stacks of the effect's type a hit can lead to
+	 */
+	public int getMaxStacks() {
+		return maxStacks;
 	}
 	
+	/**
+	 * Returns whether the effect lasts no time at all.
+	 * <br>
+	 * Whether the effect is over for a given target is told by its {@link Troubles}.
+	 */
 	@Override
 	public final boolean isOver() {
-		return timeRemaining <= 0;
+		return timeDuration <= 0;
 	}
 
+	/**
+	 * Applies the effect once on <code>target</code>.
+	 * <br>
+	 * The time remaining is counted by the {@link Troubles} of the target.
+	 */
 	@Override
 	public void applyOn(Entity target) {
-		getAction().alterStatus( target.status() );
-		timeRemaining--;
+		target.status().undergo(this);
 	}
 }
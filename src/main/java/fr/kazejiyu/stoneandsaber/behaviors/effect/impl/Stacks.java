@@ -0,0 +1,300 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.behaviors.effect.impl;
+
+import fr.kazejiyu.stoneandsaber.behaviors.Status;
+import fr.kazejiyu.stoneandsaber.behaviors.effect.ElementalType;
+import fr.kazejiyu.stoneandsaber.behaviors.effect.Stacking;
+
+/**
+ * The stacks of identical lasting effects undergone by a given target.
+ * <br><br>
+ * Lasting effects are identical when they have the same {@link ElementalType}, the same 
+ * change of life per tick, stack alike and are dealt by attackers of the same strength; 
+ * only their durations may differ. Merging them
+ * hence never changes the damages they deal.
+ * <br><br>
+ * Rather than keeping each stack, Stacks only keeps the total change of life they make 
+ * at each tick and a histogram of their ends: the change of life and the number of stacks 
+ * ending at each of the next ticks. The histogram is a ring buffer indexed by tick, so 
+ * that neither a hit nor a tick depend on the number of stacks.
+ * <br><br>
+ * The weaknesses and resistances of the target apply to the total change of life, 
+ * when it is undergone.
+ */
+final class Stacks {
+	
+	/**
+	 * The type of the effects stacked
+	 */
+	private final ElementalType type;
+	
+	/**
+	 * The change of life made by each stack at each tick
+	 */
+	private final int delta;
+	
+	/**
+	 * The strength of the attackers who dealt the stacks
+	 */
+	private final int strength;
+	
+	/**
+	 * How the effects stacked stack
+	 */
+	private final Stacking stacking;
+	
+	/**
+	 * The maximum number of stacks
+	 */
+	private final int maxStacks;
+	
+	/**
+	 * The change of life made by all the stacks at each tick
+	 */
+	private int perTick;
+	
+	/**
+	 * The number of stacks
+	 */
+	private int stacks;
+	
+	/**
+	 * The number of ticks before the last stack ends
+	 */
+	private int longest;
+	
+	/**
+	 * The current tick, which is the origin of the ring buffers
+	 */
+	private int now;
+	
+	/**
+	 * The change of life of the stacks ending at each tick, indexed by tick modulo its length
+	 */
+	private int[] endingDeltas;
+	
+	/**
+	 * The number of stacks ending at each tick, indexed by tick modulo its length
+	 */
+	private int[] endingStacks;
+	
+	/**
+	 * Creates empty Stacks of the effects identical to <code>effect</code>.
+	 * 
+	 * @param effect
+	 * 			the first effect stacked
+	 * @param delta
+	 * 			the change of life made by <code>effect</code> at each tick
+	 * @param strength
+	 * 			the strength of the attacker who dealt <code>effect</code>
+	 */
+	Stacks(LastingAttackEffect effect, int delta, int strength) {
+		this.type = effect.getType();
+		this.delta = delta;
+		this.strength = strength;
+		this.stacking = effect.getStacking();
+		this.maxStacks = effect.getMaxStacks();
+		this.endingDeltas = new int[capacityFor(effect.getTimeDuration())];
+		this.endingStacks = new int[endingDeltas.length];
+	}
+	
+	/**
+	 * Creates Stacks in the same state as <code>other</code>, sharing its ring buffers.
+	 */
+	private Stacks(Stacks other) {
+		this.type = other.type;
+		this.delta = other.delta;
+		this.strength = other.strength;
+		this.stacking = other.stacking;
+		this.maxStacks = other.maxStacks;
+		this.perTick = other.perTick;
+		this.stacks = other.stacks;
+		this.longest = other.longest;
+		this.now = other.now;
+		this.endingDeltas = other.endingDeltas;
+		this.endingStacks = other.endingStacks;
+	}
+	
+	/**
+	 * Returns whether <code>effect</code> is identical to the effects stacked.
+	 * 
+	 * @param effect
+	 * 			a lasting effect altering life
+	 * @param delta
+	 * 			the change of life made by <code>effect</code> at each tick
+	 * @param strength
+	 * 			the strength of the attacker who dealt <code>effect</code>
+	 */
+	boolean stacks(LastingAttackEffect effect, int delta, int strength) {
+		return effect.getType() == type && delta == this.delta && strength == this.strength 
+			&& effect.getStacking() == stacking && effect.getMaxStacks() == maxStacks;
+	}
+	
+	/**
+	 * Adds or refreshes a stack, according to the {@link Stacking} of the effects stacked.
+	 * 
+	 * @param effect
+	 * 			the effect hitting the target, identical to the effects stacked
+	 * 
+	 * @return the number of ticks before the last stack ends
+	 */
+	int hit(LastingAttackEffect effect) {
+		int duration = Math.max(effect.getTimeDuration(), 1);
+		
+		if( duration >= endingDeltas.length )
+			grow(duration);
+		
+		if( stacks < maxStacks ) {
+			int end = (now + duration) & (endingDeltas.length - 1);
+			endingDeltas[end] += delta;
+			endingStacks[end]++;
+			perTick += delta;
+			stacks++;
+		}
+		else
+			refresh(duration);
+		
+		longest = Math.max(longest, duration);
+		
+		return longest;
+	}
+	
+	/**
+	 * Postpones the end of every stack to <code>duration</code> ticks from now, at least.
+	 */
+	private void refresh(int duration) {
+		int mask = endingDeltas.length - 1;
+		int end = (now + duration) & mask;
+		
+		for( int tick = 1 ; tick < duration && tick <= longest ; tick++ ) {
+			int slot = (now + tick) & mask;
+			endingDeltas[end] += endingDeltas[slot];
+			endingStacks[end] += endingStacks[slot];
+			endingDeltas[slot] = 0;
+			endingStacks[slot] = 0;
+		}
+	}
+	
+	/**
+	 * Makes the owner of <code>status</code> undergo the stacks once, 
+	 * then forgets the stacks that are over.
+	 * 
+	 * @param status
+	 * 			the status of the entity troubled
+	 * 
+	 * @return whether some stacks remain
+	 */
+	boolean undergoBy(Status status) {
+		status.alterLife(type, perTick, strength);
+		
+		int slot = ++now & (endingDeltas.length - 1);
+		perTick -= endingDeltas[slot];
+		stacks -= endingStacks[slot];
+		endingDeltas[slot] = 0;
+		endingStacks[slot] = 0;
+		longest--;
+		
+		return stacks > 0;
+	}
+	
+	/**
+	 * @return the number of ticks before the last stack ends
+	 */
+	int longest() {
+		return longest;
+	}
+	
+	/**
+	 * @return a copy of the stacks, that evolves independently
+	 */
+	Stacks copy() {
+		Stacks copy = new Stacks(this);
+		copy.endingDeltas = endingDeltas.clone();
+		copy.endingStacks = endingStacks.clone();
+		return copy;
+	}
+	
+	/**
+	 * Two Stacks are equal when they stack identical effects and will deal the same 
+	 * changes of life at each of the next ticks, whatever the origin of their ring buffers.
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if( !(obj instanceof Stacks) )
+			return false;
+		
+		Stacks other = (Stacks) obj;
+		
+		if( type != other.type || delta != other.delta || strength != other.strength || stacking != other.stacking 
+		 || maxStacks != other.maxStacks || perTick != other.perTick || stacks != other.stacks || longest != other.longest )
+			return false;
+		
+		for( int tick = 1 ; tick <= longest ; tick++ ) {
+			int slot = (now + tick) & (endingDeltas.length - 1);
+			int otherSlot = (other.now + tick) & (other.endingDeltas.length - 1);
+			
+			if( endingDeltas[slot] != other.endingDeltas[otherSlot] || endingStacks[slot] != other.endingStacks[otherSlot] )
+				return false;
+		}
+		return true;
+	}
+	
+	@Override
+	public int hashCode() {
+		int hash = type.hashCode();
+		hash = 31 * hash + delta;
+		hash = 31 * hash + strength;
+		hash = 31 * hash + perTick;
+		hash = 31 * hash + stacks;
+		
+		for( int tick = 1 ; tick <= longest ; tick++ )
+			hash = 31 * hash + endingDeltas[(now + tick) & (endingDeltas.length - 1)];
+		
+		return hash;
+	}
+	
+	/**
+	 * Enlarges the ring buffers so that they can hold stacks lasting <code>duration</code> ticks.
+	 */
+	private void grow(int duration) {
+		int[] deltas = new int[capacityFor(duration)];
+		int[] ending = new int[deltas.length];
+		
+		for( int tick = 1 ; tick <= longest ; tick++ ) {
+			int from = (now + tick) & (endingDeltas.length - 1);
+			int to = (now + tick) & (deltas.length - 1);
+			deltas[to] = endingDeltas[from];
+			ending[to] = endingStacks[from];
+		}
+		
+		endingDeltas = deltas;
+		endingStacks = ending;
+	}
+	
+	/**
+	 * @return the smallest power of two greater than <code>span</code>
+	 */
+	private static int capacityFor(int span) {
+		return Integer.highestOneBit(Math.max(span, 1)) << 1;
+	}
+}
@@ -0,0 +1,296 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.behaviors.effect.impl;
+
+import java.util.Arrays;
+
+import fr.kazejiyu.stoneandsaber.behaviors.Status;
+import fr.kazejiyu.stoneandsaber.behaviors.effect.AttackEffect;
+import fr.kazejiyu.stoneandsaber.behaviors.effect.Stacking;
+import fr.kazejiyu.stoneandsaber.human.Entity;
+
+/**
+ * The {@link AttackEffect}s undergone by a given target.
+ * <br><br>
+ * While the effects themselves are shared, Troubles keeps the state specific
+ * to its target: the number of times each effect remains to be undergone.
+ * <br><br>
+ * The identical lasting effects altering life are merged into {@link Stacks}: however 
+ * many hits caused them, they only cost a total change of life per tick and a histogram 
+ * of the ends of their stacks. How a hit stacks with the previous ones is told by the 
+ * {@link Stacking} of its effect. Any other effect is kept apart.
+ * <br><br>
+ * The troubles are undergone in the order they have first been inflicted. Most targets 
+ * never undergo more than one or two of them at a time, so they are stored in arrays that 
+ * start with a single slot and only grow when needed. Undergoing the effects allocates nothing.
+ */
+public final class Troubles {
+	
+	/**
+	 * The effects troubling the target, in the order they have first been inflicted.
+	 * For merged effects, the first one inflicted.
+	 */
+	private AttackEffect[] effects;
+	
+	/**
+	 * The stacks of each merged effect of {@link #effects}, <code>null</code> for the effects kept apart
+	 */
+	private Stacks[] stacks;
+	
+	/**
+	 * The number of times each effect kept apart remains to be undergone
+	 */
+	private int[] timeRemaining;
+	
+	/**
+	 * The number of troubles
+	 */
+	private int size;
+	
+	/**
+	 * @return the number of troubles: the stacks of identical effects and the effects kept apart
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * @return whether no effect is undergone anymore
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+	
+	/**
+	 * Returns the effect of the <code>index</code>-th trouble, in the order they have been inflicted.
+	 * For merged effects, the first one inflicted.
+	 * 
+	 * @param index
+	 * 			the index of the trouble, lower than {@link #size()}
+	 * 
+	 * @return the effect of the trouble
+	 */
+	public AttackEffect effect(int index) {
+		return effects[index];
+	}
+	
+	/**
+	 * Returns the number of times the <code>index</code>-th trouble remains to be undergone.
+	 * 
+	 * @param index
+	 * 			the index of the trouble, lower than {@link #size()}
+	 * 
+	 * @return the number of times the trouble remains to be undergone
+	 */
+	public int timeRemaining(int index) {
+		return stacks[index] == null ? timeRemaining[index] : stacks[index].longest();
+	}
+	
+	/**
+	 * Returns whether every trouble is made of plain lasting effects altering life.
+	 * <br><br>
+	 * Undergoing such troubles only depends on the state of the Troubles and on the status 
+	 * of the target, so that two equal Troubles deal the same changes of life.
+	 * 
+	 * @return whether no effect is kept apart
+	 */
+	public boolean isPlain() {
+		for( int i = 0 ; i < size ; i++ ) {
+			if( stacks[i] == null )
+				return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * @return a copy of the troubles, that evolves independently
+	 */
+	public Troubles copy() {
+		Troubles copy = new Troubles();
+		
+		if( effects != null ) {
+			copy.effects = effects.clone();
+			copy.stacks = stacks.clone();
+			copy.timeRemaining = timeRemaining.clone();
+			copy.size = size;
+			
+			for( int i = 0 ; i < size ; i++ ) {
+				if( stacks[i] != null )
+					copy.stacks[i] = stacks[i].copy();
+			}
+		}
+		return copy;
+	}
+	
+	/**
+	 * Two Troubles are equal when they hold equal troubles, in the same order.
+	 * <br><br>
+	 * Stacks are compared by state, the effects kept apart by identity. Since Troubles are 
+	 * mutable, a Troubles used as a key must not be undergone nor inflicted anymore.
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if( !(obj instanceof Troubles) )
+			return false;
+		
+		Troubles other = (Troubles) obj;
+		
+		if( size != other.size )
+			return false;
+		
+		for( int i = 0 ; i < size ; i++ ) {
+			if( stacks[i] == null ? other.stacks[i] != null || effects[i] != other.effects[i] || timeRemaining[i] != other.timeRemaining[i]
+								  : !stacks[i].equals(other.stacks[i]) )
+				return false;
+		}
+		return true;
+	}
+	
+	@Override
+	public int hashCode() {
+		int hash = size;
+		
+		for( int i = 0 ; i < size ; i++ )
+			hash = 31 * hash + (stacks[i] == null ? System.identityHashCode(effects[i]) + timeRemaining[i] : stacks[i].hashCode());
+		
+		return hash;
+	}
+	
+	/**
+	 * Inflicts <code>effect</code> to the target, as an attacker of default strength would.
+	 * 
+	 * @param effect
+	 * 			the effect inflicted
+	 * 
+	 * @return the number of times the effect, or its stacks, remains to be undergone
+	 * 
+	 * @see #inflict(AttackEffect, int)
+	 */
+	public int inflict(AttackEffect effect) {
+		return inflict(effect, Status.DEFAULT_STRENGTH);
+	}
+	
+	/**
+	 * Inflicts <code>effect</code>, dealt by an attacker of strength <code>strength</code>, to the target.
+	 * <br>
+	 * A lasting effect altering life is stacked with the identical effects. Any other
+	 * effect will be undergone as many times as the duration of a {@link LastingAttackEffect},
+	 * and once for any other effect; if it is already undergone, its countdown restarts.
+	 * <br><br>
+	 * The strength of the attacker scales the damages of the stacks, so that hits of attackers 
+	 * of different strengths are not merged. The effects kept apart ignore it.
+	 * 
+	 * @param effect
+	 * 			the effect inflicted
+	 * @param strength
+	 * 			the strength of the attacker
+	 * 
+	 * @return the number of times the effect, or its stacks, remains to be undergone
+	 */
+	public int inflict(AttackEffect effect, int strength) {
+		boolean stackable = isStackable(effect);
+		int delta = stackable ? ((AlterLife) effect.getAction()).getDelta() : 0;
+		
+		for( int i = 0 ; i < size ; i++ ) {
+			if( stackable && stacks[i] != null && stacks[i].stacks((LastingAttackEffect) effect, delta, strength) )
+				return stacks[i].hit((LastingAttackEffect) effect);
+			
+			if( !stackable && stacks[i] == null && effects[i] == effect ) {
+				timeRemaining[i] = Math.max(timeRemaining[i], durationOf(effect));
+				return timeRemaining[i];
+			}
+		}
+		
+		if( effects == null ) {
+			effects = new AttackEffect[1];
+			stacks = new Stacks[1];
+			timeRemaining = new int[1];
+		}
+		else if( size == effects.length ) {
+			effects = Arrays.copyOf(effects, size * 2);
+			stacks = Arrays.copyOf(stacks, size * 2);
+			timeRemaining = Arrays.copyOf(timeRemaining, size * 2);
+		}
+		
+		effects[size] = effect;
+		
+		if( stackable ) {
+			stacks[size] = new Stacks((LastingAttackEffect) effect, delta, strength);
+			return stacks[size++].hit((LastingAttackEffect) effect);
+		}
+		
+		timeRemaining[size] = durationOf(effect);
+		return timeRemaining[size++];
+	}
+	
+	/**
+	 * Makes <code>target</code> undergo each trouble once, in the order they have 
+	 * been inflicted, then forgets the ones that have been undergone enough times.
+	 * 
+	 * @param target
+	 * 			the entity troubled
+	 * 
+	 * @return whether some effects remain to be undergone
+	 */
+	public boolean undergoBy(Entity target) {
+		int kept = 0;
+		
+		// the troubles still pending are compacted at the beginning of the arrays
+		for( int i = 0 ; i < size ; i++ ) {
+			boolean pending;
+			
+			if( stacks[i] != null )
+				pending = stacks[i].undergoBy(target.status());
+			
+			else {
+				effects[i].applyOn(target);
+				pending = --timeRemaining[i] > 0;
+			}
+			
+			if( pending ) {
+				effects[kept] = effects[i];
+				stacks[kept] = stacks[i];
+				timeRemaining[kept++] = timeRemaining[i];
+			}
+		}
+		
+		if( effects != null ) {
+			Arrays.fill(effects, kept, size, null);
+			Arrays.fill(stacks, kept, size, null);
+		}
+		size = kept;
+		
+		return !isEmpty();
+	}
+	
+	/**
+	 * Returns whether <code>effect</code> can be merged with the effects of its element:
+	 * only plain lasting effects altering life can.
+	 */
+	private static boolean isStackable(AttackEffect effect) {
+		return effect.getClass() == LastingAttackEffect.class && effect.getAction() instanceof AlterLife;
+	}
+	
+	private static int durationOf(AttackEffect effect) {
+		return effect instanceof LastingAttackEffect ? ((LastingAttackEffect) effect).getTimeDuration() : 1;
+	}
+}
@@ -21,9 +21,11 @@
  ******************************************************************************/
 package fr.kazejiyu.stoneandsaber.behaviors.weapon;
 
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
+import fr.kazejiyu.stoneandsaber.behaviors.Status;
 import fr.kazejiyu.stoneandsaber.behaviors.effect.AttackEffect;
 import fr.kazejiyu.stoneandsaber.behaviors.usable.UsableOnObject;
 import fr.kazejiyu.stoneandsaber.human.HumanEntity;
@@ -37,6 +39,9 @@ import fr.kazejiyu.stoneandsaber.human.HumanEntity;
  * 	<li>a set of {@link AttackEffect}</li>
  * </ul>
  * 
+ * Once {@link #freeze() frozen}, a Weapon can no longer be altered 
+ * and may be shared by many wielders.
+ * 
  * @navassoc - - 0..* AttackEffect
  * 
  * @author Emmanuel Chebbi
@@ -49,10 +54,16 @@ public class Weapon implements Cloneable, UsableOnObject <HumanEntity> {
 	private String name;
 	
 	/**
-	 * The {@link AttackEffect} of the Weapon.
+	 * The {@link AttackEffect} of the Weapon. 
+	 * Replaced by an unmodifiable view once the Weapon is frozen.
 	 */
 	private Set <AttackEffect> attackEffects;
 	
+	/**
+	 * Whether the Weapon can no longer be altered.
+	 */
+	private boolean frozen;
+	
 	/**
 	 * Creates a new Weapon with given name
 	 * @param name
@@ -60,7 +71,7 @@ public class Weapon implements Cloneable, UsableOnObject <HumanEntity> {
 	 */
 	public Weapon(String name) {
 		this.name = name;
-		this.attackEffects = new HashSet<>();
+		this.attackEffects = new LinkedHashSet<>();
 	}
 	
 	/**
@@ -71,7 +82,7 @@ public class Weapon implements Cloneable, UsableOnObject <HumanEntity> {
 	}
 	
 	/**
-	 * Returns the {@link AttackEffect} of the Weapon.
+	 * Returns the {@link AttackEffect} of the Weapon, in the order they have been added.
 	 * @return the AttackEffect of the Weapon
 	 */
 	public Set <AttackEffect> effects() {
@@ -80,8 +91,11 @@ public class Weapon implements Cloneable, UsableOnObject <HumanEntity> {
 
 	/**
 	 * @param name the name to set
+	 * 
+	 * @throws UnsupportedOperationException if the Weapon is frozen
 	 */
 	void setName(String name) {
+		checkNotFrozen();
 		this.name = name;
 	}
 	
@@ -89,8 +103,11 @@ public class Weapon implements Cloneable, UsableOnObject <HumanEntity> {
 	 * Adds an {@link AttackEffect} to the Weapon.
 	 * @param effect
 	 * 			the AttackEffect to add
+	 * 
+	 * @throws UnsupportedOperationException if the Weapon is frozen
 	 */
 	public void addEffect(AttackEffect effect) {
+		checkNotFrozen();
 		attackEffects.add(effect);
 	}
 	
@@ -98,10 +115,41 @@ public class Weapon implements Cloneable, UsableOnObject <HumanEntity> {
 	 * Removes an {@link AttackEffect} from the Weapon.
 	 * @param effect
 	 * 			the AttackEffect to remove
+	 * 
+	 * @throws UnsupportedOperationException if the Weapon is frozen
 	 */
 	public void removeEffect(AttackEffect effect) {
+		checkNotFrozen();
 		attackEffects.remove(effect);
 	}
+	
+	/**
+	 * Prevents the Weapon from being altered anymore.
+	 * <br>
+	 * A frozen Weapon keeps no state of its own and can hence be shared 
+	 * by many wielders, as long as its effects are never altered either.
+	 * 
+	 * @return the current Weapon
+	 */
+	public Weapon freeze() {
+		if( ! frozen )
+			attackEffects = Collections.unmodifiableSet(attackEffects);
+		
+		frozen = true;
+		return this;
+	}
+	
+	/**
+	 * @return whether the Weapon can no longer be altered.
+	 */
+	public boolean isFrozen() {
+		return frozen;
+	}
+	
+	private void checkNotFrozen() {
+		if( frozen )
+			throw new UnsupportedOperationException("The weapon " + name + " is frozen and cannot be altered.");
+	}
 
 	/**
 	 * Uses the Weapon on a {@link HumanEntity}.
@@ -112,24 +160,43 @@ public class Weapon implements Cloneable, UsableOnObject <HumanEntity> {
 	 * 
 	 *  @param target
 	 *  		the HumanEntity on whom use the Weapon
+	 *  
+	 *  @see #useOn(HumanEntity, int)
 	 */
 	@Override
 	public void useOn(HumanEntity target) {
+		useOn(target, Status.DEFAULT_STRENGTH);
+	}
+	
+	/**
+	 * Uses the Weapon on a {@link HumanEntity}, with a given strength.
+	 * <br>
+	 * The damages of the effects are scaled by <code>strength</code>, relatively 
+	 * to {@link Status#DEFAULT_STRENGTH}; heals are not.
+	 * 
+	 *  @param target
+	 *  		the HumanEntity on whom use the Weapon
+	 *  @param strength
+	 *  		the strength of the wielder
+	 */
+	public void useOn(HumanEntity target, int strength) {
 		for( AttackEffect effect : attackEffects ) { 
 			if( effect.isInstantaneous() )
-				effect.applyOn(target);
+				effect.applyOn(target, strength);
 			else
-				target.addTrouble(effect);	// if the effect last in time, the target has to keep it in mind
+				target.addTrouble(effect, strength);	// if the effect last in time, the target has to keep it in mind
 		}
 	}
 	
 	/**
 	 * Creates a new Weapon with the same effects.
+	 * <br>
+	 * The new Weapon is never frozen.
 	 */
 	@Override
 	public Weapon clone() {
 		Weapon clone = new Weapon(this.name);
-		clone.attackEffects = new HashSet<>();
+		clone.attackEffects = new LinkedHashSet<>();
 		
 		for( AttackEffect effect : this.attackEffects )
 			clone.attackEffects.add(effect);	// TODO : check if effects are really copied this way...
@@ -24,6 +24,7 @@ package fr.kazejiyu.stoneandsaber.behaviors.weapon;
 import fr.kazejiyu.stoneandsaber.behaviors.effect.AttackAction;
 import fr.kazejiyu.stoneandsaber.behaviors.effect.AttackEffect;
 import fr.kazejiyu.stoneandsaber.behaviors.effect.ElementalType;
+import fr.kazejiyu.stoneandsaber.behaviors.effect.Stacking;
 import fr.kazejiyu.stoneandsaber.behaviors.effect.impl.AlterLife;
 import fr.kazejiyu.stoneandsaber.behaviors.effect.impl.InstantaneousAttackEffect;
 import fr.kazejiyu.stoneandsaber.behaviors.effect.impl.LastingAttackEffect;
@@ -125,10 +126,28 @@ public class WeaponBuilder {
 	 * @return the current WeaponMaterials
 	 */
 	public WeaponBuilder burning(int amount, int timeDuration) {
+		return burning(amount, timeDuration, Stacking.REFRESH, 1);
+	}
+	
+	/**
+	 * Sets the {@link Weapon} enable to burn, with burns that stack.
+	 * 
+	 * @param amount
+	 * 			the amount of damages to make
+	 * @param timeDuration
+	 * 			the duration of the effect
+	 * @param stacking
+	 * 			how the burns stack with the ones already undergone by the target
+	 * @param maxStacks
+	 * 			the maximum number of burns stacked, only relevant for {@link Stacking#CAP}
+	 * 
+	 * @return the current WeaponMaterials
+	 */
+	public WeaponBuilder burning(int amount, int timeDuration, Stacking stacking, int maxStacks) {
 		
 		AttackEffect effect = new LastingAttackEffect(
 				new AlterLife(AttackAction.Type.DECREASE, amount), 
-				ElementalType.FIRE, timeDuration );
+				ElementalType.FIRE, timeDuration, stacking, maxStacks );
 		
 		build.addEffect( effect );
 		return this;
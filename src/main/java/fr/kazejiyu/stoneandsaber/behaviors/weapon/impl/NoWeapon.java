@@ -31,7 +31,7 @@ public class NoWeapon extends Weapon {
 	}
 	
 	@Override
-	public void useOn(HumanEntity target) {
+	public void useOn(HumanEntity target, int strength) {
 		System.out.println("But nothing appends...");
 	}
 }
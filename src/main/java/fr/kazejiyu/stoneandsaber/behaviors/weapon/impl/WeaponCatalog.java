@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.behaviors.weapon.impl;
+
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+import fr.kazejiyu.stoneandsaber.behaviors.weapon.Weapon;
+
+/**
+ * A catalog of the {@link Weapon}s that can be shared by many wielders.
+ * <br><br>
+ * Unlike {@link WeaponFactory}, which creates a new Weapon at each call, the catalog
+ * hands out a single {@link Weapon#freeze() frozen} Weapon per name. Duelists wielding 
+ * the same kind of weapon hence share the same instance and the same effects.
+ * <br><br>
+ * Effects keep no state: the time remaining of a lasting effect is kept by each target,
+ * and the state specific to a wielder is kept by the wielder itself.
+ * 
+ * @navassoc - uses - * WeaponFactory
+ */
+public enum WeaponCatalog {
+	
+	INSTANCE;
+	
+	/**
+	 * The shared Weapons, by name.
+	 */
+	private static final Map <String, Weapon> SHARED = new ConcurrentHashMap<>();
+	
+	/**
+	 * Returns the Weapon called <code>name</code>.
+	 * <br><br>
+	 * The same instance is returned at each call.
+	 * 
+	 * @param name
+	 * 			the name of the Weapon, as specified by {@link WeaponFactory#getAvailableObjects()}
+	 * 
+	 * @return the Weapon called <code>name</code>
+	 * 
+	 * @throws fr.kazejiyu.stoneandsaber.exceptions.WeaponNotExist if <code>name</code> does not match any Weapon
+	 */
+	public static Weapon of(String name) {
+		Weapon shared = SHARED.get(name);
+		
+		if( shared != null )
+			return shared;
+		
+		Weapon weapon = WeaponFactory.create(name).freeze();
+		
+		shared = SHARED.putIfAbsent(name, weapon);
+		return shared == null ? weapon : shared;
+	}
+	
+	/**
+	 * Returns a random {@link Weapon}, drawn from <code>random</code>.
+	 * <br><br>
+	 * Draws the same Weapons as {@link WeaponFactory#any(SplittableRandom)}.
+	 * 
+	 * @param random
+	 * 			the random stream to draw the weapon from
+	 * 
+	 * @return the Weapon drawn
+	 */
+	public static Weapon any(SplittableRandom random) {
+		return of( WeaponFactory.getAvailableObjects() [random.nextInt(4)] );
+	}
+}
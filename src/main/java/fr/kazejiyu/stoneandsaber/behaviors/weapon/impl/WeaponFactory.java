@@ -21,7 +21,7 @@
  ******************************************************************************/
 package fr.kazejiyu.stoneandsaber.behaviors.weapon.impl;
 
-import java.util.Random;
+import java.util.SplittableRandom;
 
 import fr.kazejiyu.stoneandsaber.behaviors.effect.ElementalType;
 import fr.kazejiyu.stoneandsaber.behaviors.effect.impl.LastingAttackEffect;
@@ -173,9 +173,17 @@ public enum WeaponFactory {
 		}
 	}
 	
-	public static Weapon any()
+	/**
+	 * Creates a random {@link Weapon}, drawn from <code>random</code>.
+	 * 
+	 * @param random
+	 * 			the random stream to draw the weapon from
+	 * 
+	 * @return the Weapon created
+	 */
+	public static Weapon any(SplittableRandom random)
 	{
-		return create( getAvailableObjects() [new Random().nextInt(4)] );
+		return create( getAvailableObjects() [random.nextInt(4)] );
 	}
 	
 	/**
@@ -0,0 +1,429 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.event;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import rx.Subscription;
+import rx.functions.Action1;
+
+/**
+ * A subscription which callback is called asynchronously.
+ * <br><br>
+ * The events are buffered in a bounded queue owned by the subscription, then delivered
+ * one at a time, in their order of arrival, by a task running on the subscription's executor.
+ * The {@link OverflowPolicy} tells what happens when the queue is full. The failures of
+ * the callback are {@link EventBus#report(Object, Throwable) reported} and do not stop
+ * the delivery of the next events. An error escaping the callback ends the task that 
+ * delivered it, but a new task takes over the next events.
+ * <br><br>
+ * The subscription also exposes metrics about how far the subscriber lags behind the producers.
+ */
+public final class AsyncSubscription <T> implements Subscription
+{
+	/**
+	 * The callback to call for each event.
+	 */
+	private final Action1 <T> callback;
+	
+	/**
+	 * Runs the delivery tasks.
+	 */
+	private final Executor executor;
+	
+	/**
+	 * Called once the subscription is unsubscribed.
+	 */
+	private final Runnable onUnsubscribe;
+	
+	/**
+	 * The maximum number of pending events.
+	 */
+	private final int capacity;
+	
+	/**
+	 * What happens when the queue is full.
+	 */
+	private final OverflowPolicy policy;
+	
+	/**
+	 * Guards all the mutable state of the subscription.
+	 */
+	private final ReentrantLock lock = new ReentrantLock();
+	
+	/**
+	 * Signaled when an event leaves the queue.
+	 */
+	private final Condition notFull = lock.newCondition();
+	
+	/**
+	 * The events waiting to be delivered.
+	 */
+	private final Deque <T> pending;
+	
+	/**
+	 * Whether a delivery task is scheduled or running.
+	 */
+	private boolean draining;
+	
+	/**
+	 * The thread running the delivery task, if any.
+	 */
+	private Thread drainer;
+	
+	private boolean unsubscribed;
+	
+	private long delivered;
+	
+	private long dropped;
+	
+	private long coalesced;
+	
+	private int maxPending;
+	
+	/**
+	 * Creates a new subscription.
+	 * 
+	 * @param callback
+	 * 			The callback to call for each event.
+	 * @param executor
+	 * 			Runs the delivery tasks.
+	 * @param capacity
+	 * 			The maximum number of pending events.
+	 * @param policy
+	 * 			What happens when the queue is full.
+	 * @param onUnsubscribe
+	 * 			Called once the subscription is unsubscribed.
+	 */
+	AsyncSubscription(Action1 <T> callback, Executor executor, int capacity, OverflowPolicy policy, Runnable onUnsubscribe)
+	{
+		if( capacity <= 0 )
+			throw new IllegalArgumentException("The capacity of a queue must be positive, not "+capacity+".");
+		
+		this.callback = callback;
+		this.executor = executor;
+		this.capacity = capacity;
+		this.policy = policy;
+		this.onUnsubscribe = onUnsubscribe;
+		this.pending = new ArrayDeque<>(capacity);
+	}
+	
+	/**
+	 * Queues an event, applying the overflow policy if the queue is full.
+	 * 
+	 * @param event
+	 * 			The event to deliver.
+	 * 
+	 * @throws RejectedExecutionException if the executor refuses to deliver the event.
+	 * 			The event remains pending, and delivery is attempted again on the next offer.
+	 */
+	void offer(T event)
+	{
+		boolean schedule;
+		lock.lock();
+		
+		try {
+			if( unsubscribed )
+				return;
+			
+			if( pending.size() >= capacity && !makeRoom() )
+				return;
+			
+			pending.addLast(event);
+			maxPending = Math.max(maxPending, pending.size());
+			
+			schedule = !draining;
+			draining = true;
+		}
+		finally {
+			lock.unlock();
+		}
+		
+		if( schedule )
+			schedule();
+	}
+	
+	/**
+	 * Asks the executor to run the delivery task.
+	 */
+	private void schedule()
+	{
+		try {
+			executor.execute(this::drain);
+		}
+		catch( RejectedExecutionException e ) {
+			lock.lock();
+			
+			try {
+				draining = false;
+			}
+			finally {
+				lock.unlock();
+			}
+			throw e;
+		}
+	}
+	
+	/**
+	 * Frees a slot of the full queue according to the overflow policy.
+	 * Must be called while holding the lock.
+	 * 
+	 * @return whether the new event must be queued.
+	 */
+	private boolean makeRoom()
+	{
+		switch( policy )
+		{
+		case DROP_OLDEST:
+			pending.pollFirst();
+			dropped++;
+			return true;
+			
+		case COALESCE:
+			pending.pollLast();
+			coalesced++;
+			return true;
+			
+		case BLOCK:
+		default:
+			// the delivery thread would wait for itself
+			if( Thread.currentThread() == drainer ) {
+				pending.pollFirst();
+				dropped++;
+				return true;
+			}
+			
+			while( pending.size() >= capacity && !unsubscribed )
+				notFull.awaitUninterruptibly();
+			
+			return !unsubscribed;
+		}
+	}
+	
+	/**
+	 * Delivers the pending events until the queue is empty.
+	 */
+	private void drain()
+	{
+		boolean completed = false;
+		lock.lock();
+		
+		try {
+			drainer = Thread.currentThread();
+		}
+		finally {
+			lock.unlock();
+		}
+		
+		try {
+			while( true )
+			{
+				T event;
+				lock.lock();
+				
+				try {
+					event = pending.pollFirst();
+					
+					if( event == null ) {
+						draining = false;
+						drainer = null;
+						completed = true;
+						return;
+					}
+					notFull.signal();
+				}
+				finally {
+					lock.unlock();
+				}
+				
+				try {
+					callback.call(event);
+				}
+				catch( RuntimeException e ) {
+					EventBus.report(event, e);
+				}
+				
+				lock.lock();
+				
+				try {
+					delivered++;
+				}
+				finally {
+					lock.unlock();
+				}
+			}
+		}
+		finally {
+			if( !completed )
+				recover();
+		}
+	}
+	
+	/**
+	 * Called when an error escapes the callback and ends the delivery task:
+	 * hands the remaining events to a new task, so that the subscription 
+	 * keeps delivering them.
+	 */
+	private void recover()
+	{
+		boolean reschedule;
+		lock.lock();
+		
+		try {
+			drainer = null;
+			reschedule = !pending.isEmpty() && !unsubscribed;
+			draining = reschedule;
+		}
+		finally {
+			lock.unlock();
+		}
+		
+		if( reschedule ) {
+			try {
+				schedule();
+			}
+			catch( RejectedExecutionException e ) {
+				// delivery is attempted again on the next offer
+			}
+		}
+	}
+	
+	/**
+	 * Returns the number of events waiting to be delivered: how many events the 
+	 * subscriber lags behind the producers.
+	 * 
+	 * @return the number of pending events.
+	 */
+	public int lag()
+	{
+		lock.lock();
+		
+		try {
+			return pending.size();
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * @return the greatest number of events that have been pending at the same time.
+	 */
+	public int maxLag()
+	{
+		lock.lock();
+		
+		try {
+			return maxPending;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * @return the number of events delivered so far.
+	 */
+	public long delivered()
+	{
+		lock.lock();
+		
+		try {
+			return delivered;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * @return the number of events discarded by the {@link OverflowPolicy#DROP_OLDEST} policy,
+	 * 		   or by the {@link OverflowPolicy#BLOCK} policy when the subscriber posts to itself.
+	 */
+	public long dropped()
+	{
+		lock.lock();
+		
+		try {
+			return dropped;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * @return the number of events replaced by the {@link OverflowPolicy#COALESCE} policy.
+	 */
+	public long coalesced()
+	{
+		lock.lock();
+		
+		try {
+			return coalesced;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Stops listening for events. The pending events are discarded, 
+	 * and blocked producers are released.
+	 */
+	@Override
+	public void unsubscribe()
+	{
+		lock.lock();
+		
+		try {
+			if( unsubscribed )
+				return;
+			
+			unsubscribed = true;
+			pending.clear();
+			notFull.signalAll();
+		}
+		finally {
+			lock.unlock();
+		}
+		onUnsubscribe.run();
+	}
+
+	@Override
+	public boolean isUnsubscribed()
+	{
+		lock.lock();
+		
+		try {
+			return unsubscribed;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+}
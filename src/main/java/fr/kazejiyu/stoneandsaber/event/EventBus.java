@@ -21,20 +21,41 @@
  ******************************************************************************/
 package fr.kazejiyu.stoneandsaber.event;
 
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import rx.Subscription;
 import rx.functions.Action1;
-import rx.subjects.PublishSubject;
+import rx.subscriptions.Subscriptions;
 
 /**
  * Manages the event launched through the game.
+ * <br><br>
+ * Events are dispatched according to their class: the subscribers interested in
+ * each class of event are resolved once, then cached until the next registration 
+ * or unsubscription. Posting an event hence costs time proportional to the number 
+ * of subscribers it matches, not to the number of subscribers.
+ * <br><br>
+ * Subscribers are called synchronously, in their order of registration.
  * 
  * @author <a href="mailto:emmanuel.chebbi@outlook.fr">Emmanuel Chebbi</a>
  */
 public class EventBus <T>
 {
-	private final PublishSubject <Object> bus = PublishSubject.create();
-	
+	/**
+	 * The current subscribers and the resulting dispatch table.
+	 * Replaced as a whole each time a subscriber comes or leaves.
+	 */
+	private volatile Table <T> table = new Table<>(new Subscriber[0]);
 	
+	/**
+	 * The number of callbacks registered so far, used to identify them.
+	 */
+	private long registrations;
 	
 	/**
 	 * Registers a <code>callback</code> that will be called each time an
@@ -51,14 +72,93 @@ public class EventBus <T>
 	 */
 	public Subscription register(final Class <? extends T> eventClassToListenFor, Action1 <T> callback)
 	{
-		return bus
-				.filter(eventClassToListenFor::isInstance)
-				.cast(eventClassToListenFor)
-				.subscribe(callback);
+		Subscriber <T> subscriber;
+		
+		synchronized( this ) {
+			subscriber = new Subscriber<>(registrations++, eventClassToListenFor, callback);
+			Subscriber <T>[] subscribers = Arrays.copyOf(table.subscribers, table.subscribers.length + 1);
+			subscribers[subscribers.length - 1] = subscriber;
+			table = new Table<>(subscribers);
+		}
+		return Subscriptions.create(() -> unregister(subscriber));
+	}
+	
+	/**
+	 * Registers a <code>callback</code> that will be called asynchronously each time 
+	 * an instance of <code>eventClassToListenFor</code> is <code>post</code>ed.
+	 * <br><br>
+	 * The subscription gets its own bounded queue and its own thread, so that 
+	 * a slow callback does not slow down the producers (unless the policy is 
+	 * {@link OverflowPolicy#BLOCK}). The thread stops when the subscription is unsubscribed.
+	 * 
+	 * @param eventClassToListenFor
+	 * 			The class to listen for.
+	 * @param callback
+	 * 			The callback function to call when a specific event is posted.
+	 * @param capacity
+	 * 			The maximum number of events waiting to be delivered.
+	 * @param policy
+	 * 			What happens when an event is posted while the queue is full.
+	 * 
+	 * @return the {@link AsyncSubscription} corresponding to the registration.
+	 */
+	public AsyncSubscription <T> registerAsync(final Class <? extends T> eventClassToListenFor, Action1 <T> callback, 
+			int capacity, OverflowPolicy policy)
+	{
+		ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "event-bus-subscriber");
+			thread.setDaemon(true);
+			return thread;
+		});
+		
+		return registerAsync(eventClassToListenFor, callback, executor, capacity, policy, executor::shutdown);
+	}
+	
+	/**
+	 * Registers a <code>callback</code> that will be called asynchronously, by 
+	 * <code>executor</code>, each time an instance of <code>eventClassToListenFor</code> 
+	 * is <code>post</code>ed.
+	 * <br><br>
+	 * The subscription gets its own bounded queue. Events are delivered one at a time,
+	 * in their order of arrival, even if the executor has several threads.
+	 * 
+	 * @param eventClassToListenFor
+	 * 			The class to listen for.
+	 * @param callback
+	 * 			The callback function to call when a specific event is posted.
+	 * @param executor
+	 * 			Runs the callback.
+	 * @param capacity
+	 * 			The maximum number of events waiting to be delivered.
+	 * @param policy
+	 * 			What happens when an event is posted while the queue is full.
+	 * 
+	 * @return the {@link AsyncSubscription} corresponding to the registration.
+	 */
+	public AsyncSubscription <T> registerAsync(final Class <? extends T> eventClassToListenFor, Action1 <T> callback, 
+			Executor executor, int capacity, OverflowPolicy policy)
+	{
+		return registerAsync(eventClassToListenFor, callback, executor, capacity, policy, () -> {});
+	}
+	
+	private AsyncSubscription <T> registerAsync(final Class <? extends T> eventClassToListenFor, Action1 <T> callback, 
+			Executor executor, int capacity, OverflowPolicy policy, Runnable onUnsubscribe)
+	{
+		Subscription[] registration = new Subscription[1];
+		
+		AsyncSubscription <T> subscription = new AsyncSubscription<>(callback, executor, capacity, policy, () -> {
+			registration[0].unsubscribe();
+			onUnsubscribe.run();
+		});
+		registration[0] = register(eventClassToListenFor, subscription::offer);
+		
+		return subscription;
 	}
 	
 	/**
 	 * Sends an event through the event bus.
+	 * <br><br>
+	 * A <code>null</code> event is ignored.
 	 * 
 	 * @param event
 	 * 			The event to send.
@@ -67,7 +167,147 @@ public class EventBus <T>
 	 */
 	public void post(Object event)
 	{
-		bus.onNext(event);
+		dispatch(event);
+	}
+	
+	/**
+	 * Calls, in the current thread, the callbacks listening for <code>event</code>.
+	 * <br><br>
+	 * Subclasses delivering the events differently should eventually call this method.
+	 * 
+	 * @param event
+	 * 			The event to deliver.
+	 */
+	@SuppressWarnings("unchecked")
+	protected final void dispatch(Object event)
+	{
+		if( event == null )
+			return;
+		
+		for( Subscriber <T> subscriber : table.subscribersOf(event.getClass()) )
+			subscriber.callback.call((T) event);
+	}
+	
+	/**
+	 * Calls, in the current thread, the callbacks listening for <code>event</code> 
+	 * that belong to <code>shard</code>.
+	 * <br><br>
+	 * The subscribers are split into <code>shards</code> groups once and for all, 
+	 * so that subclasses can deliver each event with several threads while each 
+	 * subscriber keeps being called by one thread at a time.
+	 * 
+	 * @param event
+	 * 			The event to deliver.
+	 * @param shard
+	 * 			The group of subscribers to call, in [0, shards).
+	 * @param shards
+	 * 			The number of groups.
+	 */
+	@SuppressWarnings("unchecked")
+	protected final void dispatch(Object event, int shard, int shards)
+	{
+		if( event == null )
+			return;
+		
+		for( Subscriber <T> subscriber : table.subscribersOf(event.getClass()) )
+			if( subscriber.id % shards == shard )
+				subscriber.callback.call((T) event);
+	}
+	
+	/**
+	 * Reports that a subscriber failed to handle <code>event</code>.
+	 * <br><br>
+	 * Used when the event is delivered away from the thread that posted it,
+	 * which cannot be told about the failure.
+	 * 
+	 * @param event
+	 * 			The event being delivered.
+	 * @param e
+	 * 			The failure of the subscriber.
+	 */
+	static void report(Object event, Throwable e)
+	{
+		System.err.println("\nSORRY, AN ERROR OCCURED WHILE DELIVERING :\n"
+				+ "   event was : " + event + "\n"
+				+ "   error message is : " + e.getMessage() + "\n");
+	}
+	
+	/**
+	 * Removes <code>subscriber</code> from the bus.
+	 */
+	private synchronized void unregister(Subscriber <T> subscriber)
+	{
+		Subscriber <T>[] subscribers = table.subscribers;
+		
+		for( int i = 0 ; i < subscribers.length ; i++ )
+		{
+			if( subscribers[i] == subscriber ) 
+			{
+				Subscriber <T>[] remaining = Arrays.copyOf(subscribers, subscribers.length - 1);
+				System.arraycopy(subscribers, i + 1, remaining, i, subscribers.length - i - 1);
+				table = new Table<>(remaining);
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * A callback listening for a class of events.
+	 */
+	private static final class Subscriber <T>
+	{
+		final long id;
+		
+		final Class <?> type;
+		
+		final Action1 <T> callback;
+		
+		Subscriber(long id, Class <?> type, Action1 <T> callback)
+		{
+			this.id = id;
+			this.type = type;
+			this.callback = callback;
+		}
+	}
+	
+	/**
+	 * An immutable set of subscribers, and the subscribers of each class of events 
+	 * computed so far.
+	 */
+	private static final class Table <T>
+	{
+		/**
+		 * All the subscribers, in their order of registration.
+		 */
+		final Subscriber <T>[] subscribers;
+		
+		/**
+		 * The subscribers of each class of events already posted.
+		 */
+		final Map <Class<?>, Subscriber<T>[]> dispatch = new ConcurrentHashMap<>();
+		
+		Table(Subscriber <T>[] subscribers)
+		{
+			this.subscribers = subscribers;
+		}
+		
+		/**
+		 * Returns the subscribers listening for a supertype of <code>eventClass</code>,
+		 * in their order of registration.
+		 */
+		Subscriber <T>[] subscribersOf(Class <?> eventClass)
+		{
+			Subscriber <T>[] matching = dispatch.get(eventClass);
+			
+			if( matching == null )
+			{
+				matching = Arrays.stream(subscribers)
+								 .filter(subscriber -> subscriber.type.isAssignableFrom(eventClass))
+								 .toArray(Subscriber[]::new);
+				
+				dispatch.put(eventClass, matching);
+			}
+			return matching;
+		}
 	}
-
 }
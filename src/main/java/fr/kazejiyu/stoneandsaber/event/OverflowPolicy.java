@@ -0,0 +1,50 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.event;
+
+/**
+ * What an asynchronous subscription does when an event is posted while its queue is full.
+ * 
+ * @see EventBus#registerAsync(Class, rx.functions.Action1, int, OverflowPolicy)
+ */
+public enum OverflowPolicy
+{
+	/**
+	 * The posting thread waits until the subscriber makes room in the queue.
+	 * No event is lost, but a slow subscriber slows the producers down.
+	 * <br><br>
+	 * A subscriber posting from its own callback cannot wait for itself: 
+	 * its events are then handled as with {@link #DROP_OLDEST}.
+	 */
+	BLOCK,
+	
+	/**
+	 * The oldest pending event is discarded to make room for the new one.
+	 */
+	DROP_OLDEST,
+	
+	/**
+	 * The new event replaces the most recent pending one. Suited to events 
+	 * describing a state, of which only the latest matters.
+	 */
+	COALESCE
+}
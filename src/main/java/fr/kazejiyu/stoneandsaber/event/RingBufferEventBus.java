@@ -0,0 +1,393 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.event;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * An {@link EventBus} that decouples the threads posting events from the 
+ * subscribers through a pre-allocated ring buffer.
+ * <br><br>
+ * Posting an event only claims a slot of the buffer (with a CAS, so that many threads 
+ * can post concurrently), stores the event and publishes it. Consumer threads then 
+ * deliver the published events to the subscribers, each of them draining as many 
+ * events as available at once. Posting only waits when the buffer is full.
+ * <br><br>
+ * Each consumer delivers every event to its own share of the subscribers, so that 
+ * subscribers belonging to different consumers are called concurrently. A subscriber 
+ * always receives the events one at a time, in the order their slots were claimed.
+ * <br><br>
+ * The consumers are started by {@link #start()}, or by the first post. A bus must be 
+ * {@link #close() closed} once useless: closing delivers the pending events and stops 
+ * the consumers.
+ */
+public class RingBufferEventBus <T> extends EventBus <T> implements AutoCloseable
+{
+	/**
+	 * The events, indexed by sequence modulo the capacity of the buffer.
+	 */
+	private final AtomicReferenceArray <Object> slots;
+	
+	/**
+	 * The sequence last published in each slot.
+	 */
+	private final AtomicLongArray published;
+	
+	/**
+	 * Used to compute the index of a sequence in the buffer.
+	 */
+	private final int mask;
+	
+	/**
+	 * The last sequence claimed by a producer.
+	 */
+	private final AtomicLong claimed = new AtomicLong(-1);
+	
+	/**
+	 * The last sequence delivered by each consumer.
+	 */
+	private final AtomicLong[] consumed;
+	
+	/**
+	 * How producers and consumers wait for each other.
+	 */
+	private final WaitStrategy wait;
+	
+	/**
+	 * Deliver the events to the subscribers. Created by {@link #start()}.
+	 */
+	private final Thread[] consumers;
+	
+	/**
+	 * Guards the start and the closing of the bus.
+	 */
+	private final Object lifecycle = new Object();
+	
+	/**
+	 * Whether the consumers have been started.
+	 */
+	private volatile boolean started = false;
+	
+	/**
+	 * Whether events may still be posted.
+	 */
+	private volatile boolean running = true;
+	
+	/**
+	 * Whether a consumer died, so that the events will never be all delivered.
+	 */
+	private volatile boolean halted = false;
+	
+	/**
+	 * Creates a new bus with a single consumer, using a {@link WaitStrategy#blocking() blocking} 
+	 * wait strategy.
+	 * 
+	 * @param capacity
+	 * 			The number of events the buffer can hold. Must be a power of two.
+	 */
+	public RingBufferEventBus(int capacity)
+	{
+		this(capacity, WaitStrategy.blocking());
+	}
+	
+	/**
+	 * Creates a new bus with a single consumer.
+	 * 
+	 * @param capacity
+	 * 			The number of events the buffer can hold. Must be a power of two.
+	 * @param wait
+	 * 			How producers and consumer wait for each other.
+	 */
+	public RingBufferEventBus(int capacity, WaitStrategy wait)
+	{
+		this(capacity, wait, 1);
+	}
+	
+	/**
+	 * Creates a new bus.
+	 * 
+	 * @param capacity
+	 * 			The number of events the buffer can hold. Must be a power of two.
+	 * @param wait
+	 * 			How producers and consumers wait for each other.
+	 * @param consumers
+	 * 			The number of threads delivering the events. Must be positive.
+	 */
+	public RingBufferEventBus(int capacity, WaitStrategy wait, int consumers)
+	{
+		if( capacity <= 0 || Integer.bitCount(capacity) != 1 )
+			throw new IllegalArgumentException("The capacity of the buffer must be a power of two, not "+capacity+".");
+		
+		if( consumers <= 0 )
+			throw new IllegalArgumentException("The number of consumers must be positive, not "+consumers+".");
+		
+		this.slots = new AtomicReferenceArray<>(capacity);
+		this.published = new AtomicLongArray(capacity);
+		this.mask = capacity - 1;
+		this.wait = wait;
+		this.consumers = new Thread[consumers];
+		this.consumed = new AtomicLong[consumers];
+		
+		for( int i = 0 ; i < capacity ; i++ )
+			published.set(i, -1);
+		
+		for( int i = 0 ; i < consumers ; i++ )
+			consumed[i] = new AtomicLong(-1);
+	}
+	
+	/**
+	 * Starts the consumers. Does nothing if they are already started, 
+	 * or if the bus is closed.
+	 */
+	public void start()
+	{
+		synchronized( lifecycle ) {
+			if( started || !running )
+				return;
+			
+			for( int i = 0 ; i < consumers.length ; i++ )
+			{
+				int shard = i;
+				consumers[i] = new Thread(() -> consume(shard), "event-bus-consumer-" + i);
+				consumers[i].setDaemon(true);
+				consumers[i].start();
+			}
+			started = true;
+		}
+	}
+	
+	/**
+	 * Publishes an event in the ring buffer. It will be delivered asynchronously 
+	 * by the consumers, which are started if necessary.
+	 * <br><br>
+	 * Waits for a free slot if the buffer is full. A consumer cannot wait for 
+	 * itself though: a subscriber posting into a full buffer fails instead.
+	 * 
+	 * @param event
+	 * 			The event to send.
+	 * 
+	 * @throws IllegalStateException if the bus is closed, if the buffer is full and the 
+	 * 								 current thread is a consumer, or if the current thread
+	 * 								 is interrupted while waiting for a free slot.
+	 */
+	@Override
+	public void post(Object event)
+	{
+		if( !running )
+			throw closed();
+		
+		if( !started )
+			start();
+		
+		long sequence = claim();
+		
+		slots.set(index(sequence), event);
+		published.set(index(sequence), sequence);
+		
+		wait.signalAll();
+	}
+	
+	/**
+	 * Delivers the pending events then stops the consumers.
+	 * <br><br>
+	 * The events posted concurrently to the closing may not be delivered.
+	 */
+	@Override
+	public void close() throws InterruptedException
+	{
+		synchronized( lifecycle ) {
+			running = false;
+		}
+		wait.signalAll();
+		
+		if( !started )
+			return;
+		
+		for( Thread consumer : consumers )
+			if( consumer != Thread.currentThread() )
+				consumer.join();
+	}
+	
+	/**
+	 * Claims the next sequence, once its slot is free.
+	 */
+	private long claim()
+	{
+		while( true )
+		{
+			long current = claimed.get();
+			long next = current + 1;
+			long wrap = next - slots.length();
+			
+			if( wrap > slowest() ) 
+			{
+				if( isConsumer(Thread.currentThread()) )
+					throw new IllegalStateException("A consumer cannot wait for a free slot: the buffer is full.");
+				
+				try {
+					wait.await(() -> wrap <= slowest() || halted);
+				}
+				catch( InterruptedException e ) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException("Interrupted while waiting for a free slot.", e);
+				}
+				
+				if( halted )
+					throw closed();
+				
+				continue;
+			}
+			
+			if( claimed.compareAndSet(current, next) )
+				return next;
+		}
+	}
+	
+	/**
+	 * Delivers the published events to the subscribers of <code>shard</code>, 
+	 * batch by batch, until the bus is closed.
+	 * <br><br>
+	 * A failure that escapes the consumer halts the bus, so that producers 
+	 * waiting for a free slot are not left waiting forever.
+	 */
+	private void consume(int shard)
+	{
+		AtomicLong sequence = consumed[shard];
+		long next = 0;
+		boolean completed = false;
+		
+		try {
+			while( true )
+			{
+				long expected = next;
+				wait.await(() -> isPublished(expected) || (!running && expected > claimed.get()));
+				
+				if( !isPublished(next) )
+					break;
+				
+				long last = next;
+				
+				while( isPublished(last + 1) )
+					last++;
+				
+				for( long current = next ; current <= last ; current++ )
+				{
+					int index = index(current);
+					Object event = slots.get(index);
+					
+					if( consumers.length == 1 )
+						slots.lazySet(index, null);
+					
+					deliver(event, shard);
+				}
+				
+				sequence.set(last);
+				wait.signalAll();
+				next = last + 1;
+			}
+			completed = true;
+		}
+		catch( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+		}
+		finally {
+			if( !completed ) 
+			{
+				halted = true;
+				running = false;
+			}
+			wait.signalAll();
+		}
+	}
+	
+	/**
+	 * Delivers an event to the subscribers of <code>shard</code>. The failure of a subscriber is
+	 * {@link EventBus#report(Object, Throwable) reported} and does not prevent 
+	 * the next events from being delivered.
+	 */
+	private void deliver(Object event, int shard)
+	{
+		try {
+			dispatch(event, shard, consumers.length);
+		}
+		catch( RuntimeException e ) {
+			report(event, e);
+		}
+	}
+	
+	/**
+	 * Returns the last sequence delivered by all the consumers.
+	 */
+	private long slowest()
+	{
+		long slowest = Long.MAX_VALUE;
+		
+		for( AtomicLong sequence : consumed )
+			slowest = Math.min(slowest, sequence.get());
+		
+		return slowest;
+	}
+	
+	/**
+	 * Whether <code>thread</code> is one of the consumers of the bus.
+	 */
+	private boolean isConsumer(Thread thread)
+	{
+		if( !started )
+			return false;
+		
+		for( Thread consumer : consumers )
+			if( consumer == thread )
+				return true;
+		
+		return false;
+	}
+	
+	/**
+	 * Returns the exception thrown when posting on a bus that no longer delivers events.
+	 */
+	private IllegalStateException closed()
+	{
+		if( halted )
+			return new IllegalStateException("Cannot post on a halted bus: a consumer died.");
+		
+		return new IllegalStateException("Cannot post on a closed bus.");
+	}
+	
+	/**
+	 * Whether <code>sequence</code> has been published.
+	 */
+	private boolean isPublished(long sequence)
+	{
+		return published.get(index(sequence)) == sequence;
+	}
+	
+	/**
+	 * Returns the index of the slot of <code>sequence</code>.
+	 */
+	private int index(long sequence)
+	{
+		return (int) (sequence & mask);
+	}
+}
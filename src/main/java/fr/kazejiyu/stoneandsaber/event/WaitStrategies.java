@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.event;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The implementations of {@link WaitStrategy}.
+ */
+final class WaitStrategies
+{
+	/**
+	 * The number of checks made before yielding.
+	 */
+	private static final int SPINS = 100;
+	
+	/**
+	 * The number of yields made before sleeping.
+	 */
+	private static final int YIELDS = 100;
+	
+	/**
+	 * How long a sleeping thread sleeps between two checks.
+	 */
+	private static final long SLEEP_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+	
+	private WaitStrategies()
+	{
+		// utility class
+	}
+	
+	/**
+	 * Throws if the current thread has been interrupted.
+	 */
+	private static void checkInterrupted() throws InterruptedException
+	{
+		if( Thread.interrupted() )
+			throw new InterruptedException();
+	}
+	
+	static final class BusySpin implements WaitStrategy
+	{
+		@Override
+		public void await(BooleanSupplier condition) throws InterruptedException
+		{
+			while( !condition.getAsBoolean() )
+				checkInterrupted();
+		}
+
+		@Override
+		public void signalAll() 
+		{
+			// nobody sleeps
+		}
+	}
+	
+	static final class Yielding implements WaitStrategy
+	{
+		@Override
+		public void await(BooleanSupplier condition) throws InterruptedException
+		{
+			for( int attempt = 0 ; !condition.getAsBoolean() ; attempt++ )
+			{
+				checkInterrupted();
+				
+				if( attempt >= SPINS )
+					Thread.yield();
+			}
+		}
+
+		@Override
+		public void signalAll() 
+		{
+			// nobody sleeps
+		}
+	}
+	
+	static final class Sleeping implements WaitStrategy
+	{
+		@Override
+		public void await(BooleanSupplier condition) throws InterruptedException
+		{
+			for( int attempt = 0 ; !condition.getAsBoolean() ; attempt++ )
+			{
+				checkInterrupted();
+				
+				if( attempt >= SPINS + YIELDS )
+					LockSupport.parkNanos(SLEEP_NANOS);
+				
+				else if( attempt >= SPINS )
+					Thread.yield();
+			}
+		}
+
+		@Override
+		public void signalAll() 
+		{
+			// sleepers wake up by themselves
+		}
+	}
+	
+	static final class Blocking implements WaitStrategy
+	{
+		private final ReentrantLock lock = new ReentrantLock();
+		
+		private final Condition changed = lock.newCondition();
+		
+		@Override
+		public void await(BooleanSupplier condition) throws InterruptedException
+		{
+			if( condition.getAsBoolean() )
+				return;
+			
+			lock.lockInterruptibly();
+			
+			try {
+				while( !condition.getAsBoolean() )
+					changed.await();
+			}
+			finally {
+				lock.unlock();
+			}
+		}
+
+		@Override
+		public void signalAll() 
+		{
+			lock.lock();
+			
+			try {
+				changed.signalAll();
+			}
+			finally {
+				lock.unlock();
+			}
+		}
+	}
+}
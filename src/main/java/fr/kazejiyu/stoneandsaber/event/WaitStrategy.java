@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.event;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * How a thread waits for the state of a {@link RingBufferEventBus} to change:
+ * a consumer waits for events to be published, a producer waits for free slots.
+ * <br><br>
+ * The strategies trade CPU usage for latency: {@link #busySpin()} reacts the fastest 
+ * but burns a core per waiting thread, whereas {@link #blocking()} does not use any 
+ * CPU while waiting but pays for locking on each post.
+ */
+public interface WaitStrategy
+{
+	/**
+	 * Waits until <code>condition</code> becomes true.
+	 * 
+	 * @param condition
+	 * 			The condition to wait for. Must be cheap and side-effect free.
+	 * 
+	 * @throws InterruptedException if the current thread is interrupted while waiting.
+	 */
+	void await(BooleanSupplier condition) throws InterruptedException;
+	
+	/**
+	 * Wakes up the threads waiting for a condition, if necessary.
+	 * Called each time the state of the bus changes.
+	 */
+	void signalAll();
+	
+	/**
+	 * @return a strategy that checks the condition in a tight loop.
+	 */
+	static WaitStrategy busySpin()
+	{
+		return new WaitStrategies.BusySpin();
+	}
+	
+	/**
+	 * @return a strategy that spins for a while, then yields the CPU between checks.
+	 */
+	static WaitStrategy yielding()
+	{
+		return new WaitStrategies.Yielding();
+	}
+	
+	/**
+	 * @return a strategy that spins, then yields, then sleeps between checks.
+	 */
+	static WaitStrategy sleeping()
+	{
+		return new WaitStrategies.Sleeping();
+	}
+	
+	/**
+	 * @return a strategy that parks waiting threads until they are signaled.
+	 */
+	static WaitStrategy blocking()
+	{
+		return new WaitStrategies.Blocking();
+	}
+}
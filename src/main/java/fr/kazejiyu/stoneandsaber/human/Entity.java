@@ -49,6 +49,36 @@ public interface Entity
 	 * @see #undergoTroubles()
 	 */
 	public void addTrouble(AttackEffect trouble);
+	
+	/**
+	 * Adds a new {@link AttackEffect}, dealt by an attacker of strength <code>strength</code>, to the HumanEntity
+	 * 
+	 * @param trouble
+	 * 			the {@link AttackEffect} which will cause trouble to the HumanEntity
+	 * @param strength
+	 * 			the strength of the attacker
+	 * 
+	 * @see #addTrouble(AttackEffect)
+	 */
+	public void addTrouble(AttackEffect trouble, int strength);
+
+	/**
+	 * Returns whether the entity still has troubles to undergo.
+	 * @return whether the entity still has troubles to undergo
+	 * 
+	 * @see #addTrouble(AttackEffect)
+	 */
+	public boolean hasTroubles();
+
+	/**
+	 * Sets the listener notified each time the entity is inflicted a trouble.
+	 * 
+	 * @param listener
+	 * 			the listener to notify, or <code>null</code> to notify nobody
+	 * 
+	 * @see #addTrouble(AttackEffect)
+	 */
+	public void setTroubleListener(TroubleListener listener);
 
 	/**
 	 * Makes the HumanEntity undergo the {@link AttackEffect} set as troubles
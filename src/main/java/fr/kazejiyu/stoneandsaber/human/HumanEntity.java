@@ -21,11 +21,9 @@
  ******************************************************************************/
 package fr.kazejiyu.stoneandsaber.human;
 
-import java.util.HashSet;
-import java.util.Set;
-
 import fr.kazejiyu.stoneandsaber.behaviors.Status;
 import fr.kazejiyu.stoneandsaber.behaviors.effect.AttackEffect;
+import fr.kazejiyu.stoneandsaber.behaviors.effect.impl.Troubles;
 
 /**
  * A human that has a {@link Status}.
@@ -38,9 +36,14 @@ public abstract class HumanEntity implements Human
 	private final Status status = new Status();
 
 	/**
-	 * {@link AttackEffect}s which trouble the HumanEntity
+	 * The {@link AttackEffect}s which trouble the HumanEntity, <code>null</code> while it has none
+	 */
+	private Troubles troubles;
+	
+	/**
+	 * Notified each time the HumanEntity is inflicted a trouble, may be <code>null</code>
 	 */
-	private Set <AttackEffect> troubles = new HashSet<>();
+	private TroubleListener troubleListener;
 	
 	@Override
 	public int life()
@@ -60,21 +63,84 @@ public abstract class HumanEntity implements Human
 		return status.isAlive();
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <br><br>
+	 * If <code>trouble</code> is already undergone, its countdown restarts.
+	 */
 	@Override
 	public void addTrouble(AttackEffect trouble)
 	{
-		troubles.add(trouble);
+		addTrouble(trouble, Status.DEFAULT_STRENGTH);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * <br><br>
+	 * If <code>trouble</code> is already undergone, its countdown restarts.
+	 */
+	@Override
+	public void addTrouble(AttackEffect trouble, int strength)
+	{
+		if( troubles == null )
+			troubles = new Troubles();
+		
+		int timeRemaining = troubles.inflict(trouble, strength);
+		
+		if( troubleListener != null )
+			troubleListener.troubled(this, trouble, timeRemaining);
+	}
+	
+	@Override
+	public void setTroubleListener(TroubleListener listener)
+	{
+		this.troubleListener = listener;
 	}
 
 	@Override
-	public void undergoTroubles()
+	public boolean hasTroubles()
 	{
-		for( AttackEffect trouble : troubles )
-		{
-			trouble.applyOn(this);
+		return troubles != null;
+	}
 
-			if( trouble.isOver() )
-				troubles.remove(trouble);
-		}
+	/**
+	 * Returns a copy of the troubles of the HumanEntity.
+	 * 
+	 * @return a copy of the troubles, or <code>null</code> if the HumanEntity has none
+	 * 
+	 * @see #restoreTroubles(Troubles)
+	 */
+	public Troubles copyTroubles()
+	{
+		return troubles == null ? null : troubles.copy();
+	}
+	
+	/**
+	 * Replaces the troubles of the HumanEntity by a copy of <code>troubles</code>.
+	 * <br><br>
+	 * The trouble listener is notified of each trouble, as if it had just been inflicted.
+	 * 
+	 * @param troubles
+	 * 			the troubles to copy, or <code>null</code> to leave the HumanEntity untroubled
+	 * 
+	 * @see #copyTroubles()
+	 */
+	public void restoreTroubles(Troubles troubles)
+	{
+		this.troubles = troubles == null || troubles.isEmpty() ? null : troubles.copy();
+		
+		if( this.troubles == null || troubleListener == null )
+			return;
+		
+		for( int i = 0 ; i < this.troubles.size() ; i++ )
+			troubleListener.troubled(this, this.troubles.effect(i), this.troubles.timeRemaining(i));
+	}
+	
+	@Override
+	public void undergoTroubles()
+	{
+		// the storage is released as soon as the last trouble is over
+		if( troubles != null && !troubles.undergoBy(this) )
+			troubles = null;
 	}
 }
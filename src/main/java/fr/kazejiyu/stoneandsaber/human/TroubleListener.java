@@ -0,0 +1,45 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.human;
+
+import fr.kazejiyu.stoneandsaber.behaviors.effect.AttackEffect;
+
+/**
+ * Notified each time an {@link Entity} is inflicted a trouble.
+ * 
+ * @see Entity#setTroubleListener(TroubleListener)
+ */
+@FunctionalInterface
+public interface TroubleListener
+{
+	/**
+	 * Called once <code>entity</code> has been inflicted a trouble.
+	 * 
+	 * @param entity
+	 * 			The entity troubled.
+	 * @param trouble
+	 * 			The effect inflicted.
+	 * @param timeRemaining
+	 * 			The number of times the entity will undergo the effect.
+	 */
+	void troubled(Entity entity, AttackEffect trouble, int timeRemaining);
+}
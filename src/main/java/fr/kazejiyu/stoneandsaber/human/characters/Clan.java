@@ -40,14 +40,14 @@ public class Clan
 		return name;
 	}
 	
-	public int prestige()
+	public synchronized int prestige()
 	{
 		return members.stream()
 					  .mapToInt(Yakuza::prestige)
 					  .sum();
 	}
 	
-	boolean engage(Yakuza newMember)
+	synchronized boolean engage(Yakuza newMember)
 	{
 		return members.add(newMember);
 	}
@@ -0,0 +1,366 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.human.characters;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import fr.kazejiyu.stoneandsaber.behaviors.Status;
+import fr.kazejiyu.stoneandsaber.behaviors.effect.AttackEffect;
+import fr.kazejiyu.stoneandsaber.behaviors.effect.ElementalType;
+import fr.kazejiyu.stoneandsaber.behaviors.effect.impl.AlterLife;
+import fr.kazejiyu.stoneandsaber.behaviors.effect.impl.InstantaneousAttackEffect;
+import fr.kazejiyu.stoneandsaber.behaviors.effect.impl.LastingAttackEffect;
+import fr.kazejiyu.stoneandsaber.behaviors.effect.impl.Troubles;
+import fr.kazejiyu.stoneandsaber.behaviors.weapon.Weapon;
+import fr.kazejiyu.stoneandsaber.human.characters.DuelResolver.Outcome;
+
+/**
+ * A bounded cache of the outcomes of simulated duels.
+ * <br><br>
+ * Worlds reuse a handful of weapons and humans start with the same status, so most duels
+ * are repeats of a few matchups. Duels involving lasting effects cannot be resolved 
+ * analytically by {@link DuelResolver} and are simulated round by round, which is worth
+ * caching. A matchup is identified by, for each duelist:
+ * <ul>
+ * 	<li>the effects of its weapon,</li>
+ * 	<li>its life, strength, armor, weaknesses and resistances,</li>
+ * 	<li>its pending troubles,</li>
+ * </ul>
+ * and by the maximum number of rounds. Its outcome is the number of rounds fought, the 
+ * remaining lives and the troubles left to each duelist, from which the winner follows.
+ * <br><br>
+ * Only matchups whose weapons and troubles are made of plain effects altering life are
+ * cached: the other effects may depend on anything. The duels resolved analytically are
+ * not cached either, since computing their outcome is cheaper than looking it up.
+ * <br><br>
+ * Each {@link fr.kazejiyu.stoneandsaber.world.World World} owns its cache, so that worlds 
+ * simulated in parallel neither contend for it nor mix their statistics.
+ * <br><br>
+ * When full, the cache evicts the least recently used outcome. It is thread-safe: the lock 
+ * only guards the lookups and the insertions, duels are simulated outside of it.
+ */
+public final class DuelCache
+{
+	/**
+	 * The number of outcomes kept by the cache of a world.
+	 */
+	public static final int DEFAULT_CAPACITY = 1024;
+	
+	/**
+	 * The outcomes, from the least to the most recently used.
+	 */
+	private final Map <Matchup, Outcome> outcomes;
+	
+	private final int capacity;
+	
+	private long hits;
+	
+	private long misses;
+	
+	private long evictions;
+	
+	/**
+	 * Creates a new cache keeping at most <code>capacity</code> outcomes.
+	 * 
+	 * @param capacity
+	 * 			The maximum number of outcomes kept. Must be strictly positive.
+	 */
+	public DuelCache(int capacity)
+	{
+		if( capacity <= 0 )
+			throw new IllegalArgumentException("The capacity of a cache must be strictly positive, not "+capacity+".");
+		
+		this.capacity = capacity;
+		this.outcomes = new LinkedHashMap <Matchup, Outcome> (16, 0.75f, true) 
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry <Matchup, Outcome> eldest)
+			{
+				boolean full = size() > DuelCache.this.capacity;
+				
+				if( full )
+					evictions++;
+				
+				return full;
+			}
+		};
+	}
+	
+	/**
+	 * Returns the cached outcome of a matchup, counting a hit or a miss.
+	 * 
+	 * @return the outcome of the matchup, or <code>null</code> if it must be simulated.
+	 * 
+	 * @see #put(Matchup, Outcome)
+	 */
+	synchronized Outcome get(Matchup matchup)
+	{
+		Outcome outcome = outcomes.get(matchup);
+		
+		if( outcome == null )
+			misses++;
+		else
+			hits++;
+		
+		return outcome;
+	}
+	
+	/**
+	 * Caches the outcome of a matchup that has just been simulated.
+	 * <br><br>
+	 * Two threads missing the same matchup at once both simulate it; 
+	 * since duels are deterministic, they get equal outcomes.
+	 */
+	synchronized void put(Matchup matchup, Outcome outcome)
+	{
+		outcomes.putIfAbsent(matchup, outcome);
+	}
+	
+	/**
+	 * @return the maximum number of outcomes kept.
+	 */
+	public int capacity()
+	{
+		return capacity;
+	}
+	
+	/**
+	 * @return the number of outcomes currently kept.
+	 */
+	public synchronized int size()
+	{
+		return outcomes.size();
+	}
+	
+	/**
+	 * @return the number of duels whose outcome was cached.
+	 */
+	public synchronized long hits()
+	{
+		return hits;
+	}
+	
+	/**
+	 * @return the number of duels whose outcome had to be simulated.
+	 */
+	public synchronized long misses()
+	{
+		return misses;
+	}
+	
+	/**
+	 * @return the number of outcomes evicted to make room for new ones.
+	 */
+	public synchronized long evictions()
+	{
+		return evictions;
+	}
+	
+	/**
+	 * @return the ratio of duels whose outcome was cached, or 0 if no duel has been looked up.
+	 */
+	public synchronized double hitRate()
+	{
+		long lookups = hits + misses;
+		return lookups == 0 ? 0 : (double) hits / lookups;
+	}
+	
+	/**
+	 * Forgets every outcome and resets the statistics.
+	 */
+	public synchronized void clear()
+	{
+		outcomes.clear();
+		hits = 0;
+		misses = 0;
+		evictions = 0;
+	}
+	
+	@Override
+	public synchronized String toString()
+	{
+		return String.format("DuelCache[size=%d/%d, hits=%d, misses=%d, evictions=%d, hitRate=%.2f]", 
+				outcomes.size(), capacity, hits, misses, evictions, hitRate());
+	}
+	
+	/**
+	 * The starting conditions of a simulated duel.
+	 */
+	static final class Matchup
+	{
+		private final Fighter challenger;
+		
+		private final Fighter opponent;
+		
+		private final int maxRounds;
+		
+		private Matchup(Fighter challenger, Fighter opponent, int maxRounds)
+		{
+			this.challenger = challenger;
+			this.opponent = opponent;
+			this.maxRounds = maxRounds;
+		}
+		
+		/**
+		 * Returns the starting conditions of a duel between <code>challenger</code> and <code>opponent</code>.
+		 * 
+		 * @return the matchup, or <code>null</code> if the duel cannot be cached.
+		 */
+		static Matchup of(Duelist challenger, Duelist opponent, int maxRounds)
+		{
+			Fighter first = Fighter.of(challenger);
+			Fighter second = first == null ? null : Fighter.of(opponent);
+			
+			return second == null ? null : new Matchup(first, second, maxRounds);
+		}
+		
+		@Override
+		public int hashCode()
+		{
+			return 31 * (31 * challenger.hashCode() + opponent.hashCode()) + maxRounds;
+		}
+		
+		@Override
+		public boolean equals(Object obj)
+		{
+			if( !(obj instanceof Matchup) )
+				return false;
+			
+			Matchup other = (Matchup) obj;
+			return challenger.equals(other.challenger) && opponent.equals(other.opponent) && maxRounds == other.maxRounds;
+		}
+	}
+	
+	/**
+	 * The state of a duelist that matters to a duel.
+	 */
+	private static final class Fighter
+	{
+		/**
+		 * For each effect of the weapon, in order: whether it lasts, its type, its change of life, 
+		 * its duration, its stacking and its maximum number of stacks
+		 */
+		private final int[] weapon;
+		
+		/**
+		 * The life, strength and armor, then the affinity with each element: 
+		 * 0 if neutral, 1 if weak, 2 if resistant
+		 */
+		private final int[] status;
+		
+		/**
+		 * A copy of the troubles, <code>null</code> if there are none
+		 */
+		private final Troubles troubles;
+		
+		private final int hash;
+		
+		private Fighter(int[] weapon, int[] status, Troubles troubles)
+		{
+			this.weapon = weapon;
+			this.status = status;
+			this.troubles = troubles;
+			this.hash = 31 * (31 * Arrays.hashCode(weapon) + Arrays.hashCode(status)) + (troubles == null ? 0 : troubles.hashCode());
+		}
+		
+		/**
+		 * @return the state of <code>duelist</code>, or <code>null</code> if it cannot be cached.
+		 */
+		static Fighter of(Duelist duelist)
+		{
+			int[] weapon = signatureOf(duelist.weapon());
+			Troubles troubles = duelist.copyTroubles();
+			
+			if( weapon == null || (troubles != null && !troubles.isPlain()) )
+				return null;
+			
+			Status status = duelist.status();
+			ElementalType[] types = ElementalType.values();
+			int[] attributes = new int[3 + types.length];
+			
+			attributes[0] = status.life();
+			attributes[1] = status.strength();
+			attributes[2] = status.armor();
+			
+			for( int i = 0 ; i < types.length ; i++ )
+				attributes[3 + i] = status.isAWeakness(types[i]) ? 1 : status.isAResistance(types[i]) ? 2 : 0;
+			
+			return new Fighter(weapon, attributes, troubles);
+		}
+		
+		/**
+		 * @return the effects of <code>weapon</code>, or <code>null</code> if one of them is not a plain effect altering life.
+		 */
+		private static int[] signatureOf(Weapon weapon)
+		{
+			if( weapon.getClass() != Weapon.class )
+				return null;
+			
+			int[] signature = new int[6 * weapon.effects().size()];
+			int i = 0;
+			
+			for( AttackEffect effect : weapon.effects() )
+			{
+				if( effect.getAction().getClass() != AlterLife.class )
+					return null;
+				
+				signature[i + 1] = effect.getType().ordinal();
+				signature[i + 2] = ((AlterLife) effect.getAction()).getDelta();
+				
+				if( effect.getClass() == LastingAttackEffect.class ) 
+				{
+					LastingAttackEffect lasting = (LastingAttackEffect) effect;
+					signature[i] = 1;
+					signature[i + 3] = lasting.getTimeDuration();
+					signature[i + 4] = lasting.getStacking().ordinal();
+					signature[i + 5] = lasting.getMaxStacks();
+				}
+				else if( effect.getClass() != InstantaneousAttackEffect.class )
+					return null;
+				
+				i += 6;
+			}
+			return signature;
+		}
+		
+		@Override
+		public int hashCode()
+		{
+			return hash;
+		}
+		
+		@Override
+		public boolean equals(Object obj)
+		{
+			if( !(obj instanceof Fighter) )
+				return false;
+			
+			Fighter other = (Fighter) obj;
+			return hash == other.hash && Arrays.equals(weapon, other.weapon) && Arrays.equals(status, other.status) 
+				&& (troubles == null ? other.troubles == null : troubles.equals(other.troubles));
+		}
+	}
+}
@@ -0,0 +1,393 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.human.characters;
+
+import fr.kazejiyu.stoneandsaber.behaviors.Status;
+import fr.kazejiyu.stoneandsaber.behaviors.effect.AttackEffect;
+import fr.kazejiyu.stoneandsaber.behaviors.effect.impl.AlterLife;
+import fr.kazejiyu.stoneandsaber.behaviors.effect.impl.InstantaneousAttackEffect;
+import fr.kazejiyu.stoneandsaber.behaviors.effect.impl.Troubles;
+import fr.kazejiyu.stoneandsaber.behaviors.weapon.Weapon;
+import fr.kazejiyu.stoneandsaber.human.characters.DuelCache.Matchup;
+
+/**
+ * Resolves the fighting part of a duel: makes the duelists exchange blows until
+ * one of them dies, the duel stalls or the maximum number of rounds is reached.
+ * <br><br>
+ * When both weapons only have instantaneous effects altering life, each blow is 
+ * a fixed function of the target's life and the final lives are computed analytically, 
+ * in constant time. Otherwise, the duel is simulated round by round. The weaknesses 
+ * and resistances of the targets are folded into their blows.
+ * <br><br>
+ * Both ways give the same final lives and the same number of rounds. Computing an outcome
+ * analytically costs less than looking it up, but the simulated outcomes can be memoized
+ * by a {@link DuelCache}: a cached outcome is then replayed instead of simulated again.
+ * 
+ * @see Duelist#challenge(Duelist, int)
+ */
+final class DuelResolver
+{
+	/**
+	 * Stands for a round that never comes.
+	 */
+	private static final long NEVER = Long.MAX_VALUE;
+	
+	private DuelResolver()
+	{
+		// utility class
+	}
+	
+	/**
+	 * Makes <code>challenger</code> and <code>opponent</code> fight.
+	 * 
+	 * @param challenger
+	 * 			The duelist striking first.
+	 * @param opponent
+	 * 			The other duelist.
+	 * @param maxRounds
+	 * 			The maximum number of rounds.
+	 * @param duels
+	 * 			The cache of the outcomes of the simulated duels, or <code>null</code> to simulate them all.
+	 * 
+	 * @return the number of rounds fought.
+	 */
+	static int fight(Duelist challenger, Duelist opponent, int maxRounds, DuelCache duels)
+	{
+		Blow challengerBlow = Blow.of(challenger.weapon(), challenger.status().strength(), opponent.status());
+		Blow opponentBlow = Blow.of(opponent.weapon(), opponent.status().strength(), challenger.status());
+		
+		if( solvable(challenger, opponent, challengerBlow, opponentBlow) )
+			return solve(challenger, opponent, challengerBlow, opponentBlow, maxRounds);
+		
+		Matchup matchup = duels == null ? null : Matchup.of(challenger, opponent, maxRounds);
+		
+		if( matchup == null )
+			return simulate(challenger, opponent, maxRounds);
+		
+		Outcome outcome = duels.get(matchup);
+		
+		if( outcome != null )
+			return replay(challenger, opponent, outcome);
+		
+		int rounds = simulate(challenger, opponent, maxRounds);
+		duels.put(matchup, new Outcome(rounds, challenger.life(), opponent.life(), challenger.copyTroubles(), opponent.copyTroubles()));
+		
+		return rounds;
+	}
+	
+	/**
+	 * Returns the outcome of a fight between <code>challenger</code> and <code>opponent</code>,
+	 * without altering them.
+	 * <br><br>
+	 * Since the duelists are only read, fights between distinct duelists can be predicted concurrently.
+	 * 
+	 * @return the outcome of the fight, or <code>null</code> if it cannot be computed analytically.
+	 * 
+	 * @see #apply(Duelist, Duelist, Outcome)
+	 */
+	static Outcome predict(Duelist challenger, Duelist opponent, int maxRounds)
+	{
+		Blow challengerBlow = Blow.of(challenger.weapon(), challenger.status().strength(), opponent.status());
+		Blow opponentBlow = Blow.of(opponent.weapon(), opponent.status().strength(), challenger.status());
+		
+		if( !solvable(challenger, opponent, challengerBlow, opponentBlow) )
+			return null;
+		
+		return compute(challengerBlow, opponentBlow, challenger.life(), opponent.life(), maxRounds);
+	}
+	
+	/**
+	 * Sets the lives of <code>challenger</code> and <code>opponent</code> to the ones of <code>outcome</code>.
+	 * 
+	 * @return the number of rounds fought.
+	 */
+	static int apply(Duelist challenger, Duelist opponent, Outcome outcome)
+	{
+		challenger.status().setLife(outcome.challengerLife);
+		opponent.status().setLife(outcome.opponentLife);
+		
+		return outcome.rounds;
+	}
+	
+	/**
+	 * Returns whether a fight can be computed analytically.
+	 */
+	private static boolean solvable(Duelist challenger, Duelist opponent, Blow challengerBlow, Blow opponentBlow)
+	{
+		return challengerBlow != null && opponentBlow != null && !challenger.hasTroubles() && !opponent.hasTroubles();
+	}
+	
+	/**
+	 * Simulates the duel round by round.
+	 * 
+	 * @return the number of rounds fought.
+	 */
+	static int simulate(Duelist challenger, Duelist opponent, int maxRounds)
+	{
+		boolean stalled = false;
+		int round = 0;
+		
+		while( round < maxRounds && challenger.isAlive() && opponent.isAlive() && !stalled )
+		{
+			int challengerLifeBefore = challenger.life();
+			int opponentLifeBefore = opponent.life();
+			
+			challenger.useWeaponOn(opponent);
+			
+			if( opponent.isAlive() )
+				opponent.useWeaponOn(challenger);
+			
+			challenger.undergoTroubles();
+			opponent.undergoTroubles();
+			
+			stalled = challenger.life() == challengerLifeBefore && opponent.life() == opponentLifeBefore
+				   && !challenger.hasTroubles() && !opponent.hasTroubles();
+			round++;
+		}
+		return round;
+	}
+	
+	/**
+	 * Applies the outcome of a duel between weapons modeled as {@link Blow}s.
+	 * 
+	 * @return the number of rounds fought.
+	 */
+	private static int solve(Duelist challenger, Duelist opponent, Blow challengerBlow, Blow opponentBlow, int maxRounds)
+	{
+		return apply(challenger, opponent, compute(challengerBlow, opponentBlow, challenger.life(), opponent.life(), maxRounds));
+	}
+	
+	/**
+	 * Applies the outcome of a duel simulated earlier: sets the lives of the duelists 
+	 * and gives them the troubles the duel left.
+	 * 
+	 * @return the number of rounds fought.
+	 */
+	private static int replay(Duelist challenger, Duelist opponent, Outcome outcome)
+	{
+		challenger.restoreTroubles(outcome.challengerTroubles);
+		opponent.restoreTroubles(outcome.opponentTroubles);
+		
+		return apply(challenger, opponent, outcome);
+	}
+	
+	/**
+	 * Computes the outcome of a duel between weapons modeled as {@link Blow}s.
+	 * <br><br>
+	 * Since no trouble is involved, a round stalls when both lives stop changing, 
+	 * and the death of a duelist only depends on the number of blows it takes.
+	 * 
+	 * @return the outcome of the duel.
+	 */
+	static Outcome compute(Blow challengerBlow, Blow opponentBlow, int challengerLife, int opponentLife, int maxRounds)
+	{
+		if( challengerLife <= 0 || opponentLife <= 0 )
+			return new Outcome(0, challengerLife, opponentLife);
+		
+		// the opponent takes a blow each round; the challenger, each round the opponent survives
+		long opponentDeath = challengerBlow.killingBlow(opponentLife);
+		long challengerDeath = opponentBlow.killingBlow(challengerLife);
+		
+		long rounds;
+		long opponentBlows, challengerBlows;
+		
+		if( opponentDeath <= challengerDeath && opponentDeath <= maxRounds ) 
+		{
+			rounds = opponentDeath;
+			opponentBlows = rounds;
+			challengerBlows = rounds - 1;
+		}
+		else if( challengerDeath < opponentDeath && challengerDeath <= maxRounds ) 
+		{
+			rounds = challengerDeath;
+			opponentBlows = rounds;
+			challengerBlows = rounds;
+		}
+		else 
+		{
+			long opponentFrozen = challengerBlow.frozenFrom(opponentLife);
+			long challengerFrozen = opponentBlow.frozenFrom(challengerLife);
+			long stall = Math.max(opponentFrozen, challengerFrozen);
+			
+			rounds = Math.min(stall, maxRounds);
+			opponentBlows = rounds;
+			challengerBlows = rounds;
+		}
+		
+		return new Outcome((int) rounds, 
+				opponentBlow.lifeAfter(challengerLife, challengerBlows), 
+				challengerBlow.lifeAfter(opponentLife, opponentBlows));
+	}
+	
+	/**
+	 * The result of a fight: the number of rounds, the remaining lives and, 
+	 * for simulated fights, the troubles left to the duelists.
+	 * <br><br>
+	 * The winner is the duelist still alive, if only one is.
+	 */
+	static final class Outcome
+	{
+		final int rounds;
+		
+		final int challengerLife;
+		
+		final int opponentLife;
+		
+		/**
+		 * The troubles left to the challenger, <code>null</code> if none
+		 */
+		final Troubles challengerTroubles;
+		
+		/**
+		 * The troubles left to the opponent, <code>null</code> if none
+		 */
+		final Troubles opponentTroubles;
+		
+		Outcome(int rounds, int challengerLife, int opponentLife)
+		{
+			this(rounds, challengerLife, opponentLife, null, null);
+		}
+		
+		Outcome(int rounds, int challengerLife, int opponentLife, Troubles challengerTroubles, Troubles opponentTroubles)
+		{
+			this.rounds = rounds;
+			this.challengerLife = challengerLife;
+			this.opponentLife = opponentLife;
+			this.challengerTroubles = challengerTroubles;
+			this.opponentTroubles = opponentTroubles;
+		}
+	}
+	
+	/**
+	 * A weapon which use turns the life <code>L</code> of its target into <code>max(floor, L + shift)</code>.
+	 * <br><br>
+	 * Applying an {@link AlterLife} effect is such a function (life cannot go below 0),
+	 * and so is the composition of such functions.
+	 */
+	static final class Blow
+	{
+		/**
+		 * The lowest life a blow can leave. Non-negative.
+		 */
+		final long floor;
+		
+		/**
+		 * The variation of life caused by a blow, when above the floor.
+		 */
+		final long shift;
+		
+		Blow(long floor, long shift)
+		{
+			this.floor = floor;
+			this.shift = shift;
+		}
+		
+		/**
+		 * Returns the blow dealt by <code>weapon</code>, wielded with <code>strength</code>, 
+		 * to the owner of <code>target</code>, or <code>null</code> if the weapon cannot be modeled as a blow.
+		 * <br><br>
+		 * Each change of life is resolved against the weaknesses, resistances and armor of <code>target</code>,
+		 * which do not change during a duel.
+		 */
+		static Blow of(Weapon weapon, int strength, Status target)
+		{
+			if( weapon.getClass() != Weapon.class )
+				return null;
+			
+			long floor = 0, shift = 0;
+			
+			for( AttackEffect effect : weapon.effects() )
+			{
+				if( effect.getClass() != InstantaneousAttackEffect.class || effect.getAction().getClass() != AlterLife.class )
+					return null;
+				
+				long delta = target.resolve(effect.getType(), ((AlterLife) effect.getAction()).getDelta(), strength);
+				
+				// max(0, max(floor, L + shift) + delta) = max(max(0, floor + delta), L + shift + delta)
+				floor = Math.max(0, floor + delta);
+				shift += delta;
+			}
+			return new Blow(floor, shift);
+		}
+		
+		@Override
+		public int hashCode()
+		{
+			return Long.hashCode(floor) * 31 + Long.hashCode(shift);
+		}
+		
+		@Override
+		public boolean equals(Object obj)
+		{
+			if( !(obj instanceof Blow) )
+				return false;
+			
+			Blow other = (Blow) obj;
+			return floor == other.floor && shift == other.shift;
+		}
+		
+		/**
+		 * Returns the life of a target of initial life <code>life</code> after <code>blows</code> blows.
+		 */
+		int lifeAfter(long life, long blows)
+		{
+			if( blows == 0 )
+				return (int) life;
+			
+			if( shift < 0 )
+				return (int) Math.max(floor, life + blows * shift);
+			
+			return (int) Math.max(floor + (blows - 1) * shift, life + blows * shift);
+		}
+		
+		/**
+		 * Returns the blow killing a target of initial life <code>life</code>, or {@link #NEVER}.
+		 */
+		long killingBlow(long life)
+		{
+			if( shift >= 0 || floor > 0 )
+				return NEVER;
+			
+			return (life + (-shift) - 1) / (-shift);
+		}
+		
+		/**
+		 * Returns the first blow after which the life of a target of initial life 
+		 * <code>life</code> never changes anymore, or {@link #NEVER}.
+		 */
+		long frozenFrom(long life)
+		{
+			if( shift > 0 )
+				return NEVER;
+			
+			if( shift == 0 )
+				return floor > life ? 2 : 1;
+			
+			if( floor == 0 )
+				return NEVER; // the target dies
+			
+			// the life decreases until reaching the floor
+			long blowsToFloor = life <= floor ? 1 : (life - floor + (-shift) - 1) / (-shift);
+			return life == floor ? 1 : blowsToFloor + 1;
+		}
+	}
+}
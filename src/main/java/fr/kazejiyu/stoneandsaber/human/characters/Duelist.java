@@ -33,6 +33,13 @@ import fr.kazejiyu.stoneandsaber.behaviors.weapon.impl.WeaponFactory;
  */
 public abstract class Duelist extends SimpleHuman
 {
+	/**
+	 * The maximum number of rounds of a duel, unless specified otherwise.
+	 * 
+	 * @see #challenge(Duelist, int)
+	 */
+	public static final int DEFAULT_MAX_ROUNDS = 1000;
+	
     /**
      * The weapon used by the dueslist in order to fight
      */
@@ -89,7 +96,7 @@ public abstract class Duelist extends SimpleHuman
 	 * 			the GameCharacter on which use the Weapon
 	 */
 	public void useWeaponOn(Duelist target) {
-		weapon.useOn(target);
+		weapon.useOn(target, status().strength());
 	}
 	
 	/**
@@ -123,12 +130,16 @@ public abstract class Duelist extends SimpleHuman
 	}
 
 	/**
-	 * Called when the duelist wins a duel.
+	 * Called when the duelist wins a duel, or survives a duel that ends as a draw.
+	 * <br><br>
+	 * In case of draw nobody has been defeated: <code>amount</code> is 0 and both duelists are notified.
 	 * 
 	 * @param amount
 	 *             The amount of money earn.
+	 * @param draw
+	 *             Whether the duel ended as a draw.
 	 */
-	abstract void winDuel(int amount);
+	abstract void winDuel(int amount, boolean draw);
 	
 	/**
 	 * Called when the duelist loses a duel.
@@ -157,27 +168,101 @@ public abstract class Duelist extends SimpleHuman
 	 * The duelists use their weapon on each other while one of
 	 * them is still alive.
 	 * <br><br>
-	 * When the duel ends, the winner's method {@link #winDuel(int)}
+	 * When the duel ends, the winner's method {@link #winDuel(int, boolean)}
 	 * is called, while loser's method {@link #loseDuel(int)} is called.
 	 * <br><br>
 	 * The called of this method is the first one to strike.
+	 * <br><br>
+	 * The duel lasts at most {@link #DEFAULT_MAX_ROUNDS} rounds.
 	 * 
 	 * @param opponent
 	 *             The duelist to battle.
 	 *             
 	 * @return whether the duel has been won.
+	 * 
+	 * @see #challenge(Duelist, int)
 	 */
 	public boolean challenge(Duelist opponent)
 	{
-		while( this.isAlive() && opponent.isAlive() )
+		return challenge(opponent, DEFAULT_MAX_ROUNDS);
+	}
+	
+	/**
+	 * Starts a battle against <code>opponent</code>, that lasts at most <code>maxRounds</code> rounds.
+	 * <br><br>
+	 * The duelists use their weapon on each other while one of
+	 * them is still alive.
+	 * <br><br>
+	 * When the duel ends, the winner's method {@link #winDuel(int, boolean)}
+	 * is called, while loser's method {@link #loseDuel(int)} is called.
+	 * <br><br>
+	 * Duels between weapons with instantaneous effects only are resolved analytically,
+	 * without simulating each round (see {@link DuelResolver}).
+	 * <br><br>
+	 * The duel ends as a draw, reported to both duelists' {@link #winDuel(int, boolean)}, when:
+	 * <ul>
+	 * 	<li>it lasts <code>maxRounds</code> rounds,</li>
+	 * 	<li>or a round changes nothing: no life changes and no trouble remains, 
+	 * 		so that the next rounds would be identical.</li>
+	 * </ul>
+	 * The called of this method is the first one to strike.
+	 * 
+	 * @param opponent
+	 *             The duelist to battle.
+	 * @param maxRounds
+	 *             The maximum number of rounds. Must be positive.
+	 *             
+	 * @return whether the duel has been won. <code>false</code> in case of draw.
+	 * 
+	 * @see #challenge(Duelist, int, DuelCache)
+	 */
+	public boolean challenge(Duelist opponent, int maxRounds)
+	{
+		return challenge(opponent, maxRounds, null);
+	}
+	
+	/**
+	 * Starts a battle against <code>opponent</code>, that lasts at most <code>maxRounds</code> rounds
+	 * and whose outcome is looked up in <code>duels</code> when it has to be simulated.
+	 * 
+	 * @param opponent
+	 *             The duelist to battle.
+	 * @param maxRounds
+	 *             The maximum number of rounds. Must be positive.
+	 * @param duels
+	 *             The cache of the outcomes, usually the one of the world. 
+	 *             May be <code>null</code> to simulate every duel.
+	 *             
+	 * @return whether the duel has been won. <code>false</code> in case of draw.
+	 * 
+	 * @see #challenge(Duelist, int)
+	 */
+	public boolean challenge(Duelist opponent, int maxRounds, DuelCache duels)
+	{
+		if( maxRounds <= 0 )
+			throw new IllegalArgumentException("A duel must last at least one round, not "+maxRounds+".");
+		
+		DuelResolver.fight(this, opponent, maxRounds, duels);
+		
+		boolean won = isAlive() && !opponent.isAlive();
+		settle(opponent);
+		
+		return won;
+	}
+	
+	/**
+	 * Rewards the winner and punishes the loser of a duel against <code>opponent</code> 
+	 * once the fight is over, or reports a draw if both duelists are still alive.
+	 * 
+	 * @return the amount of money lost by the loser, 0 in case of a draw.
+	 */
+	int settle(Duelist opponent)
+	{
+		if( this.isAlive() && opponent.isAlive() ) 
 		{
-			this.useWeaponOn(opponent);
-			
-			if( opponent.isAlive() )
-				opponent.useWeaponOn(this);
-			
-			this.undergoTroubles();
-			opponent.undergoTroubles();
+			this.winDuel(0, true);
+			opponent.winDuel(0, true);
+			return 0;
 		}
 		
 		Duelist winner = isAlive() ? this : opponent;
@@ -186,8 +271,8 @@ public abstract class Duelist extends SimpleHuman
 		int amount = winner.moneyWonDefeating(loser);
 					
 		loser.loseDuel(amount);
-		winner.winDuel(amount);
+		winner.winDuel(amount, false);
 		
-		return winner == this;
+		return amount;
 	}
 }
@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.human.characters;
+
+import static java.util.Collections.unmodifiableList;
+
+import java.util.List;
+
+import fr.kazejiyu.stoneandsaber.human.Human;
+
+/**
+ * Humans created together by a {@link HumanFactory}.
+ * 
+ * @see HumanFactory#onCreateBatch(rx.functions.Action1)
+ */
+public final class HumanBatch
+{
+	/**
+	 * The humans of the batch, in their order of creation.
+	 */
+	private final List <Human> humans;
+	
+	HumanBatch(List <? extends Human> humans)
+	{
+		this.humans = unmodifiableList(humans);
+	}
+	
+	/**
+	 * @return the humans of the batch, in their order of creation.
+	 */
+	public List <Human> humans()
+	{
+		return humans;
+	}
+	
+	/**
+	 * @return the number of humans in the batch.
+	 */
+	public int size()
+	{
+		return humans.size();
+	}
+}
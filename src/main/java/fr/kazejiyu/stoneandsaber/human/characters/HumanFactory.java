@@ -21,10 +21,18 @@
  ******************************************************************************/
 package fr.kazejiyu.stoneandsaber.human.characters;
 
-import java.util.Random;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
-import fr.kazejiyu.stoneandsaber.behaviors.weapon.impl.WeaponFactory;
+import fr.kazejiyu.stoneandsaber.behaviors.weapon.impl.WeaponCatalog;
+import fr.kazejiyu.stoneandsaber.event.AsyncSubscription;
 import fr.kazejiyu.stoneandsaber.event.EventBus;
+import fr.kazejiyu.stoneandsaber.event.OverflowPolicy;
 import fr.kazejiyu.stoneandsaber.human.Human;
 import fr.kazejiyu.stoneandsaber.world.Name;
 import rx.Subscription;
@@ -36,24 +44,48 @@ public final class HumanFactory
 	private final int MAX_MONEY;
 	
 	private final Name name;
-	private final Random random;
+	private final SplittableRandom random;
 	
 //	private final PublishSubject <Object> humanFlux = PublishSubject.create();
 	
 	private final EventBus <Human> humanFlow = new EventBus<>();
 	
+	private final EventBus <HumanBatch> batchFlow = new EventBus<>();
+	
+	/**
+	 * The number of humans created by a same task during a bulk creation.
+	 */
+	private static final int CHUNK_SIZE = 4096;
+	
 	public HumanFactory()
 	{
 		this(0, 100);
 	}
 	
 	public HumanFactory(int minMoney, int maxMoney)
+	{
+		this(minMoney, maxMoney, new SplittableRandom());
+	}
+	
+	/**
+	 * Creates a factory drawing every random characteristic of the humans
+	 * (name, money, weapon) from <code>random</code>.
+	 * 
+	 * @param random
+	 * 			The random stream to use. Must not be shared with other threads.
+	 */
+	public HumanFactory(SplittableRandom random)
+	{
+		this(0, 100, random);
+	}
+	
+	public HumanFactory(int minMoney, int maxMoney, SplittableRandom random)
 	{
 		if( minMoney < 0 )
 			throw new IllegalArgumentException("A human cannot have less than 0 bling.");
 		
-		name = new Name();
-		random = new Random();
+		this.name = new Name(random.split());
+		this.random = random;
 		
 		MIN_MONEY = minMoney;
 		MAX_MONEY = maxMoney;
@@ -61,39 +93,96 @@ public final class HumanFactory
 	
 	public Merchant createMerchant()
 	{
-		Merchant merchant = new Merchant(name.generate(), randomMoney());
-		humanFlow.post(merchant);
-		
-		return merchant;
+		return notify(newMerchant(name, random));
 	}
 	
 	public Yakuza createYakuza(Clan clan)
 	{
-		Yakuza yakuza = new Yakuza(name.generate(), randomMoney(), "rhum", clan, WeaponFactory.any());
-		humanFlow.post(yakuza);
-		
-		return yakuza;
+		return notify(newYakuza(name, random, clan));
 	}
 	
 	public Samurai createSamurai(Lord lord)
 	{
-		Samurai samurai = new Samurai(name.generate(), randomMoney(), "saké", lord, WeaponFactory.any());
-		humanFlow.post(samurai);
-		
-		return samurai;
+		return notify(newSamurai(name, random, lord));
 	}
 	
 	public Traitor createTraitor(Lord lord)
 	{
-		Traitor traitor = new Traitor(name.generate(), randomMoney(), "thé noir", lord);
-		humanFlow.post(traitor);
-		
-		return traitor;
+		return notify(newTraitor(name, random, lord));
+	}
+	
+	/**
+	 * Creates <code>count</code> merchants at once.
+	 * 
+	 * @param count
+	 * 			The number of merchants to create.
+	 * 
+	 * @return the merchants created, in their order of creation.
+	 * 
+	 * @see #createInBulk(int, BiFunction)
+	 */
+	public List <Merchant> createMerchants(int count)
+	{
+		return createInBulk(count, this::newMerchant);
+	}
+	
+	/**
+	 * Creates <code>count</code> yakuzas at once.
+	 * 
+	 * @param count
+	 * 			The number of yakuzas to create.
+	 * @param clan
+	 * 			The clan the yakuzas belong to.
+	 * 
+	 * @return the yakuzas created, in their order of creation.
+	 * 
+	 * @see #createInBulk(int, BiFunction)
+	 */
+	public List <Yakuza> createYakuzas(int count, Clan clan)
+	{
+		return createInBulk(count, (name, random) -> newYakuza(name, random, clan));
+	}
+	
+	/**
+	 * Creates <code>count</code> samurais at once.
+	 * 
+	 * @param count
+	 * 			The number of samurais to create.
+	 * @param lord
+	 * 			The lord the samurais serve.
+	 * 
+	 * @return the samurais created, in their order of creation.
+	 * 
+	 * @see #createInBulk(int, BiFunction)
+	 */
+	public List <Samurai> createSamurais(int count, Lord lord)
+	{
+		return createInBulk(count, (name, random) -> newSamurai(name, random, lord));
+	}
+	
+	/**
+	 * Creates <code>count</code> traitors at once.
+	 * 
+	 * @param count
+	 * 			The number of traitors to create.
+	 * @param lord
+	 * 			The lord the traitors pretend to serve.
+	 * 
+	 * @return the traitors created, in their order of creation.
+	 * 
+	 * @see #createInBulk(int, BiFunction)
+	 */
+	public List <Traitor> createTraitors(int count, Lord lord)
+	{
+		return createInBulk(count, (name, random) -> newTraitor(name, random, lord));
 	}
 	
 	/**
 	 * Registers a <code>callback</code> that will be called each time an instance 
 	 * of the specified class is created.
+	 * <br><br>
+	 * The callback is called for each human, whether it has been created alone or in bulk. 
+	 * Subscribers interested in many humans should rather listen for batches.
 	 * 
 	 * @param eventClassToListenFor
 	 * 			The class to listen for.
@@ -101,16 +190,144 @@ public final class HumanFactory
 	 * 			The callback to call each time an instance of the specified class is created.
 	 * 
 	 * @return the corresponding subscription
+	 * 
+	 * @see #onCreateBatch(Action1)
 	 */
 	public Subscription onCreate(final Class <? extends Human> eventClassToListenFor, Action1 <Human> callback)
 	{
 		return humanFlow.register(eventClassToListenFor, callback);
 	}
 	
+	/**
+	 * Registers a <code>callback</code> that will be called each time humans are created.
+	 * <br><br>
+	 * Humans created in bulk are notified by chunks, in their order of creation;
+	 * a human created alone is notified as a batch of one.
+	 * 
+	 * @param callback
+	 * 			The callback to call each time humans are created.
+	 * 
+	 * @return the corresponding subscription
+	 */
+	public Subscription onCreateBatch(Action1 <HumanBatch> callback)
+	{
+		return batchFlow.register(HumanBatch.class, callback);
+	}
+	
+	/**
+	 * Registers a <code>callback</code> that will be called asynchronously each time 
+	 * an instance of the specified class is created.
+	 * <br><br>
+	 * The creation of humans does not wait for the callback, unless the queue of the
+	 * subscription is full and the policy is {@link OverflowPolicy#BLOCK}.
+	 * 
+	 * @param eventClassToListenFor
+	 * 			The class of the humans to listen for.
+	 * @param callback
+	 * 			The callback function to call when a human is created.
+	 * @param capacity
+	 * 			The maximum number of humans waiting to be handled by the callback.
+	 * @param policy
+	 * 			What happens when a human is created while the queue is full.
+	 * 
+	 * @return the {@link AsyncSubscription} corresponding to the registration.
+	 */
+	public AsyncSubscription <Human> onCreate(final Class <? extends Human> eventClassToListenFor, Action1 <Human> callback,
+			int capacity, OverflowPolicy policy)
+	{
+		return humanFlow.registerAsync(eventClassToListenFor, callback, capacity, policy);
+	}
+	
+	/**
+	 * Creates <code>count</code> humans at once, with <code>creator</code>.
+	 * <br><br>
+	 * The humans are created in parallel by chunks, each chunk drawing from its own
+	 * random stream: the humans created only depend on the state of the factory, not on
+	 * the scheduling of the chunks. Once all the chunks are created, each one is notified 
+	 * as a {@link HumanBatch}, then each of its humans is notified individually.
+	 * 
+	 * @param count
+	 * 			The number of humans to create.
+	 * @param creator
+	 * 			Creates a human from a name generator and a random stream.
+	 * 
+	 * @return the humans created, in their order of creation.
+	 */
+	private <H extends Human> List <H> createInBulk(int count, BiFunction <Name, SplittableRandom, H> creator)
+	{
+		if( count < 0 )
+			throw new IllegalArgumentException("Cannot create "+count+" humans.");
+		
+		int chunks = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+		SplittableRandom[] streams = new SplittableRandom[chunks];
+		
+		for( int i = 0 ; i < chunks ; i++ )
+			streams[i] = random.split();
+		
+		List <List<H>> created = 
+			IntStream.range(0, chunks)
+					 .parallel()
+					 .mapToObj(i -> {
+						 int size = Math.min(CHUNK_SIZE, count - i * CHUNK_SIZE);
+						 Name names = new Name(streams[i].split());
+						 List <H> chunk = new ArrayList<>(size);
+						 
+						 for( int j = 0 ; j < size ; j++ )
+							 chunk.add(creator.apply(names, streams[i]));
+						 
+						 return chunk;
+					 })
+					 .collect(Collectors.toList());
+		
+		List <H> humans = new ArrayList<>(count);
+		
+		for( List <H> chunk : created )
+		{
+			batchFlow.post(new HumanBatch(chunk));
+			
+			for( H human : chunk )
+				humanFlow.post(human);
+			
+			humans.addAll(chunk);
+		}
+		return humans;
+	}
+	
+	/**
+	 * Notifies the subscribers that <code>human</code> has been created.
+	 */
+	private <H extends Human> H notify(H human)
+	{
+		batchFlow.post(new HumanBatch(Collections.singletonList(human)));
+		humanFlow.post(human);
+		
+		return human;
+	}
+	
+	private Merchant newMerchant(Name name, SplittableRandom random)
+	{
+		return new Merchant(name.generate(), randomMoney(random));
+	}
+	
+	private Yakuza newYakuza(Name name, SplittableRandom random, Clan clan)
+	{
+		return new Yakuza(name.generate(), randomMoney(random), "rhum", clan, WeaponCatalog.any(random));
+	}
+	
+	private Samurai newSamurai(Name name, SplittableRandom random, Lord lord)
+	{
+		return new Samurai(name.generate(), randomMoney(random), "saké", lord, WeaponCatalog.any(random));
+	}
+	
+	private Traitor newTraitor(Name name, SplittableRandom random, Lord lord)
+	{
+		return new Traitor(name.generate(), randomMoney(random), "thé noir", lord);
+	}
+	
 	/**
 	 * Returns a random amount of money.
 	 */
-	private int randomMoney()
+	private int randomMoney(SplittableRandom random)
 	{
 		return random.nextInt((MAX_MONEY - MIN_MONEY) + 1) + MIN_MONEY;
 	}
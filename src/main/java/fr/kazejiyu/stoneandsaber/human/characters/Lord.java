@@ -50,14 +50,14 @@ public class Lord
 		return kingdom;
 	}
 	
-	public int honnor()
+	public synchronized int honnor()
 	{
 		return samurais.stream()
 					   .mapToInt(Samurai::honnor)
 					   .sum();
 	}
 
-	public boolean engage(Samurai samurai)
+	public synchronized boolean engage(Samurai samurai)
 	{
 		return samurais.add(samurai);
 	}
@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.human.characters;
+
+/**
+ * The report of a {@link Tournament}: how the matches ended and how long they took.
+ * <br><br>
+ * The durations are measured for the three phases of a tournament: pairing the duelists, 
+ * predicting the fights in parallel and settling the matches sequentially.
+ */
+public final class MatchReport
+{
+	private final int matches;
+	
+	private int challengerWins;
+	
+	private int opponentWins;
+	
+	private int draws;
+	
+	private int predicted;
+	
+	private long rounds;
+	
+	private long blings;
+	
+	private long pairingNanos;
+	
+	private long fightingNanos;
+	
+	private long settlingNanos;
+	
+	MatchReport(int matches)
+	{
+		this.matches = matches;
+	}
+	
+	/**
+	 * Records the result of a match.
+	 */
+	void record(boolean predicted, int rounds, boolean won, boolean lost, int blings)
+	{
+		if( predicted )
+			this.predicted++;
+		
+		if( won )
+			challengerWins++;
+		else if( lost )
+			opponentWins++;
+		else
+			draws++;
+		
+		this.rounds += rounds;
+		this.blings += blings;
+	}
+	
+	/**
+	 * Records the duration of each phase of the tournament.
+	 */
+	void timed(long pairingNanos, long fightingNanos, long settlingNanos)
+	{
+		this.pairingNanos = pairingNanos;
+		this.fightingNanos = fightingNanos;
+		this.settlingNanos = settlingNanos;
+	}
+	
+	/**
+	 * @return the number of matches played.
+	 */
+	public int matches()
+	{
+		return matches;
+	}
+	
+	/**
+	 * @return the number of matches won by the challenger.
+	 */
+	public int challengerWins()
+	{
+		return challengerWins;
+	}
+	
+	/**
+	 * @return the number of matches won by the opponent.
+	 */
+	public int opponentWins()
+	{
+		return opponentWins;
+	}
+	
+	/**
+	 * @return the number of matches ended by a draw.
+	 */
+	public int draws()
+	{
+		return draws;
+	}
+	
+	/**
+	 * @return the number of fights computed analytically, in parallel.
+	 */
+	public int predicted()
+	{
+		return predicted;
+	}
+	
+	/**
+	 * @return the number of fights simulated round by round.
+	 */
+	public int simulated()
+	{
+		return matches - predicted;
+	}
+	
+	/**
+	 * @return the total number of rounds fought.
+	 */
+	public long rounds()
+	{
+		return rounds;
+	}
+	
+	/**
+	 * @return the total amount of money lost by the losers.
+	 */
+	public long blings()
+	{
+		return blings;
+	}
+	
+	/**
+	 * @return the time spent by the tournament, in nanoseconds.
+	 */
+	public long elapsedNanos()
+	{
+		return pairingNanos + fightingNanos + settlingNanos;
+	}
+	
+	/**
+	 * @return the number of matches played per second.
+	 */
+	public double throughput()
+	{
+		long elapsed = elapsedNanos();
+		return elapsed == 0 ? 0 : matches * 1e9 / elapsed;
+	}
+	
+	@Override
+	public String toString()
+	{
+		StringBuilder sb = new StringBuilder();
+		
+		sb.append(String.format(" ----- %d MATCHES:%n", matches));
+		sb.append(String.format("   %-22s %d / %d / %d%n", "Won / lost / draws", challengerWins, opponentWins, draws));
+		sb.append(String.format("   %-22s %d / %d%n", "Predicted / simulated", predicted, simulated()));
+		sb.append(String.format("   %-22s %d%n", "Rounds", rounds));
+		sb.append(String.format("   %-22s %d%n", "Blings lost", blings));
+		sb.append(String.format("   %-22s %.3f / %.3f / %.3f ms%n", "Pair / fight / settle", 
+				pairingNanos / 1e6, fightingNanos / 1e6, settlingNanos / 1e6));
+		sb.append(String.format("   %-22s %.0f matches/s%n", "Throughput", throughput()));
+		
+		return sb.toString();
+	}
+}
@@ -21,7 +21,7 @@
  ******************************************************************************/
 package fr.kazejiyu.stoneandsaber.human.characters;
 
-import java.util.Random;
+import java.util.SplittableRandom;
 
 import fr.kazejiyu.stoneandsaber.behaviors.weapon.Weapon;
 
@@ -39,9 +39,19 @@ public class Ronin extends Duelist
 		return honnor;
 	}
 	
-	public int donate(Merchant merchant)
+	/**
+	 * Donates a random part of the ronin's money to <code>merchant</code>.
+	 * 
+	 * @param merchant
+	 * 			The merchant receiving the donation.
+	 * @param random
+	 * 			The random stream the amount is drawn from.
+	 * 
+	 * @return the amount donated.
+	 */
+	public int donate(Merchant merchant, SplittableRandom random)
 	{
-		return donate(merchant, new Random().nextInt(money()+1));
+		return donate(merchant, random.nextInt(money()+1));
 	}
 	
 	public int donate(Merchant merchant, int amount)
@@ -61,8 +71,11 @@ public class Ronin extends Duelist
 	}
 	
 	@Override
-	public void winDuel(int amount)
+	public void winDuel(int amount, boolean draw)
 	{
+		if( draw )
+			return;
+		
 		honnor++;
 		earnMoney(amount);
 	}
@@ -45,31 +45,14 @@ abstract class SimpleHuman extends HumanEntity
 	 */
 	private final String beverage;
 	
-	/**
-	 * The current amount of money of the human.
-	 */
-	private int money;
-	
-	/**
-	 * A unique id identify each entity. It is used to distinguish them within equals() method.
-	 */
-	private int id;
-	
-	/**
-	 * A static counter to automatically generate entities' id.
-	 * Should not be modified outside of the constructor.
-	 */
-	private static int nextInstanceId = 0;
-	
 	SimpleHuman(String name, int money, String beverage)
 	{
 		super(); 
 		
 		this.name = name;
-		this.money = money;
 		this.beverage = beverage;
 		
-		this.id = nextInstanceId++;
+		status().setMoney(money);
 	}
 	
 	@Override
@@ -87,7 +70,7 @@ abstract class SimpleHuman extends HumanEntity
 	@Override
 	public int money()
 	{
-		return money;
+		return status().money();
 	}
 
 	@Override
@@ -138,10 +121,9 @@ abstract class SimpleHuman extends HumanEntity
 		if( amount < 0 )
 			throw new IllegalArgumentException("Cannot lose "+amount+" while having only"+money());
 		
-		int oldMoney = money;
+		int oldMoney = money();
 		
-		money -= amount;
-		money = max(0, money);
+		status().setMoney(max(0, oldMoney - amount));
 		
 		return oldMoney;
 	}
@@ -149,14 +131,14 @@ abstract class SimpleHuman extends HumanEntity
 	@Override
 	public int loseEverything()
 	{
-		return loseMoney(money);
+		return loseMoney(money());
 	}
 	
 	@Override
 	public int earnMoney(int amount)
 	{
-		money += amount;
-		return money;
+		status().setMoney(money() + amount);
+		return money();
 	}
 	
 	@Override
@@ -165,24 +147,21 @@ abstract class SimpleHuman extends HumanEntity
 		return "["+this.getClass().getSimpleName().charAt(0)+"] "+name;
 	}
 
+	/**
+	 * Each human is unique: two distinct instances are never equal.
+	 */
 	@Override
 	public final int hashCode()
 	{
-		final int prime = 31;
-		int result = 1;
-		result = prime * result + id;
-		return result;
+		return System.identityHashCode(this);
 	}
 
+	/**
+	 * Each human is unique: two distinct instances are never equal.
+	 */
 	@Override
 	public final boolean equals(Object obj)
 	{
-		if( this == obj )
-			return true;
-
-		if( !(obj instanceof SimpleHuman) )
-			return false;
-		
-		return id == ((SimpleHuman) obj).id;
+		return this == obj;
 	}
 }
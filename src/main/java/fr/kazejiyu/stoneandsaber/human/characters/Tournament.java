@@ -0,0 +1,304 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.human.characters;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import fr.kazejiyu.stoneandsaber.human.characters.DuelResolver.Outcome;
+
+/**
+ * Makes many duelists fight at once.
+ * <br><br>
+ * A tournament pairs challengers with opponents so that nobody fights twice, then:
+ * <ol>
+ * 	<li>predicts in parallel the fights that {@link DuelResolver} can compute analytically,</li>
+ * 	<li>settles every match sequentially, in the order of the pairs: predicted fights are applied, 
+ * 		the others are simulated, then the winners are rewarded and the losers are punished.</li>
+ * </ol>
+ * Predicting a fight only reads the duelists, so the outcome of a tournament 
+ * does not depend on the number of threads used.
+ * <br><br>
+ * Fights involving lasting effects are simulated during the settlement, blow by blow,
+ * so that the hooks of the duelists are called in the order of the pairs.
+ * <br><br>
+ * The outcomes of the simulated fights are looked up in the {@link DuelCache} given
+ * at creation, if any; usually the one of the world hosting the tournament. Since the
+ * settlement is sequential, the statistics of the cache do not depend on the number
+ * of threads either.
+ */
+public final class Tournament
+{
+	/**
+	 * The maximum number of fights predicted by a single task.
+	 */
+	private static final int FIGHT_GRAIN = 512;
+	
+	/**
+	 * The pool used to predict the fights.
+	 */
+	private final ForkJoinPool pool;
+	
+	/**
+	 * The maximum number of rounds of a duel.
+	 */
+	private final int maxRounds;
+	
+	/**
+	 * The cache of the outcomes computed analytically. May be <code>null</code>.
+	 */
+	private final DuelCache duels;
+	
+	/**
+	 * Creates a new tournament predicting the fights in the common pool.
+	 */
+	public Tournament()
+	{
+		this(ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Creates a new tournament predicting the fights in the common pool
+	 * and looking the outcomes of the simulated ones up in <code>duels</code>.
+	 * 
+	 * @param duels
+	 * 			The cache of the outcomes. May be <code>null</code> to simulate every fight.
+	 */
+	public Tournament(DuelCache duels)
+	{
+		this(ForkJoinPool.commonPool(), Duelist.DEFAULT_MAX_ROUNDS, duels);
+	}
+	
+	/**
+	 * Creates a new tournament predicting the fights in <code>pool</code>.
+	 * 
+	 * @param pool
+	 * 			The pool used to predict the fights. Must not be <code>null</code>.
+	 */
+	public Tournament(ForkJoinPool pool)
+	{
+		this(pool, Duelist.DEFAULT_MAX_ROUNDS);
+	}
+	
+	/**
+	 * Creates a new tournament predicting the fights in <code>pool</code>.
+	 * 
+	 * @param pool
+	 * 			The pool used to predict the fights. Must not be <code>null</code>.
+	 * @param maxRounds
+	 * 			The maximum number of rounds of a duel. Must be strictly positive.
+	 */
+	public Tournament(ForkJoinPool pool, int maxRounds)
+	{
+		this(pool, maxRounds, null);
+	}
+	
+	/**
+	 * Creates a new tournament predicting the fights in <code>pool</code>
+	 * and looking the outcomes of the simulated ones up in <code>duels</code>.
+	 * 
+	 * @param pool
+	 * 			The pool used to predict the fights. Must not be <code>null</code>.
+	 * @param maxRounds
+	 * 			The maximum number of rounds of a duel. Must be strictly positive.
+	 * @param duels
+	 * 			The cache of the outcomes. May be <code>null</code> to simulate every fight.
+	 */
+	public Tournament(ForkJoinPool pool, int maxRounds, DuelCache duels)
+	{
+		if( maxRounds <= 0 )
+			throw new IllegalArgumentException("A duel must last at least one round, not "+maxRounds+".");
+		
+		this.pool = requireNonNull(pool);
+		this.maxRounds = maxRounds;
+		this.duels = duels;
+	}
+	
+	/**
+	 * Shuffles <code>challengers</code> and <code>opponents</code>, then makes them fight.
+	 * 
+	 * @param challengers
+	 * 			The duelists striking first.
+	 * @param opponents
+	 * 			The duelists challenged.
+	 * @param random
+	 * 			The random stream used to shuffle the duelists.
+	 * 
+	 * @return the report of the tournament.
+	 * 
+	 * @see #play(List, List)
+	 */
+	public MatchReport play(List <? extends Duelist> challengers, List <? extends Duelist> opponents, SplittableRandom random)
+	{
+		List <Duelist> shuffledChallengers = new ArrayList<>(challengers);
+		List <Duelist> shuffledOpponents = new ArrayList<>(opponents);
+		
+		shuffle(shuffledChallengers, random);
+		shuffle(shuffledOpponents, random);
+		
+		return play(shuffledChallengers, shuffledOpponents);
+	}
+	
+	/**
+	 * Makes <code>challengers</code> and <code>opponents</code> fight.
+	 * <br><br>
+	 * Each living challenger is paired with the first living opponent that has not been 
+	 * paired yet. A duelist appearing in both lists fights at most once.
+	 * 
+	 * @param challengers
+	 * 			The duelists striking first.
+	 * @param opponents
+	 * 			The duelists challenged.
+	 * 
+	 * @return the report of the tournament.
+	 */
+	public MatchReport play(List <? extends Duelist> challengers, List <? extends Duelist> opponents)
+	{
+		long start = System.nanoTime();
+		
+		// Pair the duelists
+		
+		int capacity = Math.min(challengers.size(), opponents.size());
+		Duelist[] firsts = new Duelist[capacity];
+		Duelist[] seconds = new Duelist[capacity];
+		Set <Duelist> engaged = new HashSet<>();
+		
+		int matches = 0;
+		int next = 0;
+		
+		for( Duelist challenger : challengers )
+		{
+			if( !challenger.isAlive() || engaged.contains(challenger) )
+				continue;
+			
+			while( next < opponents.size() && (!opponents.get(next).isAlive() || engaged.contains(opponents.get(next)) || opponents.get(next) == challenger) )
+				next++;
+			
+			if( next == opponents.size() )
+				break;
+			
+			Duelist opponent = opponents.get(next++);
+			engaged.add(challenger);
+			engaged.add(opponent);
+			
+			firsts[matches] = challenger;
+			seconds[matches] = opponent;
+			matches++;
+		}
+		long paired = System.nanoTime();
+		
+		// Predict the fights
+		
+		Outcome[] outcomes = new Outcome[matches];
+		pool.invoke(new Fights(firsts, seconds, outcomes, 0, matches, maxRounds));
+		
+		long predicted = System.nanoTime();
+		
+		// Settle the matches
+		
+		MatchReport report = new MatchReport(matches);
+		
+		for( int i = 0 ; i < matches ; i++ )
+		{
+			Duelist challenger = firsts[i];
+			Duelist opponent = seconds[i];
+			
+			int rounds = outcomes[i] == null 
+					? DuelResolver.fight(challenger, opponent, maxRounds, duels) 
+					: DuelResolver.apply(challenger, opponent, outcomes[i]);
+			
+			boolean won = challenger.isAlive() && !opponent.isAlive();
+			boolean lost = !challenger.isAlive();
+			int blings = challenger.settle(opponent);
+			
+			report.record(outcomes[i] != null, rounds, won, lost, blings);
+		}
+		long settled = System.nanoTime();
+		
+		report.timed(paired - start, predicted - paired, settled - predicted);
+		return report;
+	}
+	
+	/**
+	 * Shuffles <code>duelists</code> thanks to the Fisher-Yates algorithm.
+	 */
+	private static void shuffle(List <Duelist> duelists, SplittableRandom random)
+	{
+		for( int i = duelists.size() - 1 ; i > 0 ; i-- )
+			Collections.swap(duelists, i, random.nextInt(i + 1));
+	}
+	
+	/**
+	 * Predicts the fights of a range of pairs.
+	 */
+	private static final class Fights extends RecursiveAction
+	{
+		private static final long serialVersionUID = -4410362508725016373L;
+
+		private final transient Duelist[] challengers;
+		
+		private final transient Duelist[] opponents;
+		
+		private final transient Outcome[] outcomes;
+		
+		private final int from;
+		
+		private final int to;
+		
+		private final int maxRounds;
+		
+		Fights(Duelist[] challengers, Duelist[] opponents, Outcome[] outcomes, int from, int to, int maxRounds)
+		{
+			this.challengers = challengers;
+			this.opponents = opponents;
+			this.outcomes = outcomes;
+			this.from = from;
+			this.to = to;
+			this.maxRounds = maxRounds;
+		}
+		
+		@Override
+		protected void compute()
+		{
+			if( to - from <= FIGHT_GRAIN ) 
+			{
+				for( int i = from ; i < to ; i++ )
+					outcomes[i] = DuelResolver.predict(challengers[i], opponents[i], maxRounds);
+				
+				return;
+			}
+			
+			int middle = (from + to) >>> 1;
+			
+			invokeAll(new Fights(challengers, opponents, outcomes, from, middle, maxRounds),
+					  new Fights(challengers, opponents, outcomes, middle, to, maxRounds));
+		}
+	}
+}
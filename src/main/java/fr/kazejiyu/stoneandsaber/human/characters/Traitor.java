@@ -23,7 +23,7 @@ package fr.kazejiyu.stoneandsaber.human.characters;
 
 import static java.lang.Math.max;
 
-import java.util.Random;
+import java.util.SplittableRandom;
 
 import fr.kazejiyu.stoneandsaber.behaviors.weapon.impl.WeaponFactory;
 import fr.kazejiyu.stoneandsaber.human.Human;
@@ -58,9 +58,9 @@ public class Traitor extends Samurai implements Bully
 		return amount;
 	}
 	
-	public void makeFriend(Human gullible)
+	public void makeFriend(Human gullible, SplittableRandom random)
 	{
-		makeFriend(gullible, new Random().nextInt(money()+1));
+		makeFriend(gullible, random.nextInt(money()+1));
 	}
 	
 	public void makeFriend(Human gullible, int donation)
@@ -74,9 +74,10 @@ public class Yakuza extends Duelist implements Bully
 	}
 	
 	@Override
-	public void winDuel(int amount)
+	public void winDuel(int amount, boolean draw)
 	{
-		prestige++;
+		if( ! draw )
+			prestige++;
 	}
 	
 	@Override
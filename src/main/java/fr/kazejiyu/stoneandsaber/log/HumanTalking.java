@@ -64,6 +64,12 @@ public final class HumanTalking
     public static final boolean TALKING_IS_ALLOWED() {
         return DEBUG_MODE || TALKING_IS_ALLOWED;
     }
+	
+	/**
+	 * Humans keep silent while a batch of worlds is simulated. 
+	 */
+	@Pointcut("cflow(execution(* fr.kazejiyu.stoneandsaber.batch.MonteCarlo.simulate(..)))")
+	public void IN_BATCH() {}
 
     @Pointcut("if()")
     public static final boolean DEBUG_MODE() {
@@ -76,13 +82,19 @@ public final class HumanTalking
 	 * -------------------------------------------------------------------------------- */
 	
 	
-	@After("TALKING_IS_ALLOWED() && execution(* Human.drink(..)) && target(human)")
+	@Around("IN_BATCH() && execution(void Human.say(String, java.io.PrintStream))")
+	public void muteHumanInBatch()
+	{
+		// humans keep silent while a batch is simulated
+	}
+	
+	@After("TALKING_IS_ALLOWED() && !IN_BATCH() && execution(* Human.drink(..)) && target(human)")
 	public void logHumanDrunk(Human human)
 	{
 		human.say("Ahhh, a good glass of "+human.beverage()+ "! Gasp!");
 	}
 	
-	@After("TALKING_IS_ALLOWED() && call(* fr.kazejiyu.stoneandsaber.world.World.bury(..)) && args(human) "
+	@After("TALKING_IS_ALLOWED() && !IN_BATCH() && call(* fr.kazejiyu.stoneandsaber.world.World.bury(..)) && args(human) "
         + "&& withincode(* fr.kazejiyu.stoneandsaber.world.World.makePeopleLive(..))")
 	public void logHumanDeath(Human human)
 	{
@@ -94,20 +106,23 @@ public final class HumanTalking
 	 * -------------------------------------------------------------------------------- */
 	
 	
-	@After("TALKING_IS_ALLOWED() && execution(* Yakuza.winDuel(..)) && target(yakuza)")
-	public void logYakuzaWonDuel(Yakuza yakuza)
+	@After("TALKING_IS_ALLOWED() && !IN_BATCH() && execution(* Yakuza.winDuel(int, boolean)) && target(yakuza) && args(*, draw)")
+	public void logYakuzaWonDuel(Yakuza yakuza, boolean draw)
 	{
+		if( draw )
+			return;
+		
 		yakuza.say("Huhu, you fool! Did you really think you could defeat me?");
 	}
 	
-	@After("TALKING_IS_ALLOWED() && execution(* Yakuza.loseDuel(..)) && target(yakuza)")
+	@After("TALKING_IS_ALLOWED() && !IN_BATCH() && execution(* Yakuza.loseDuel(..)) && target(yakuza)")
 	public void logYakuzaLooseDuel(Yakuza yakuza)
 	{
 		yakuza.say("Nooo, how on earth have I lost?");
 	}
 	
 	@AfterReturning(
-			pointcut="TALKING_IS_ALLOWED() && execution(int Yakuza.extort(Merchant)) && target(yakuza) && args(victim)",
+			pointcut="TALKING_IS_ALLOWED() && !IN_BATCH() && execution(int Yakuza.extort(Merchant)) && target(yakuza) && args(victim)",
 			returning="amount")
 	public void logYakuzaExtortMerchant(Yakuza yakuza, Merchant victim, int amount)
 	{
@@ -123,20 +138,23 @@ public final class HumanTalking
 	 * -------------------------------------------------------------------------------- */
 	
 	
-	@After("TALKING_IS_ALLOWED() && execution(* Ronin.winDuel(..)) && target(ronin)")
-	public void logRoninWonDuel(Ronin ronin)
+	@After("TALKING_IS_ALLOWED() && !IN_BATCH() && execution(* Ronin.winDuel(int, boolean)) && target(ronin) && args(*, draw)")
+	public void logRoninWonDuel(Ronin ronin, boolean draw)
 	{
+		if( draw )
+			return;
+		
 		ronin.say("Victory is mine!");
 	}
 	
-	@After("TALKING_IS_ALLOWED() && execution(* Ronin.loseDuel(..)) && target(ronin)")
+	@After("TALKING_IS_ALLOWED() && !IN_BATCH() && execution(* Ronin.loseDuel(..)) && target(ronin)")
 	public void logRoninLooseDuel(Ronin ronin)
 	{
 		ronin.say("Argg, I didn't keep up...");
 	}
 	
 	@AfterReturning(
-			pointcut="TALKING_IS_ALLOWED() "
+			pointcut="TALKING_IS_ALLOWED() && !IN_BATCH() "
 				+ "&& call(* Ronin.donate(Merchant,int)) && target(ronin) && args(merchant,amount)",
 			returning="amount")
 	public void logRoninDonateMerchant(Ronin ronin, Merchant merchant, int amount)
@@ -151,7 +169,7 @@ public final class HumanTalking
 	 * -------------------------------------------------------------------------------- */
 	
 
-	@Before("TALKING_IS_ALLOWED() && execution(* Duelist.useWeaponOn(Duelist)) && target(assaillant) && args(opponent)")
+	@Before("TALKING_IS_ALLOWED() && !IN_BATCH() && execution(* Duelist.useWeaponOn(Duelist)) && target(assaillant) && args(opponent)")
 	public void logDuelistUseWeaponOn(Duelist assaillant, Duelist opponent)
 	{
 		assaillant.say("I use " + assaillant.weapon().name() + " against " + opponent.name()+"!");
@@ -161,7 +179,7 @@ public final class HumanTalking
 		}
 	}
 	
-	@Before("TALKING_IS_ALLOWED() && execution(* Duelist.challenge(Duelist)) && target(assaillant) && args(opponent)")
+	@Before("TALKING_IS_ALLOWED() && !IN_BATCH() && execution(* Duelist.challenge(Duelist, int, fr.kazejiyu.stoneandsaber.human.characters.DuelCache)) && target(assaillant) && args(opponent, ..)")
 	public void logDuelistChallenge(Duelist assaillant, Duelist opponent)
 	{
 		assaillant.say("I challenge you, " +opponent.name()+"!");
@@ -172,7 +190,31 @@ public final class HumanTalking
 		}
 	}
 	
-	@Around("call(boolean Traitor.canExtort(Merchant)) "
+	@AfterReturning(
+			pointcut="TALKING_IS_ALLOWED() && !IN_BATCH() "
+				+ "&& (execution(int fr.kazejiyu.stoneandsaber.human.characters.DuelResolver.solve(..)) "
+				+ "|| execution(int fr.kazejiyu.stoneandsaber.human.characters.DuelResolver.replay(..))) && args(assaillant, opponent, ..)",
+			returning="rounds")
+	public void logDuelistExchangeBlows(Duelist assaillant, Duelist opponent, int rounds)
+	{
+		assaillant.say("We exchanged blows for " + rounds + (rounds == 1 ? " round, " : " rounds, ") + opponent.name() + ".");
+
+		if( DEBUG_MODE ) {
+		    System.out.println("    ["+assaillant.name()+".status="+assaillant.status()+"]");
+		    System.out.println("    ["+opponent.name()+".status="+opponent.status()+"]\n");
+		}
+	}
+
+	@After("TALKING_IS_ALLOWED() && !IN_BATCH() && execution(* fr.kazejiyu.stoneandsaber.human.characters.Duelist.winDuel(int, boolean)) "
+		+ "&& target(duelist) && args(*, draw) "
+		+ "&& cflow(execution(int fr.kazejiyu.stoneandsaber.human.characters.Duelist.settle(..)) && this(challenger) && args(opponent))")
+	public void logDuelistDraw(Duelist duelist, boolean draw, Duelist challenger, Duelist opponent)
+	{
+		if( draw )
+			duelist.say("We are too evenly matched, "+(duelist == challenger ? opponent : challenger).name()+". Let's call it a draw.");
+	}
+	
+	@Around("!IN_BATCH() && call(boolean Traitor.canExtort(Merchant)) "
 		+ "&& target(traitor)"
 		+ "&& args(merchant)")
 	public boolean logTraitorCanExtort(ProceedingJoinPoint pjp, Traitor traitor, Merchant merchant) throws Throwable
@@ -186,7 +228,7 @@ public final class HumanTalking
 	
 	}
 	
-	@Around("execution(int Traitor.extort(Merchant)) "
+	@Around("!IN_BATCH() && execution(int Traitor.extort(Merchant)) "
 		+ "&& target(traitor)"
 		+ "&& args(victim)")
 	public int logTraitorExtort(ProceedingJoinPoint pjp, Traitor traitor, Merchant victim) throws Throwable
@@ -198,7 +240,7 @@ public final class HumanTalking
 		return stealed;
 	}
 	
-	@After("call(* Traitor.makeFriend(Human,int)) "
+	@After("!IN_BATCH() && call(* Traitor.makeFriend(Human,int)) "
 		+ "&& target(traitor)"
 		+ "&& args(gullible,amount)")
 	public void logTraitorMakeFriend(Traitor traitor, Human gullible, int amount) throws Throwable
@@ -21,6 +21,7 @@
  ******************************************************************************/
 package fr.kazejiyu.stoneandsaber.log;
 
+import org.aspectj.lang.annotation.After;
 import org.aspectj.lang.annotation.AfterReturning;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
@@ -81,10 +82,17 @@ public final class WorldLogging
 	        returning="world")
 	public void logWorldHasBeenGenerated(World world)
 	{
+	    System.out.printf("%n ----- SEED: %d%n", world.seed().seed);
 	    System.out.printf("%n ----- THE POWER IS OWNED BY:%n");
         System.out.printf("           le seigneur " + world.lord().name()+",%n");
         System.out.printf("           le clan " + world.clan().name()+".%n%n");
         
         System.out.printf(" ----- EVENTS THROUGHOUT %d GENERATIONS:%n%n", Story.NBR_GENERATIONS);
 	}
+	
+	@After("LOGGING_IS_ACTIVATED() && call(* fr.kazejiyu.stoneandsaber.world.Fate.descendOnWorld(..)) && withincode(* *Story.main(..))")
+	public void logGenerationIsOver()
+	{
+	    System.out.printf("%n ----- GENERATION IS OVER ! Hope you enjoyed it.%n");
+	}
 }
@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.world;
+
+import java.util.SplittableRandom;
+
+/**
+ * Samples indexes according to fixed weights in constant time (Vose's alias method).
+ * <br><br>
+ * The table is built once in O(n); each sample then costs a single 
+ * <code>nextInt</code> and a single <code>nextDouble</code>, whatever the number of weights.
+ */
+final class AliasTable
+{
+	/**
+	 * The probability to keep each column rather than its alias.
+	 */
+	private final double[] probabilities;
+	
+	/**
+	 * The index sampled when a column is not kept.
+	 */
+	private final int[] aliases;
+	
+	/**
+	 * Builds the table.
+	 * 
+	 * @param weights
+	 * 			The weight of each index. Must be non-negative and of positive sum.
+	 */
+	AliasTable(double[] weights)
+	{
+		int n = weights.length;
+		double sum = 0;
+		
+		for( double weight : weights ) 
+		{
+			if( weight < 0 || Double.isNaN(weight) )
+				throw new IllegalArgumentException("A weight cannot be "+weight+".");
+			
+			sum += weight;
+		}
+		
+		if( !(sum > 0) || Double.isInfinite(sum) )
+			throw new IllegalArgumentException("The sum of the weights must be positive and finite, not "+sum+".");
+		
+		probabilities = new double[n];
+		aliases = new int[n];
+		
+		double[] scaled = new double[n];
+		int[] small = new int[n];
+		int[] large = new int[n];
+		int smalls = 0, larges = 0;
+		
+		for( int i = 0 ; i < n ; i++ )
+		{
+			scaled[i] = weights[i] * n / sum;
+			
+			if( scaled[i] < 1 )
+				small[smalls++] = i;
+			else
+				large[larges++] = i;
+		}
+		
+		while( smalls > 0 && larges > 0 )
+		{
+			int less = small[--smalls];
+			int more = large[--larges];
+			
+			probabilities[less] = scaled[less];
+			aliases[less] = more;
+			
+			scaled[more] = (scaled[more] + scaled[less]) - 1;
+			
+			if( scaled[more] < 1 )
+				small[smalls++] = more;
+			else
+				large[larges++] = more;
+		}
+		
+		// the remaining columns are full, up to rounding errors
+		while( larges > 0 )
+			probabilities[large[--larges]] = 1;
+		
+		while( smalls > 0 )
+			probabilities[small[--smalls]] = 1;
+	}
+	
+	/**
+	 * Returns a random index, drawn according to the weights of the table.
+	 * 
+	 * @param random
+	 * 			The random stream to draw from.
+	 * 
+	 * @return a random index.
+	 */
+	int sample(SplittableRandom random)
+	{
+		int column = random.nextInt(probabilities.length);
+		return random.nextDouble() < probabilities[column] ? column : aliases[column];
+	}
+}
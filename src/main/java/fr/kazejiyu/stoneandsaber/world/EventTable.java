@@ -0,0 +1,291 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.world;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+
+/**
+ * The events registered on a {@link Fate}, compiled into flat arrays.
+ * <br><br>
+ * At each generation, the events are selected according to a {@link Selection}
+ * and processed without boxing nor allocating anything.
+ * <br><br>
+ * An event that fails is reported on the error stream and is never processed again.
+ */
+final class EventTable
+{
+	/**
+	 * How the events occurring during a generation are selected.
+	 */
+	enum Selection
+	{
+		/**
+		 * A single number is drawn per generation: every event whose probability
+		 * is greater than or equal to it occurs. The events are hence correlated.
+		 */
+		SHARED,
+		
+		/**
+		 * Each event occurs independently of the others, with its own probability.
+		 */
+		INDEPENDENT,
+		
+		/**
+		 * A fixed number of events occur per generation, each one being drawn
+		 * proportionally to its probability. Certain events occur once, after them.
+		 */
+		CATEGORICAL
+	}
+	
+	/**
+	 * The probability of occurrence of each event.
+	 */
+	private final double[] probabilities;
+	
+	/**
+	 * The name of each event, used to report errors.
+	 */
+	private final String[] names;
+	
+	/**
+	 * The action of each event.
+	 */
+	private final Consumer <World>[] actions;
+	
+	/**
+	 * The number of living humans of each class required by each event.
+	 */
+	private final IntSupplier[][] requirements;
+	
+	/**
+	 * Whether each event has failed.
+	 */
+	private final boolean[] failed;
+	
+	/**
+	 * The number of times each event has been skipped for lack of actors.
+	 */
+	private final long[] skipped;
+	
+	/**
+	 * How the events are selected.
+	 */
+	private final Selection selection;
+	
+	/**
+	 * The number of events drawn per generation, in {@link Selection#CATEGORICAL} mode.
+	 */
+	private final int picks;
+	
+	/**
+	 * The events which probability is at least 1, in {@link Selection#CATEGORICAL} mode.
+	 */
+	private final int[] certain;
+	
+	/**
+	 * The events which may be drawn, in {@link Selection#CATEGORICAL} mode.
+	 */
+	private final int[] uncertain;
+	
+	/**
+	 * Draws among {@link #uncertain} events, in {@link Selection#CATEGORICAL} mode.
+	 * <code>null</code> if no event may be drawn.
+	 */
+	private final AliasTable draws;
+	
+	/**
+	 * Compiles the events.
+	 * 
+	 * @param probabilities
+	 * 			The probability of occurrence of each event.
+	 * @param names
+	 * 			The name of each event.
+	 * @param actions
+	 * 			The action of each event.
+	 * @param requirements
+	 * 			The number of living humans of each class required by each event.
+	 * @param selection
+	 * 			How the events are selected.
+	 * @param picks
+	 * 			The number of events drawn per generation, in {@link Selection#CATEGORICAL} mode.
+	 */
+	EventTable(double[] probabilities, String[] names, Consumer <World>[] actions, IntSupplier[][] requirements, Selection selection, int picks)
+	{
+		this.probabilities = probabilities;
+		this.names = names;
+		this.actions = actions;
+		this.requirements = requirements;
+		this.failed = new boolean[actions.length];
+		this.skipped = new long[actions.length];
+		this.selection = selection;
+		this.picks = picks;
+		
+		int certains = 0, uncertains = 0;
+		int[] certain = new int[actions.length];
+		int[] uncertain = new int[actions.length];
+		
+		for( int i = 0 ; i < actions.length ; i++ )
+		{
+			if( probabilities[i] >= 1 )
+				certain[certains++] = i;
+			else if( probabilities[i] > 0 )
+				uncertain[uncertains++] = i;
+		}
+		
+		this.certain = Arrays.copyOf(certain, certains);
+		this.uncertain = Arrays.copyOf(uncertain, uncertains);
+		this.draws = selection == Selection.CATEGORICAL && uncertains > 0 ? new AliasTable(weightsOf(this.uncertain)) : null;
+	}
+	
+	/**
+	 * Processes the events occurring during a generation.
+	 * 
+	 * @param world
+	 * 			The world on which the events occur.
+	 * @param random
+	 * 			The random stream drawing the events.
+	 */
+	void tick(World world, SplittableRandom random)
+	{
+		switch( selection )
+		{
+		case SHARED:
+			tickShared(world, random.nextDouble());
+			break;
+			
+		case INDEPENDENT:
+			tickIndependent(world, random);
+			break;
+			
+		case CATEGORICAL:
+			tickCategorical(world, random);
+			break;
+		}
+	}
+	
+	/**
+	 * Processes, in their order of registration, the events whose probability
+	 * is greater than or equal to <code>draw</code>.
+	 */
+	private void tickShared(World world, double draw)
+	{
+		for( int i = 0 ; i < actions.length ; i++ )
+		{
+			if( draw <= probabilities[i] )
+				fire(i, world);
+		}
+	}
+	
+	/**
+	 * Processes, in their order of registration, the events that occur
+	 * according to their own draw.
+	 */
+	private void tickIndependent(World world, SplittableRandom random)
+	{
+		for( int i = 0 ; i < actions.length ; i++ )
+		{
+			if( probabilities[i] >= 1 || random.nextDouble() < probabilities[i] )
+				fire(i, world);
+		}
+	}
+	
+	/**
+	 * Processes {@link #picks} events drawn proportionally to their probability, 
+	 * then the certain events in their order of registration.
+	 */
+	private void tickCategorical(World world, SplittableRandom random)
+	{
+		if( draws != null )
+		{
+			for( int pick = 0 ; pick < picks ; pick++ )
+				fire(uncertain[draws.sample(random)], world);
+		}
+		
+		for( int i : certain )
+			fire(i, world);
+	}
+	
+	/**
+	 * Returns the number of times the <code>i</code>-th event has been skipped for lack of actors.
+	 * 
+	 * @param i
+	 * 			The index of the event.
+	 * 
+	 * @return the number of times the event has been skipped.
+	 */
+	long skipped(int i)
+	{
+		return skipped[i];
+	}
+	
+	/**
+	 * Processes the <code>i</code>-th event, unless it failed before
+	 * or one of the classes it requires has no living human.
+	 */
+	private void fire(int i, World world)
+	{
+		if( failed[i] )
+			return;
+		
+		for( IntSupplier living : requirements[i] )
+		{
+			if( living.getAsInt() == 0 ) {
+				skipped[i]++;
+				return;
+			}
+		}
+		
+		try {
+			actions[i].accept(world);
+		}
+		catch( RuntimeException e ) {
+			failed[i] = true;
+			report(names[i], e);
+		}
+	}
+	
+	/**
+	 * Returns the probabilities of <code>events</code>.
+	 */
+	private double[] weightsOf(int[] events)
+	{
+		double[] weights = new double[events.length];
+		
+		for( int i = 0 ; i < events.length ; i++ )
+			weights[i] = probabilities[events[i]];
+		
+		return weights;
+	}
+	
+	/**
+	 * Reports that the event <code>name</code> failed.
+	 */
+	private static void report(String name, Throwable e)
+	{
+		System.err.println("\nSORRY, AN ERROR OCCURED WHILE PROCESSING :\n"
+				+ "   event was : " + name + "\n"
+				+ "   error message is : " + e.getMessage() + "\n");
+	}
+}
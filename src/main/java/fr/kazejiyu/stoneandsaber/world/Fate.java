@@ -21,34 +21,87 @@
  ******************************************************************************/
 package fr.kazejiyu.stoneandsaber.world;
 
-import java.util.Random;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.IntSupplier;
 
-import rx.Observable;
-import rx.observables.ConnectableObservable;
+import fr.kazejiyu.stoneandsaber.human.Human;
+import fr.kazejiyu.stoneandsaber.world.EventTable.Selection;
 
 /**
  * Processes random events on a {@link World}.
+ * <br><br>
+ * By default, a single random number is drawn at each generation and every event 
+ * whose probability is greater than or equal to this number occurs, in their order 
+ * of registration. Other selection modes can be chosen thanks to
+ * {@link #independentDraws()} and {@link #picks(int)}.
  * 
  * @author <a href="mailto:emmanuel.chebbi@outlook.fr">Emmanuel Chebbi</a>
  */
 public class Fate
 {
 	/**
-	 * 
+	 * The probability of occurrence of the registered events.
+	 */
+	private final List <Double> probabilities = new ArrayList<>();
+	
+	/**
+	 * The name of the registered events.
 	 */
-	private ConnectableObservable <Double> obs;
+	private final List <String> names = new ArrayList<>();
+	
+	/**
+	 * The action of the registered events.
+	 */
+	private final List <Consumer<World>> actions = new ArrayList<>();
+	
+	/**
+	 * The classes of the humans required by the registered events.
+	 */
+	private final List <Class<? extends Human>[]> actors = new ArrayList<>();
+	
+	/**
+	 * The events, once compiled by {@link #descendOnWorld()}.
+	 */
+	private EventTable events;
 	
 	/**
 	 * The world on which the events occur.
 	 */
 	private final World world;
 	
+	/**
+	 * The number of generations the world undergoes.
+	 */
+	private final int generations;
+	
+	/**
+	 * The random stream drawing the events.
+	 */
+	private final SplittableRandom random;
+	
+	/**
+	 * How the events are selected at each generation.
+	 */
+	private Selection selection = Selection.SHARED;
+	
+	/**
+	 * The number of events drawn per generation, in {@link Selection#CATEGORICAL} mode.
+	 */
+	private int picks = 0;
+	
 	/**
 	 * Initialize the fate of the <code>word</code>.
 	 * <br><br>
 	 * This world will undergo events for the specified
 	 * number of <code>generations</code>.
+	 * <br><br>
+	 * The events are drawn from a random stream derived from the world's seed.
 	 * 
 	 * @param world
 	 * 			The world to be affected by the fate.
@@ -58,52 +111,187 @@ public class Fate
 	public Fate(World world, int generations)
 	{
 		this.world = world;
-		
-		Random rdm = new Random();
-		
-		obs =
-			Observable
-				.fromCallable(rdm::nextDouble)
-				.repeat(generations)
-				.share()
-				.publish();
-		
-		applyAtTheEnd();
+		this.generations = generations;
+		this.random = world.seed().random("fate");
 	}
 	
 	/**
 	 * Registers a new event that can occur on the world
-.	 * associated to this fate.
+	 * associated to this fate.
+	 * <br><br>
+	 * If the event throws an exception, the error is reported and
+	 * the event never occurs again.
+	 * <br><br>
+	 * The event is skipped while the world has no human of one of the <code>actors</code>
+	 * classes. Skipping is O(1) and the number of skipped occurrences is reported
+	 * by {@link #skipped()}.
 	 * 
 	 * @param probability
 	 * 			The probability of event's occurrence.
+	 * @param name
+	 * 			The name of the event, used to report errors.
 	 * @param event
 	 * 			
+	 * @param actors
+	 * 			The classes of the humans the event requires.
+	 * 			
 	 * @return the current instance. May be used to chain method calls.
 	 */
-	public final Fate addEvent(double probability, String name, Consumer <World> event)
+	@SafeVarargs
+	public final Fate addEvent(double probability, String name, Consumer <World> event, Class <? extends Human>... actors)
 	{
-		obs
-			.flatMap(Observable::just)
-			.filter(p -> p <= probability)
-			.subscribe( p -> event.accept(world),
-						e -> System.err.println("\nSORRY, AN ERROR OCCURED WHILE PROCESSING :\n"
-								+ "   event was : " + name + "\n"
-								+ "   error message is : " + e.getMessage() + "\n")
-			);
+		probabilities.add(probability);
+		names.add(name);
+		actions.add(event);
+		this.actors.add(actors.clone());
 		
 		return this;
 	}
 	
+	/**
+	 * Registers a new event that can occur several times per generation,
+	 * proportionally to the number of <code>actors</code>.
+	 * <br><br>
+	 * At each generation, the number of occurrences follows a Poisson distribution 
+	 * of mean <code>rate</code> times the number of humans of class <code>actors</code>.
+	 * Each occurrence then applies <code>event</code> to a random human of this class.
+	 * <br><br>
+	 * The event is certain: it is processed at every generation, whatever the selection mode.
+	 * If it throws an exception, the error is reported and the event never occurs again.
+	 * 
+	 * @param rate
+	 * 			The mean number of occurrences per actor and per generation.
+	 * @param name
+	 * 			The name of the event, used to report errors.
+	 * @param actors
+	 * 			The class of the humans undergoing the event.
+	 * @param event
+	 * 			The event, applied to the world and to a random actor.
+	 * 
+	 * @return the current instance. May be used to chain method calls.
+	 */
+	public final <T extends Human> Fate addRateEvent(double rate, String name, Class <T> actors, BiConsumer <World, ? super T> event)
+	{
+		if( !(rate >= 0) || Double.isInfinite(rate) )
+			throw new IllegalArgumentException("The rate of an event cannot be "+rate+".");
+		
+		SplittableRandom occurrences = random.split();
+		
+		return addEvent(1, name, world -> {
+			long times = Sampling.poisson(rate * world.count(actors), occurrences);
+			world.forRandom(actors, times, actor -> event.accept(world, actor));
+		}, actors);
+	}
+	
+	/**
+	 * Registers a new event that can occur several times per generation,
+	 * proportionally to the number of <code>actors</code>.
+	 * 
+	 * @param rate
+	 * 			The mean number of occurrences per actor and per generation.
+	 * @param name
+	 * 			The name of the event, used to report errors.
+	 * @param actors
+	 * 			The class of the humans undergoing the event.
+	 * @param event
+	 * 			The event, applied to a random actor.
+	 * 
+	 * @return the current instance. May be used to chain method calls.
+	 * 
+	 * @see #addRateEvent(double, String, Class, BiConsumer)
+	 */
+	public final <T extends Human> Fate addRateEvent(double rate, String name, Class <T> actors, Consumer <? super T> event)
+	{
+		return addRateEvent(rate, name, actors, (world, actor) -> event.accept(actor));
+	}
+	
+	/**
+	 * Registers a new event that each human of class <code>actors</code> may undergo.
+	 * <br><br>
+	 * At each generation, every actor undergoes the event with probability <code>probability</code>,
+	 * independently of the others. The cost of the event is proportional to the number of 
+	 * actors affected, not to the number of actors.
+	 * <br><br>
+	 * The event is certain: it is processed at every generation, whatever the selection mode.
+	 * If it throws an exception, the error is reported and the event never occurs again.
+	 * 
+	 * @param probability
+	 * 			The probability for each actor to undergo the event during a generation.
+	 * @param name
+	 * 			The name of the event, used to report errors.
+	 * @param actors
+	 * 			The class of the humans that may undergo the event.
+	 * @param event
+	 * 			The event, applied to the world and to each affected actor.
+	 * 
+	 * @return the current instance. May be used to chain method calls.
+	 */
+	public final <T extends Human> Fate addIndividualEvent(double probability, String name, Class <T> actors, BiConsumer <World, ? super T> event)
+	{
+		if( !(probability >= 0 && probability <= 1) )
+			throw new IllegalArgumentException("The probability of an event cannot be "+probability+".");
+		
+		return addEvent(1, name, world -> world.forSome(actors, probability, actor -> event.accept(world, actor)), actors);
+	}
+	
+	/**
+	 * Registers a new event that each human of class <code>actors</code> may undergo.
+	 * 
+	 * @param probability
+	 * 			The probability for each actor to undergo the event during a generation.
+	 * @param name
+	 * 			The name of the event, used to report errors.
+	 * @param actors
+	 * 			The class of the humans that may undergo the event.
+	 * @param event
+	 * 			The event, applied to each affected actor.
+	 * 
+	 * @return the current instance. May be used to chain method calls.
+	 * 
+	 * @see #addIndividualEvent(double, String, Class, BiConsumer)
+	 */
+	public final <T extends Human> Fate addIndividualEvent(double probability, String name, Class <T> actors, Consumer <? super T> event)
+	{
+		return addIndividualEvent(probability, name, actors, (world, actor) -> event.accept(actor));
+	}
 	
-	private final Fate applyAtTheEnd()
+	/**
+	 * Makes the events occur independently of each other.
+	 * <br><br>
+	 * At each generation, a random number is drawn for each event:
+	 * an event of probability <code>p</code> occurs with probability <code>p</code>,
+	 * whatever the other events do.
+	 * 
+	 * @return the current instance. May be used to chain method calls.
+	 */
+	public final Fate independentDraws()
 	{
-		obs
-			.flatMap(p -> Observable.empty())
-			.subscribe( p -> {},
-						Throwable::printStackTrace,
-						() -> System.out.printf("%n ----- GENERATION IS OVER ! Hope you enjoyed it.%n"));
-						
+		selection = Selection.INDEPENDENT;
+		return this;
+	}
+	
+	/**
+	 * Makes exactly <code>count</code> events occur at each generation.
+	 * <br><br>
+	 * Each of these events is drawn among the events of probability lower than 1, 
+	 * proportionally to its probability; an event may hence occur several times during
+	 * a generation. The probabilities are only relative weights in this mode: they do 
+	 * not have to sum to 1.
+	 * <br><br>
+	 * The events of probability 1 or more occur once per generation, after the drawn ones.
+	 * 
+	 * @param count
+	 * 			The number of events to draw per generation.
+	 * 
+	 * @return the current instance. May be used to chain method calls.
+	 */
+	public final Fate picks(int count)
+	{
+		if( count < 0 )
+			throw new IllegalArgumentException("Cannot pick "+count+" events.");
+		
+		selection = Selection.CATEGORICAL;
+		picks = count;
 		return this;
 	}
 	
@@ -112,7 +300,53 @@ public class Fate
 	 */
 	public void descendOnWorld()
 	{
-		obs.connect();
+		events = compile();
+		
+		for( int generation = 0 ; generation < generations ; generation++ )
+			events.tick(world, random);
+	}
+	
+	/**
+	 * Returns, for each event, the number of times it has been skipped because
+	 * the world had no human of one of the classes it requires.
+	 * <br><br>
+	 * The counts of the events sharing a same name are summed.
+	 * 
+	 * @return the number of skipped occurrences of each event, by name.
+	 */
+	public Map <String, Long> skipped()
+	{
+		Map <String, Long> skipped = new LinkedHashMap<>();
+		
+		for( int i = 0 ; i < names.size() ; i++ )
+			skipped.merge(names.get(i), events == null ? 0 : events.skipped(i), Long::sum);
+		
+		return skipped;
+	}
+	
+	/**
+	 * Compiles the registered events into an {@link EventTable}.
+	 */
+	@SuppressWarnings("unchecked")
+	private EventTable compile()
+	{
+		double[] p = new double[probabilities.size()];
+		
+		for( int i = 0 ; i < p.length ; i++ )
+			p[i] = probabilities.get(i);
+		
+		IntSupplier[][] requirements = new IntSupplier[p.length][];
+		
+		for( int i = 0 ; i < p.length ; i++ )
+		{
+			Class <? extends Human>[] required = actors.get(i);
+			requirements[i] = new IntSupplier[required.length];
+			
+			for( int j = 0 ; j < required.length ; j++ )
+				requirements[i][j] = world.counter(required[j]);
+		}
+		
+		return new EventTable(p, names.toArray(new String[0]), actions.toArray(new Consumer[0]), requirements, selection, picks);
 	}
 	
 }
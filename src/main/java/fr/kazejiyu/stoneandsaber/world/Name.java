@@ -21,7 +21,7 @@
  ******************************************************************************/
 package fr.kazejiyu.stoneandsaber.world;
 
-import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * As of now, this class has a rather bad design (it should be like the util.Random one).
@@ -40,7 +40,7 @@ public class Name
 	
 	private final String[] syllables;
 	
-	private final Random random = new Random();
+	private final SplittableRandom random;
 	
 	public Name()
 	{
@@ -48,8 +48,25 @@ public class Name
 	}
 	
 	public Name(String[] syllables)
+	{
+		this(syllables, new SplittableRandom());
+	}
+	
+	/**
+	 * Creates a generator drawing the names from <code>random</code>.
+	 * 
+	 * @param random
+	 * 			The random stream to use. Must not be shared with other threads.
+	 */
+	public Name(SplittableRandom random)
+	{
+		this(DEFAULT_SYLLABLES, random);
+	}
+	
+	public Name(String[] syllables, SplittableRandom random)
 	{
 		this.syllables = syllables.clone();
+		this.random = random;
 	}
 	
 	/**
@@ -73,13 +90,14 @@ public class Name
 	 */
 	public String generate(int nbrSyllables)
 	{
-		StringBuilder sb = new StringBuilder();
+		StringBuilder sb = new StringBuilder(2 * nbrSyllables);
 		
 		for( int i = 0 ; i < nbrSyllables ; i++ )
-			sb.append( syllables[new Random().nextInt(syllables.length)] );
+			sb.append( syllables[random.nextInt(syllables.length)] );
 		
-		String name = sb.toString();
+		if( sb.length() > 0 )
+			sb.setCharAt(0, Character.toUpperCase(sb.charAt(0)));
 		
-		return name.substring(0,1).toUpperCase() + name.substring(1);
+		return sb.toString();
 	}
 }
@@ -0,0 +1,426 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.world;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+
+import fr.kazejiyu.stoneandsaber.human.Human;
+
+/**
+ * The living inhabitants of a {@link World}, indexed by type.
+ * <br><br>
+ * Each human is stored in one dense bucket per type it is an instance of:
+ * its concrete class, but also each of its superclasses and interfaces
+ * (<code>Duelist</code>, <code>Bully</code>, <code>Human</code>, ...).
+ * <br><br>
+ * This makes possible to:
+ * <ul>
+ *  <li>pick a random human of any type in O(1),</li>
+ *  <li>remove a human in O(1),</li>
+ * </ul>
+ * without allocating anything.
+ */
+final class Population
+{
+	/**
+	 * The bucket storing the instances of each known type.
+	 */
+	private final Map <Class<?>, Bucket> buckets = new HashMap<>();
+	
+	/**
+	 * The buckets to which the instances of each concrete class belong. 
+	 */
+	private final Map <Class<?>, Bucket[]> bucketsOfClass = new HashMap<>();
+	
+	/**
+	 * Where each inhabitant is stored.
+	 */
+	private final Map <Human, Entry> entries = new HashMap<>();
+	
+	/**
+	 * Used to pick random inhabitants.
+	 */
+	private final SplittableRandom random;
+	
+	/**
+	 * Creates a new empty population.
+	 * 
+	 * @param random
+	 * 			Used to pick random inhabitants.
+	 */
+	Population(SplittableRandom random)
+	{
+		this.random = random;
+	}
+	
+	/**
+	 * Adds a new inhabitant.
+	 * 
+	 * @param human
+	 * 			The human to add. Nothing happens if it already belongs to the population.
+	 */
+	void add(Human human)
+	{
+		if( entries.containsKey(human) )
+			return;
+		
+		Bucket[] owners = bucketsOf(human.getClass());
+		Entry entry = new Entry(human, owners);
+		
+		for( int i = 0 ; i < owners.length ; i++ )
+			owners[i].add(entry, i);
+		
+		entries.put(human, entry);
+	}
+	
+	/**
+	 * Removes an inhabitant.
+	 * 
+	 * @param human
+	 * 			The human to remove.
+	 * 
+	 * @return whether the human belonged to the population.
+	 */
+	boolean remove(Human human)
+	{
+		Entry entry = entries.remove(human);
+		
+		if( entry == null )
+			return false;
+		
+		for( int i = 0 ; i < entry.buckets.length ; i++ )
+			entry.buckets[i].remove(entry, i);
+		
+		return true;
+	}
+	
+	/**
+	 * Returns a random living human of class <code>type</code>, if any.
+	 * <br><br>
+	 * The dead humans met while looking for a living one are removed 
+	 * from the population.
+	 * 
+	 * @param type
+	 * 			The class of the instance to look for.
+	 * 
+	 * @return a random living human of class <code>type</code>, if any.
+	 */
+	<T extends Human> Optional <T> any(Class <T> type)
+	{
+		Bucket bucket = buckets.get(type);
+		
+		if( bucket == null )
+			return Optional.empty();
+		
+		while( bucket.size > 0 )
+		{
+			Human candidate = bucket.entries[random.nextInt(bucket.size)].human;
+			
+			if( candidate.isAlive() )
+				return Optional.of(type.cast(candidate));
+			
+			remove(candidate);
+		}
+		return Optional.empty();
+	}
+	
+	/**
+	 * Applies <code>action</code> to <code>times</code> random living humans of class <code>type</code>.
+	 * <br><br>
+	 * The humans are drawn with replacement: the same human may be picked several times.
+	 * The dead humans met while looking for living ones are removed from the population.
+	 * 
+	 * @param type
+	 * 			The class of the humans to pick.
+	 * @param times
+	 * 			The number of humans to pick.
+	 * @param action
+	 * 			The action to apply on each picked human.
+	 * 
+	 * @return the number of times <code>action</code> has been applied. Lower than 
+	 * 		   <code>times</code> if there is no living human of class <code>type</code> anymore.
+	 */
+	<T extends Human> long forRandom(Class <T> type, long times, Consumer <? super T> action)
+	{
+		Bucket bucket = buckets.get(type);
+		long done = 0;
+		
+		if( bucket == null )
+			return done;
+		
+		while( done < times && bucket.size > 0 )
+		{
+			Human candidate = bucket.entries[random.nextInt(bucket.size)].human;
+			
+			if( candidate.isAlive() ) {
+				action.accept(type.cast(candidate));
+				done++;
+			}
+			else {
+				remove(candidate);
+			}
+		}
+		return done;
+	}
+	
+	/**
+	 * Applies <code>action</code> to each living human of class <code>type</code> 
+	 * with probability <code>probability</code>.
+	 * <br><br>
+	 * Rather than drawing a number per human, the gaps between the humans affected are drawn 
+	 * from a geometric distribution: the cost is proportional to the number of humans affected.
+	 * <br><br>
+	 * The humans affected are selected before <code>action</code> is applied, so the
+	 * action may freely alter the population.
+	 * 
+	 * @param type
+	 * 			The class of the humans to visit.
+	 * @param probability
+	 * 			The probability for each human to be affected.
+	 * @param action
+	 * 			The action to apply on each affected human.
+	 * 
+	 * @return the number of times <code>action</code> has been applied.
+	 */
+	<T extends Human> long forSome(Class <T> type, double probability, Consumer <? super T> action)
+	{
+		if( !(probability >= 0 && probability <= 1) )
+			throw new IllegalArgumentException("A probability cannot be "+probability+".");
+		
+		Bucket bucket = buckets.get(type);
+		
+		if( bucket == null || probability == 0 )
+			return 0;
+		
+		List <Human> affected = new ArrayList<>();
+		double logFailure = Math.log1p(-probability);
+		
+		for( long i = Sampling.geometric(logFailure, random) ; i < bucket.size ; )
+		{
+			affected.add(bucket.entries[(int) i].human);
+			
+			long skip = Sampling.geometric(logFailure, random);
+			
+			if( skip >= bucket.size - i )
+				break;
+			
+			i += skip + 1;
+		}
+		
+		long done = 0;
+		
+		for( Human human : affected )
+		{
+			if( human.isAlive() ) {
+				action.accept(type.cast(human));
+				done++;
+			}
+		}
+		return done;
+	}
+	
+	/**
+	 * Returns a live counter of the inhabitants of class <code>type</code>.
+	 * <br><br>
+	 * The counter is updated each time an inhabitant is added or removed, and reading
+	 * it costs O(1). As {@link #count(Class)}, it counts the humans that died since 
+	 * their last removal.
+	 * 
+	 * @param type
+	 * 			The class of the inhabitants to count.
+	 * 
+	 * @return a live counter of the inhabitants of class <code>type</code>.
+	 */
+	IntSupplier counter(Class <?> type)
+	{
+		Bucket bucket = buckets.computeIfAbsent(type, t -> new Bucket());
+		return () -> bucket.size;
+	}
+	
+	/**
+	 * Returns the number of inhabitants of class <code>type</code>.
+	 * <br><br>
+	 * The humans that died since their last removal are counted.
+	 * 
+	 * @param type
+	 * 			The class of the inhabitants to count.
+	 * 
+	 * @return the number of inhabitants of class <code>type</code>.
+	 */
+	int count(Class <?> type)
+	{
+		Bucket bucket = buckets.get(type);
+		return bucket == null ? 0 : bucket.size;
+	}
+	
+	/**
+	 * Returns the living inhabitants of class <code>type</code>.
+	 * 
+	 * @param type
+	 * 			The class of the inhabitants to return.
+	 * 
+	 * @return a new list of the living inhabitants of class <code>type</code>.
+	 */
+	<T extends Human> List <T> living(Class <T> type)
+	{
+		Bucket bucket = buckets.get(type);
+		
+		if( bucket == null )
+			return new ArrayList<>();
+		
+		List <T> living = new ArrayList<>(bucket.size);
+		
+		for( int i = 0 ; i < bucket.size ; i++ )
+		{
+			Human human = bucket.entries[i].human;
+			
+			if( human.isAlive() )
+				living.add(type.cast(human));
+		}
+		return living;
+	}
+	
+	/**
+	 * Returns the buckets to which the instances of <code>concrete</code> belong,
+	 * creating them if needed.
+	 */
+	private Bucket[] bucketsOf(Class <?> concrete)
+	{
+		Bucket[] owners = bucketsOfClass.get(concrete);
+		
+		if( owners == null )
+		{
+			List <Class<?>> types = supertypesOf(concrete);
+			owners = new Bucket[types.size()];
+			
+			for( int i = 0 ; i < owners.length ; i++ )
+				owners[i] = buckets.computeIfAbsent(types.get(i), type -> new Bucket());
+			
+			bucketsOfClass.put(concrete, owners);
+		}
+		return owners;
+	}
+	
+	/**
+	 * Returns <code>type</code>, its superclasses and all the interfaces it implements.
+	 * {@link Object} is omitted.
+	 */
+	private static List <Class<?>> supertypesOf(Class <?> type)
+	{
+		List <Class<?>> supertypes = new ArrayList<>();
+		Deque <Class<?>> toVisit = new ArrayDeque<>();
+		toVisit.add(type);
+		
+		while( ! toVisit.isEmpty() )
+		{
+			Class <?> current = toVisit.poll();
+			
+			if( current == Object.class || supertypes.contains(current) )
+				continue;
+			
+			supertypes.add(current);
+			
+			if( current.getSuperclass() != null )
+				toVisit.add(current.getSuperclass());
+			
+			toVisit.addAll(Arrays.asList(current.getInterfaces()));
+		}
+		return supertypes;
+	}
+	
+	/**
+	 * The location of an inhabitant within the buckets it belongs to.
+	 */
+	private static final class Entry
+	{
+		private final Human human;
+		
+		/**
+		 * The buckets the human belongs to.
+		 */
+		private final Bucket[] buckets;
+		
+		/**
+		 * The index of the human within each of its bucket.
+		 */
+		private final int[] indexes;
+		
+		private Entry(Human human, Bucket[] buckets)
+		{
+			this.human = human;
+			this.buckets = buckets;
+			this.indexes = new int[buckets.length];
+		}
+		
+		private int positionOf(Bucket bucket)
+		{
+			for( int i = 0 ; i < buckets.length ; i++ )
+				if( buckets[i] == bucket )
+					return i;
+			
+			throw new IllegalStateException("The human does not belong to the bucket");
+		}
+	}
+	
+	/**
+	 * A dense array storing the inhabitants of a given type.
+	 */
+	private static final class Bucket
+	{
+		private Entry[] entries = new Entry[8];
+		
+		private int size = 0;
+		
+		private void add(Entry entry, int position)
+		{
+			if( size == entries.length )
+				entries = Arrays.copyOf(entries, size * 2);
+			
+			entry.indexes[position] = size;
+			entries[size++] = entry;
+		}
+		
+		/**
+		 * Removes the entry by replacing it with the last one.
+		 */
+		private void remove(Entry entry, int position)
+		{
+			int index = entry.indexes[position];
+			Entry last = entries[--size];
+			
+			entries[index] = last;
+			last.indexes[last.positionOf(this)] = index;
+			
+			entries[size] = null;
+		}
+	}
+}
@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.world;
+
+import static java.lang.Math.abs;
+import static java.lang.Math.exp;
+import static java.lang.Math.floor;
+import static java.lang.Math.log;
+import static java.lang.Math.sqrt;
+
+import java.util.SplittableRandom;
+
+/**
+ * Samples random variables following usual discrete distributions.
+ */
+final class Sampling
+{
+	/**
+	 * Below this mean, Poisson variables are sampled by multiplying uniforms.
+	 */
+	private static final double SMALL_MEAN = 10;
+	
+	/**
+	 * log(k!) for small values of k.
+	 */
+	private static final double[] LOG_FACTORIALS = new double[16];
+	
+	static {
+		for( int k = 1 ; k < LOG_FACTORIALS.length ; k++ )
+			LOG_FACTORIALS[k] = LOG_FACTORIALS[k-1] + log(k);
+	}
+	
+	private Sampling()
+	{
+		// utility class
+	}
+	
+	/**
+	 * Returns a random number following a Poisson distribution of mean <code>mean</code>.
+	 * <br><br>
+	 * Small means are sampled with Knuth's multiplication method, large ones with 
+	 * Hörmann's transformed rejection (PTRS), which costs a constant number of draws.
+	 * 
+	 * @param mean
+	 * 			The mean of the distribution. Must be non-negative and finite.
+	 * @param random
+	 * 			The random stream to draw from.
+	 * 
+	 * @return a random number following a Poisson distribution.
+	 */
+	static long poisson(double mean, SplittableRandom random)
+	{
+		if( !(mean >= 0) || Double.isInfinite(mean) )
+			throw new IllegalArgumentException("The mean of a Poisson distribution cannot be "+mean+".");
+		
+		if( mean == 0 )
+			return 0;
+		
+		return mean < SMALL_MEAN ? multiplication(mean, random) : transformedRejection(mean, random);
+	}
+	
+	/**
+	 * Returns a random number following a geometric distribution: the number of failed
+	 * Bernoulli trials before the first success.
+	 * <br><br>
+	 * The distribution is given by <code>log(1 - p)</code>, where <code>p</code> is the 
+	 * probability of success of a trial, so that it can be computed once for many draws.
+	 * 
+	 * @param logFailure
+	 * 			<code>log(1 - p)</code>. Must be negative.
+	 * @param random
+	 * 			The random stream to draw from.
+	 * 
+	 * @return the number of failures before the first success, 
+	 * 		   or {@link Long#MAX_VALUE} if it is too large to be represented.
+	 */
+	static long geometric(double logFailure, SplittableRandom random)
+	{
+		// 1 - nextDouble() lies in ]0, 1] so that its logarithm is finite
+		return (long) floor(log(1 - random.nextDouble()) / logFailure);
+	}
+	
+	/**
+	 * Knuth's method: counts the uniforms to multiply before going below exp(-mean).
+	 */
+	private static long multiplication(double mean, SplittableRandom random)
+	{
+		double limit = exp(-mean);
+		double product = random.nextDouble();
+		long k = 0;
+		
+		while( product > limit ) 
+		{
+			product *= random.nextDouble();
+			k++;
+		}
+		return k;
+	}
+	
+	/**
+	 * Hörmann's PTRS algorithm, for means of at least 10.
+	 */
+	private static long transformedRejection(double mean, SplittableRandom random)
+	{
+		double logMean = log(mean);
+		double b = 0.931 + 2.53 * sqrt(mean);
+		double a = -0.059 + 0.02483 * b;
+		double invAlpha = 1.1239 + 1.1328 / (b - 3.4);
+		double vr = 0.9277 - 3.6224 / (b - 2);
+		
+		while( true )
+		{
+			double u = random.nextDouble() - 0.5;
+			double v = random.nextDouble();
+			double us = 0.5 - abs(u);
+			long k = (long) floor((2 * a / us + b) * u + mean + 0.43);
+			
+			if( us >= 0.07 && v <= vr )
+				return k;
+			
+			if( k < 0 || (us < 0.013 && v > us) )
+				continue;
+			
+			if( log(v) + log(invAlpha) - log(a / (us * us) + b) <= -mean + k * logMean - logFactorial(k) )
+				return k;
+		}
+	}
+	
+	/**
+	 * Returns log(k!), approximated with Stirling's series when k is large.
+	 */
+	private static double logFactorial(long k)
+	{
+		if( k < LOG_FACTORIALS.length )
+			return LOG_FACTORIALS[(int) k];
+		
+		double n = k + 1;
+		return (n - 0.5) * log(n) - n + 0.5 * log(2 * Math.PI) + 1 / (12 * n) - 1 / (360 * n * n * n);
+	}
+}
@@ -0,0 +1,301 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.world;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A hierarchical timer wheel: schedules items to expire at a given tick.
+ * <br><br>
+ * The wheel is made of {@value #LEVELS} levels of {@value #SLOTS} slots. Level <code>L</code>
+ * holds the items expiring within <code>64^(L+1)</code> ticks; when its current slot comes
+ * round, the items it holds are cascaded to the lower levels. Scheduling, cancelling and 
+ * expiring an item are hence O(1), whatever the number of items and the ticks they expire at.
+ * <br><br>
+ * Items are small non-negative integers, such as the slots of a {@link fr.kazejiyu.stoneandsaber.behaviors.StatusStore}. 
+ * Each item is scheduled at most once: the slots of the wheel are intrusive doubly-linked 
+ * lists threaded through arrays indexed by item, so that rescheduling an item moves it 
+ * rather than leaving a stale entry behind.
+ * <br><br>
+ * Instances of this class are not thread-safe.
+ */
+final class TimerWheel
+{
+	private static final int BITS = 6;
+	
+	private static final int SLOTS = 1 << BITS;
+	
+	private static final int MASK = SLOTS - 1;
+	
+	private static final int LEVELS = 4;
+	
+	private static final int NONE = -1;
+	
+	/**
+	 * The first item of each slot, by level then by slot. The items of a slot 
+	 * form a circular list, so that the last one is the previous of the first.
+	 */
+	private final int[] heads = new int[LEVELS * SLOTS];
+	
+	/**
+	 * The tick at which each item expires.
+	 */
+	private long[] deadlines = new long[0];
+	
+	/**
+	 * The slot of the wheel holding each item, {@value #NONE} if it is not scheduled.
+	 */
+	private int[] wheels = new int[0];
+	
+	private int[] next = new int[0];
+	
+	private int[] previous = new int[0];
+	
+	/**
+	 * The current tick.
+	 */
+	private long now = 0;
+	
+	/**
+	 * The number of items scheduled.
+	 */
+	private int size = 0;
+	
+	TimerWheel()
+	{
+		Arrays.fill(heads, NONE);
+	}
+	
+	/**
+	 * @return the current tick.
+	 */
+	long now()
+	{
+		return now;
+	}
+	
+	/**
+	 * @return the number of items scheduled.
+	 */
+	int size()
+	{
+		return size;
+	}
+	
+	/**
+	 * @return whether <code>item</code> is scheduled.
+	 */
+	boolean contains(int item)
+	{
+		return item < wheels.length && wheels[item] != NONE;
+	}
+	
+	/**
+	 * @return the tick at which <code>item</code> expires, or -1 if it is not scheduled.
+	 */
+	long deadline(int item)
+	{
+		return contains(item) ? deadlines[item] : -1;
+	}
+	
+	/**
+	 * Schedules <code>item</code> to expire at tick <code>deadline</code>,
+	 * replacing its previous deadline if any.
+	 * <br><br>
+	 * An item whose deadline has passed expires at the current tick.
+	 * 
+	 * @param item
+	 * 			The item to schedule.
+	 * @param deadline
+	 * 			The tick at which the item expires.
+	 */
+	void schedule(int item, long deadline)
+	{
+		if( item >= wheels.length )
+			grow(item + 1);
+		
+		if( contains(item) )
+			unlink(item);
+		else
+			size++;
+		
+		deadlines[item] = Math.max(deadline, now);
+		insert(item);
+	}
+	
+	/**
+	 * Unschedules <code>item</code>, if scheduled.
+	 */
+	void cancel(int item)
+	{
+		if( ! contains(item) )
+			return;
+		
+		unlink(item);
+		size--;
+	}
+	
+	/**
+	 * Mirrors {@link fr.kazejiyu.stoneandsaber.behaviors.StatusStore#release(int)}: 
+	 * unschedules <code>item</code>, then gives the deadline of <code>lastItem</code> to <code>item</code>.
+	 * 
+	 * @param item
+	 * 			The item released.
+	 * @param lastItem
+	 * 			The item moved in its place.
+	 */
+	void release(int item, int lastItem)
+	{
+		cancel(item);
+		
+		if( item == lastItem || ! contains(lastItem) )
+			return;
+		
+		long deadline = deadlines[lastItem];
+		cancel(lastItem);
+		schedule(item, deadline);
+	}
+	
+	/**
+	 * Expires the items scheduled at the current tick, then moves to the next tick.
+	 * 
+	 * @param expired
+	 * 			Called on each expired item, in the order they were scheduled. 
+	 * 			Must not alter the wheel.
+	 */
+	void advance(IntConsumer expired)
+	{
+		int slot = (int) (now & MASK);
+		
+		for( int item = detach(slot) ; item != NONE ; )
+		{
+			int following = next[item];
+			wheels[item] = NONE;
+			size--;
+			expired.accept(item);
+			item = following;
+		}
+		
+		now++;
+		
+		// the slots of the upper levels that have just come round are cascaded
+		for( int level = 1 ; level < LEVELS && (now & ((1L << (BITS * level)) - 1)) == 0 ; level++ )
+		{
+			for( int item = detach(level * SLOTS + (int) ((now >>> (BITS * level)) & MASK)) ; item != NONE ; )
+			{
+				int following = next[item];
+				insert(item);
+				item = following;
+			}
+		}
+	}
+	
+	/**
+	 * Appends <code>item</code> to the slot of the wheel matching its deadline.
+	 */
+	private void insert(int item)
+	{
+		long delta = deadlines[item] - now;
+		int level = 0;
+		
+		while( level < LEVELS - 1 && delta >= 1L << (BITS * (level + 1)) )
+			level++;
+		
+		long block = deadlines[item] >>> (BITS * level);
+		
+		// too far: wait in the last slot before the top level wraps, then be cascaded again
+		if( delta >= 1L << (BITS * LEVELS) )
+			block = (now >>> (BITS * level)) - 1;
+		
+		int wheel = level * SLOTS + (int) (block & MASK);
+		int head = heads[wheel];
+		
+		if( head == NONE ) 
+		{
+			heads[wheel] = item;
+			next[item] = item;
+			previous[item] = item;
+		}
+		else 
+		{
+			int tail = previous[head];
+			next[tail] = item;
+			previous[item] = tail;
+			next[item] = head;
+			previous[head] = item;
+		}
+		wheels[item] = wheel;
+	}
+	
+	/**
+	 * Removes <code>item</code> from its slot of the wheel.
+	 */
+	private void unlink(int item)
+	{
+		int wheel = wheels[item];
+		
+		if( next[item] == item )
+			heads[wheel] = NONE;
+		
+		else 
+		{
+			next[previous[item]] = next[item];
+			previous[next[item]] = previous[item];
+			
+			if( heads[wheel] == item )
+				heads[wheel] = next[item];
+		}
+		wheels[item] = NONE;
+	}
+	
+	/**
+	 * Empties a slot of the wheel.
+	 * 
+	 * @return the first item the slot held, or {@value #NONE}. The items it held are 
+	 * 		   linked by {@link #next} until {@value #NONE}.
+	 */
+	private int detach(int wheel)
+	{
+		int head = heads[wheel];
+		
+		if( head == NONE )
+			return NONE;
+		
+		heads[wheel] = NONE;
+		next[previous[head]] = NONE;
+		
+		return head;
+	}
+	
+	private void grow(int capacity)
+	{
+		int length = wheels.length;
+		capacity = Math.max(capacity, Math.max(16, length * 2));
+		
+		deadlines = Arrays.copyOf(deadlines, capacity);
+		next = Arrays.copyOf(next, capacity);
+		previous = Arrays.copyOf(previous, capacity);
+		wheels = Arrays.copyOf(wheels, capacity);
+		Arrays.fill(wheels, length, capacity, NONE);
+	}
+}
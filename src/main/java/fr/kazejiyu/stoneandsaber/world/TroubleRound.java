@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.world;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveTask;
+
+import fr.kazejiyu.stoneandsaber.human.Human;
+
+/**
+ * Makes a range of troubled humans undergo their troubles, and returns 
+ * the slots of the ones who died meanwhile.
+ * <br><br>
+ * The range is split in shards of at most <code>grain</code> humans that
+ * can be processed on several threads by a {@link java.util.concurrent.ForkJoinPool}.
+ * Troubles only alter the human undergoing them, so shards are independent: 
+ * each shard collects its own dead, which are then merged in the order of the range.
+ */
+final class TroubleRound extends RecursiveTask <int[]>
+{
+	private static final long serialVersionUID = -2370946712937386457L;
+	
+	private static final int[] NOBODY = new int[0];
+
+	private final transient Human[] troubled;
+	
+	private final int[] slots;
+	
+	private final int from;
+	
+	private final int to;
+	
+	private final int grain;
+	
+	/**
+	 * Creates a new round for the humans between <code>from</code> (inclusive)
+	 * and <code>to</code> (exclusive).
+	 * 
+	 * @param troubled
+	 * 			The troubled humans.
+	 * @param slots
+	 * 			The slot of each troubled human.
+	 * @param from
+	 * 			The index of the first human of the range.
+	 * @param to
+	 * 			The index following the last human of the range.
+	 * @param grain
+	 * 			The maximum number of humans processed by a single shard.
+	 */
+	TroubleRound(Human[] troubled, int[] slots, int from, int to, int grain)
+	{
+		this.troubled = troubled;
+		this.slots = slots;
+		this.from = from;
+		this.to = to;
+		this.grain = grain;
+	}
+	
+	@Override
+	protected int[] compute()
+	{
+		if( to - from <= grain ) 
+		{
+			int[] dead = NOBODY;
+			int count = 0;
+			
+			for( int i = from ; i < to ; i++ )
+			{
+				boolean alive = troubled[i].isAlive();
+				troubled[i].undergoTroubles();
+				
+				if( alive && ! troubled[i].isAlive() )
+				{
+					if( count == dead.length )
+						dead = Arrays.copyOf(dead, Math.max(4, count * 2));
+					
+					dead[count++] = slots[i];
+				}
+			}
+			return count == dead.length ? dead : Arrays.copyOf(dead, count);
+		}
+		
+		int middle = (from + to) >>> 1;
+		
+		TroubleRound left = new TroubleRound(troubled, slots, from, middle, grain);
+		TroubleRound right = new TroubleRound(troubled, slots, middle, to, grain);
+		invokeAll(left, right);
+		
+		return merge(left.join(), right.join());
+	}
+	
+	/**
+	 * Returns the dead of <code>left</code> followed by the ones of <code>right</code>.
+	 */
+	private static int[] merge(int[] left, int[] right)
+	{
+		if( right.length == 0 )
+			return left;
+		
+		if( left.length == 0 )
+			return right;
+		
+		int[] merged = Arrays.copyOf(left, left.length + right.length);
+		System.arraycopy(right, 0, merged, left.length, right.length);
+		
+		return merged;
+	}
+}
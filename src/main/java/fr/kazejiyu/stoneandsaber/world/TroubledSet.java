@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.world;
+
+import java.util.Arrays;
+
+import fr.kazejiyu.stoneandsaber.behaviors.StatusStore;
+import fr.kazejiyu.stoneandsaber.human.Human;
+
+/**
+ * The humans of a {@link World} undergoing troubles.
+ * <br><br>
+ * The humans are stored densely, so that the upkeep walks an array whose length 
+ * is the number of troubled humans rather than the size of the population. Removing 
+ * a human moves the last one to its place.
+ * <br><br>
+ * Humans are identified by the slot of their status within the {@link StatusStore} 
+ * of the world: the position of each human is stored in a column indexed by slot,
+ * which must be kept in sync with the store thanks to {@link #release(int, int)}.
+ * <br><br>
+ * Instances of this class are not thread-safe.
+ */
+final class TroubledSet
+{
+	private static final int DEFAULT_CAPACITY = 16;
+	
+	private Human[] humans = new Human[DEFAULT_CAPACITY];
+	
+	/**
+	 * The slot of each human.
+	 */
+	private int[] slots = new int[DEFAULT_CAPACITY];
+	
+	/**
+	 * The position of each slot within the arrays, -1 if its human is not troubled.
+	 */
+	private int[] positions = new int[0];
+	
+	private int size = 0;
+	
+	/**
+	 * @return the number of troubled humans.
+	 */
+	int size()
+	{
+		return size;
+	}
+	
+	/**
+	 * Returns the troubled humans.
+	 * <br><br>
+	 * The array is not copied: only its first {@link #size()} elements are meaningful,
+	 * and it must not be kept across a modification of the set.
+	 * 
+	 * @return the troubled humans.
+	 */
+	Human[] humans()
+	{
+		return humans;
+	}
+	
+	/**
+	 * Returns the slot of each troubled human, in the same order as {@link #humans()}.
+	 * <br><br>
+	 * The array is not copied: only its first {@link #size()} elements are meaningful,
+	 * and it must not be kept across a modification of the set.
+	 * 
+	 * @return the slots of the troubled humans.
+	 */
+	int[] slots()
+	{
+		return slots;
+	}
+	
+	/**
+	 * @return whether the human stored in <code>slot</code> is troubled.
+	 */
+	boolean contains(int slot)
+	{
+		return slot < positions.length && positions[slot] >= 0;
+	}
+	
+	/**
+	 * Adds <code>human</code>, stored in <code>slot</code>, to the set if it is not there yet.
+	 */
+	void add(Human human, int slot)
+	{
+		if( contains(slot) )
+			return;
+		
+		if( slot >= positions.length ) 
+		{
+			int length = positions.length;
+			positions = Arrays.copyOf(positions, Math.max(slot + 1, length * 2));
+			Arrays.fill(positions, length, positions.length, -1);
+		}
+		
+		if( size == humans.length ) 
+		{
+			humans = Arrays.copyOf(humans, size * 2);
+			slots = Arrays.copyOf(slots, size * 2);
+		}
+		
+		humans[size] = human;
+		slots[size] = slot;
+		positions[slot] = size++;
+	}
+	
+	/**
+	 * Removes the human stored in <code>slot</code> from the set, if present.
+	 */
+	void remove(int slot)
+	{
+		if( ! contains(slot) )
+			return;
+		
+		int position = positions[slot];
+		int last = --size;
+		
+		if( position != last ) 
+		{
+			humans[position] = humans[last];
+			slots[position] = slots[last];
+			positions[slots[position]] = position;
+		}
+		humans[last] = null;
+		positions[slot] = -1;
+	}
+	
+	/**
+	 * Mirrors {@link StatusStore#release(int)}: removes the human stored in <code>slot</code>,
+	 * then moves the human stored in <code>lastSlot</code> to <code>slot</code>.
+	 * 
+	 * @param slot
+	 * 			The slot released.
+	 * @param lastSlot
+	 * 			The last slot of the store, before the release.
+	 */
+	void release(int slot, int lastSlot)
+	{
+		remove(slot);
+		
+		if( slot == lastSlot || ! contains(lastSlot) )
+			return;
+		
+		int position = positions[lastSlot];
+		slots[position] = slot;
+		positions[slot] = position;
+		positions[lastSlot] = -1;
+	}
+}
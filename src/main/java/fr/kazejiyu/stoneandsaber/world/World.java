@@ -21,18 +21,24 @@
  ******************************************************************************/
 package fr.kazejiyu.stoneandsaber.world;
 
-import static java.util.Collections.shuffle;
 import static java.util.Objects.requireNonNull;
-import static java.util.stream.Collectors.collectingAndThen;
-import static java.util.stream.Collectors.toList;
 
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.IntSummaryStatistics;
 import java.util.List;
 import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
 
+import fr.kazejiyu.stoneandsaber.behaviors.StatusStore;
+import fr.kazejiyu.stoneandsaber.behaviors.effect.AttackEffect;
+import fr.kazejiyu.stoneandsaber.human.Entity;
 import fr.kazejiyu.stoneandsaber.human.Human;
 import fr.kazejiyu.stoneandsaber.human.characters.Clan;
+import fr.kazejiyu.stoneandsaber.human.characters.DuelCache;
+import fr.kazejiyu.stoneandsaber.human.characters.HumanBatch;
 import fr.kazejiyu.stoneandsaber.human.characters.HumanFactory;
 import fr.kazejiyu.stoneandsaber.human.characters.Lord;
 import fr.kazejiyu.stoneandsaber.human.kingdom.Kingdom;
@@ -46,29 +52,84 @@ import fr.kazejiyu.stoneandsaber.human.kingdom.Kingdom;
  */
 public class World
 {
+	/**
+	 * The maximum number of troubled humans processed by a single task during a parallel upkeep.
+	 */
+	private static final int UPKEEP_GRAIN = 4096;
+	
 	private Lord lord;
 	
 	private Clan clan;
 	
 	private Kingdom kingdom;
 	
-	private List <Human> people = new LinkedList<>();
+	/**
+	 * The attributes of the people, stored column by column
+	 */
+	private final StatusStore <Human> people = new StatusStore<>();
+	
+	/**
+	 * The living people, indexed by type
+	 */
+	private final Population population;
+	
+	/**
+	 * The troubled people, indexed by the slot of their status within {@link #people}
+	 */
+	private final TroubledSet troubled = new TroubledSet();
+	
+	/**
+	 * The upkeep at which the troubles of each troubled people are over, 
+	 * indexed by the slot of their status within {@link #people}
+	 */
+	private final TimerWheel troublesEnd = new TimerWheel();
+	
+	/**
+	 * The number of troubled people visited by each upkeep
+	 */
+	private final IntSummaryStatistics troubledPerGeneration = new IntSummaryStatistics();
+	
+	/**
+	 * The outcomes of the duels fought in this world
+	 */
+	private final DuelCache duels = new DuelCache(DuelCache.DEFAULT_CAPACITY);
+	
+	/**
+	 * The seed the world was created from
+	 */
+	private final WorldSeed seed;
+	
+	/**
+	 * The randomness of the events happening in the world
+	 */
+	private final SplittableRandom random;
 
 	/**
 	 * Makes human creation easier
 	 */
 	private HumanFactory factory;
 	
+	/**
+	 * The pool used to make people live in parallel, 
+	 * <code>null</code> if people live sequentially.
+	 */
+	private ForkJoinPool upkeepPool;
+	
 	/**
 	 * Creates a new <code>World</code> that will be populated thanks
 	 * to specified <code>factory</code>
 	 * 
+	 * @param seed
+	 * 			The seed the world is created from. Must not be <code>null</code>.
 	 * @param factory
 	 * 			Used to create the new humans. Must not be <code>null</code>.
 	 */
-	private World(HumanFactory factory) 
+	private World(WorldSeed seed, HumanFactory factory) 
 	{
+		this.seed = requireNonNull(seed);
 		this.factory = requireNonNull(factory);
+		this.random = seed.random("events");
+		this.population = new Population(seed.random("population"));
 	}
 	
 	/**
@@ -81,10 +142,10 @@ public class World
 	 */
 	public static World randomized(WorldSeed seed)
 	{		
-		Name name = new Name();
-		HumanFactory factory = new HumanFactory();
+		Name name = new Name(seed.random("names"));
+		HumanFactory factory = new HumanFactory(seed.random("humans"));
 		
-		World world = new World(factory);
+		World world = new World(seed, factory);
 		
 		String lordName = name.generate();
 		world.lord = new Lord(lordName, new Kingdom());
@@ -92,22 +153,15 @@ public class World
 		String clanName = name.generate();
 		world.clan = new Clan(clanName);
 		
-		// Populate the world
-		
-		for(int i = 0 ; i < seed.samurais ; i++)
-			world.people.add( factory.createSamurai(world.lord) );
-		
-		for(int i = 0 ; i < seed.yakuzas ; i++)
-			world.people.add( factory.createYakuza(world.clan) );
-		
-		for(int i = 0 ; i < seed.merchants ; i++)
-			world.people.add( factory.createMerchant() );
+		// Each time humans are created, they will be added to the population
+		factory.onCreateBatch(world::inhabit);
 		
-		for(int i = 0 ; i < seed.traitors ; i++)
-			world.people.add( factory.createTraitor(world.lord) );
+		// Populate the world
 		
-		// Each time a human is created, he will be added to the population
-		factory.onCreate(Human.class, world.people::add);
+		factory.createSamurais(seed.samurais, world.lord);
+		factory.createYakuzas(seed.yakuzas, world.clan);
+		factory.createMerchants(seed.merchants);
+		factory.createTraitors(seed.traitors, world.lord);
 		
 		return world;
 	}
@@ -131,6 +185,42 @@ public class World
 	{
 		return factory;
 	}
+	
+	/**
+	 * @return the seed the world has been created from.
+	 */
+	public WorldSeed seed()
+	{
+		return seed;
+	}
+	
+	/**
+	 * Returns the random stream to use for the events happening in the world.
+	 * <br><br>
+	 * The stream is not thread-safe: it should be {@link SplittableRandom#split() split}
+	 * before being used by other threads.
+	 * 
+	 * @return the random stream of the world's events.
+	 */
+	public SplittableRandom random()
+	{
+		return random;
+	}
+	
+	/**
+	 * Sets the pool used by {@link #makePeopleLive()} to process people in parallel.
+	 * <br><br>
+	 * The people are split in shards that undergo their troubles concurrently. 
+	 * Each shard collects its own dead, which are merged and buried afterwards, 
+	 * in the same order as a sequential upkeep would.
+	 * 
+	 * @param pool
+	 * 			The pool to use, or <code>null</code> to make people live sequentially.
+	 */
+	public void setUpkeepPool(ForkJoinPool pool)
+	{
+		this.upkeepPool = pool;
+	}
 
 	/**
 	 * Returns a random <code>Human</code> of any class.
@@ -151,47 +241,256 @@ public class World
 	 */
 	public <T extends Human> Optional <T> any(Class <T> human)
 	{
-		return people.stream()
-					 .filter(human::isInstance)
-					 .filter(Human::isAlive)
-					 .map(human::cast) 
- 					 // shuffle the collection ...
-					 .collect(collectingAndThen(toList(), collected -> {
-						 shuffle(collected);
-						 return collected.stream();
-					 }))
-					 // ... in order to pick a random human
-					 .findAny();
+		return population.any(human);
 	}
 	
+	/**
+	 * Applies <code>action</code> to <code>times</code> random humans of class <code>human</code>.
+	 * <br><br>
+	 * The humans are drawn with replacement: the same human may be picked several times.
+	 * 
+	 * @param human
+	 * 			The class of the humans to pick.
+	 * @param times
+	 * 			The number of humans to pick.
+	 * @param action
+	 * 			The action to apply on each picked human.
+	 * 
+	 * @return the number of times <code>action</code> has been applied. Lower than 
+	 * 		   <code>times</code> if every human of class <code>human</code> died.
+	 */
+	public <T extends Human> long forRandom(Class <T> human, long times, Consumer <? super T> action)
+	{
+		return population.forRandom(human, times, action);
+	}
+	
+	/**
+	 * Applies <code>action</code> to each human of class <code>human</code> 
+	 * with probability <code>probability</code>.
+	 * <br><br>
+	 * The cost is proportional to the number of humans affected, not to the size of the population.
+	 * 
+	 * @param human
+	 * 			The class of the humans to visit.
+	 * @param probability
+	 * 			The probability for each human to be affected.
+	 * @param action
+	 * 			The action to apply on each affected human.
+	 * 
+	 * @return the number of times <code>action</code> has been applied.
+	 */
+	public <T extends Human> long forSome(Class <T> human, double probability, Consumer <? super T> action)
+	{
+		return population.forSome(human, probability, action);
+	}
+	
+	/**
+	 * Returns the number of humans of class <code>human</code> living in the world.
+	 * <br><br>
+	 * Humans who died since the last call to {@link #makePeopleLive()} 
+	 * are counted until they are buried.
+	 * 
+	 * @param human
+	 * 			The class of the humans to count.
+	 * 
+	 * @return the number of humans of class <code>human</code>.
+	 */
+	public int count(Class <? extends Human> human)
+	{
+		return population.count(human);
+	}
+	
+	/**
+	 * Returns the humans of class <code>human</code> living in the world.
+	 * 
+	 * @param human
+	 * 			The class of the humans to return.
+	 * 
+	 * @return a new list of the humans of class <code>human</code> still alive.
+	 */
+	public <T extends Human> List <T> living(Class <T> human)
+	{
+		return population.living(human);
+	}
+	
+	/**
+	 * Returns a live counter of the humans of class <code>human</code> living in the world.
+	 * <br><br>
+	 * The counter is updated as humans are created and buried.
+	 * 
+	 * @param human
+	 * 			The class of the humans to count.
+	 * 
+	 * @return a live counter of the humans of class <code>human</code>.
+	 * 
+	 * @see #count(Class)
+	 */
+	IntSupplier counter(Class <? extends Human> human)
+	{
+		return population.counter(human);
+	}
+	
+	/**
+	 * Returns statistics about the money owned by the people of the world.
+	 * <br><br>
+	 * Humans who died since the last call to {@link #makePeopleLive()} 
+	 * are taken into account until they are buried.
+	 * 
+	 * @return statistics about the money owned by the people of the world.
+	 */
+	public IntSummaryStatistics wealth()
+	{
+		IntSummaryStatistics wealth = new IntSummaryStatistics();
+		
+		for( int slot = 0 ; slot < people.size() ; slot++ )
+			wealth.accept(people.money(slot));
+		
+		return wealth;
+	}
+	
+	/**
+	 * Adds new humans to the population of the world.
+	 * 
+	 * @param newcomers
+	 * 			The humans to add.
+	 */
+	private void inhabit(HumanBatch newcomers)
+	{
+		people.ensureCapacity(people.size() + newcomers.size());
+		
+		for( Human human : newcomers.humans() ) {
+			people.adopt(human, human.status());
+			population.add(human);
+			human.setTroubleListener(this::troubled);
+		}
+	}
+	
+	/**
+	 * Registers a human who has just been inflicted a trouble.
+	 * <br><br>
+	 * The human undergoes its troubles at each upkeep until they are all over:
+	 * it is scheduled on {@link #troublesEnd} for the last upkeep at which it 
+	 * undergoes the trouble, unless it was already scheduled later.
+	 */
+	private void troubled(Entity entity, AttackEffect trouble, int timeRemaining)
+	{
+		if( timeRemaining <= 0 )
+			return;
+		
+		Human human = (Human) entity;
+		int slot = people.slotOf(human.status());
+		
+		if( slot < 0 )
+			return;
+		
+		long lastUpkeep = troublesEnd.now() + timeRemaining - 1;
+		troubled.add(human, slot);
+		
+		if( lastUpkeep > troublesEnd.deadline(slot) )
+			troublesEnd.schedule(slot, lastUpkeep);
+	}
+	
+	/**
+	 * Returns the number of humans undergoing troubles.
+	 * 
+	 * @return the number of humans undergoing troubles.
+	 */
+	public int troubledCount()
+	{
+		return troubled.size();
+	}
+	
+	/**
+	 * Returns statistics about the number of troubled humans visited 
+	 * by each call to {@link #makePeopleLive()}.
+	 * 
+	 * @return statistics about the number of troubled humans per generation.
+	 */
+	public IntSummaryStatistics troubledPerGeneration()
+	{
+		return troubledPerGeneration;
+	}
+	
+	/**
+	 * Returns the cache of the outcomes of the duels fought in this world.
+	 * <br><br>
+	 * Duels and tournaments should be given this cache, so that its statistics
+	 * describe this world only.
+	 * 
+	 * @return the cache of the outcomes of the duels.
+	 */
+	public DuelCache duels()
+	{
+		return duels;
+	}
+	
+	/**
+	 * Makes people undergo their troubles, then buries the ones who died.
+	 * <br><br>
+	 * Only the troubled people undergo their troubles: they are forgotten once the 
+	 * timer wheel expires them, at the upkeep their troubles are over, so that the 
+	 * others cost nothing.
+	 * Likewise, only the people whose life dropped to 0 since the last upkeep are
+	 * buried, in the order in which they are stored. The cost of an upkeep hence
+	 * depends on the number of people affected, not on the size of the population.
+	 * 
+	 * @see #setUpkeepPool(ForkJoinPool)
+	 * @see #troubledPerGeneration()
+	 */
 	public void makePeopleLive()
 	{
-		Iterator <Human> itP = people.iterator();
+		int sufferers = troubled.size();
+		troubledPerGeneration.accept(sufferers);
+		
+		// the shards collect their own dead, so that no list is shared between threads
+		TroubleRound round = new TroubleRound(troubled.humans(), troubled.slots(), 0, sufferers, 
+				upkeepPool == null ? Integer.MAX_VALUE : UPKEEP_GRAIN);
+		int[] fell;
+		people.recordFalls(false);
 		
-		while( itP.hasNext() )
+		try 
 		{
-			Human p = itP.next();
-			p.undergoTroubles();
-			
-			if( ! p.isAlive() ) {
-				itP.remove();
-				bury(p);
-			}
+			fell = upkeepPool == null ? round.compute() : upkeepPool.invoke(round);
 		}
+		finally 
+		{
+			people.recordFalls(true);
+		}
+		
+		troublesEnd.advance(troubled::remove);
+		
+		int[] deadSlots = people.collectFallen(fell);
+		
+		List <Human> dead = new ArrayList<>(deadSlots.length);
+		
+		for( int slot : deadSlots )
+			dead.add(people.owner(slot));
+		
+		// release backward so that freeing a slot only moves people already checked
+		for( int i = deadSlots.length - 1 ; i >= 0 ; i-- ) {
+			troubled.release(deadSlots[i], people.size() - 1);
+			troublesEnd.release(deadSlots[i], people.size() - 1);
+			people.release(deadSlots[i]);
+		}
+		
+		for( Human p : dead )
+			bury(p);
 	}
 	
 	/**
 	 * Called each time a {@code Human} dies.
 	 * 
-	 * At this time, this method has no effect. It's aimed at making the code
-	 * more "aspect aware" by providing a join point ...
+	 * Removes the dead from the population, which keeps the per-class counters 
+	 * up to date. It's also aimed at making the code more "aspect aware" by 
+	 * providing a join point ...
 	 * 
 	 * @param dead
 	 * 			A human that has just died. This method should not be called more 
 	 * 			than once with the same {@code Human}.
 	 */
 	private void bury(Human dead) {
-		// nothing here, just an available joinpoint
+		population.remove(dead);
+		dead.setTroubleListener(null);
 	}
 	
 	@Override
@@ -21,12 +21,17 @@
  ******************************************************************************/
 package fr.kazejiyu.stoneandsaber.world;
 
+import java.util.SplittableRandom;
+
 /**
  * Data class that stores every data required in order to generate a new random {@link World}.
  * <br><br>
  * See {@link World#randomized(WorldSeed)}.
  * <br><br>
  * The class {@link WorldSeedParameters} is a builder that makes creation of a seed easier.
+ * <br><br>
+ * All the randomness of a world derives from the {@link #seed root seed}: two worlds created
+ * from identical seeds evolve identically.
  * 
  * @author <a href="mailto:emmanuel.chebbi@outlook.fr">Emmanuel Chebbi</a>
  */
@@ -51,9 +56,14 @@ public class WorldSeed
 	 * The number of traitors to generate in the new world.
 	 */
 	public final int traitors;
+	
+	/**
+	 * The root seed from which every random stream of the world is derived.
+	 */
+	public final long seed;
 
 	/**
-	 * Creates a new world seed with specified parameters.
+	 * Creates a new world seed with specified parameters and a random root seed.
 	 * 
 	 * @param samurais
 	 * 			The number of samurais to generate in the new world.
@@ -65,10 +75,73 @@ public class WorldSeed
 	 * 			The number of traitors to generate in the new world.
 	 */
 	public WorldSeed(int samurais, int yakuzas, int merchants, int traitors)
+	{
+		this(samurais, yakuzas, merchants, traitors, new SplittableRandom().nextLong());
+	}
+	
+	/**
+	 * Creates a new world seed with specified parameters.
+	 * 
+	 * @param samurais
+	 * 			The number of samurais to generate in the new world.
+	 * @param yakuzas
+	 * 			The number of yakuzas to generate in the new world.
+	 * @param merchants
+	 * 			The number of merchants to generate in the new world.
+	 * @param traitors
+	 * 			The number of traitors to generate in the new world.
+	 * @param seed
+	 * 			The root seed from which every random stream of the world is derived.
+	 */
+	public WorldSeed(int samurais, int yakuzas, int merchants, int traitors, long seed)
 	{
 		this.samurais = samurais;
 		this.yakuzas = yakuzas;
 		this.merchants = merchants;
 		this.traitors = traitors;
+		this.seed = seed;
+	}
+	
+	/**
+	 * Returns a new random stream dedicated to <code>subsystem</code>.
+	 * <br><br>
+	 * The stream only depends on the root seed and on the name of the subsystem: 
+	 * subsystems hence do not influence each other. Code running on several threads
+	 * should {@link SplittableRandom#split() split} the stream rather than share it.
+	 * 
+	 * @param subsystem
+	 * 			The name of the subsystem that will use the stream.
+	 * 
+	 * @return a new random stream.
+	 */
+	public SplittableRandom random(String subsystem)
+	{
+		return new SplittableRandom(mix(seed + mix(subsystem.hashCode())));
+	}
+	
+	/**
+	 * Returns a seed with the same parameters as this one but a different root seed.
+	 * <br><br>
+	 * The derived root seed only depends on this root seed and on <code>index</code>:
+	 * the <i>n</i>-th derivation of a seed is hence always the same.
+	 * 
+	 * @param index
+	 * 			The index of the derivation.
+	 * 
+	 * @return a new seed.
+	 */
+	public WorldSeed derive(int index)
+	{
+		return new WorldSeed(samurais, yakuzas, merchants, traitors, mix(seed + mix(index + 1L)));
+	}
+	
+	/**
+	 * Scrambles the bits of <code>z</code> (see SplitMix64).
+	 */
+	private static long mix(long z)
+	{
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
 	}
 }
@@ -21,10 +21,12 @@
  ******************************************************************************/
 package fr.kazejiyu.stoneandsaber.world;
 
+import java.util.SplittableRandom;
+
 /**
  * A builder to make {@link WorldSeed} creation easier.
  * <br><br>
- * By default, every parameter is set to 0.
+ * By default, every parameter is set to 0 and the root seed is random.
  * 
  * @author <a href="mailto:emmanuel.chebbi@outlook.fr">Emmanuel Chebbi</a>
  */
@@ -34,6 +36,7 @@ public class WorldSeedParameters
 	private int yakuzas = 0;
 	private int merchants = 0;
 	private int traitors = 0;
+	private long seed = new SplittableRandom().nextLong();
 
 	public WorldSeedParameters samurais(int i)
 	{
@@ -59,8 +62,14 @@ public class WorldSeedParameters
 		return this;
 	}
 	
+	public WorldSeedParameters seed(long l)
+	{
+		seed = l;
+		return this;
+	}
+	
 	public WorldSeed toSeed()
 	{
-		return new WorldSeed(samurais, yakuzas, merchants, traitors);
+		return new WorldSeed(samurais, yakuzas, merchants, traitors, seed);
 	}
 }
@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.behaviors;
+
+import java.util.SplittableRandom;
+
+import fr.kazejiyu.stoneandsaber.behaviors.effect.ElementalType;
+import fr.kazejiyu.stoneandsaber.behaviors.weapon.Weapon;
+import fr.kazejiyu.stoneandsaber.behaviors.weapon.WeaponBuilder;
+import fr.kazejiyu.stoneandsaber.human.characters.HumanFactory;
+import fr.kazejiyu.stoneandsaber.human.characters.Merchant;
+import junit.framework.TestCase;
+
+/**
+ * Checks the changes of life resolved by a {@link Status} through its {@link DamageTable}.
+ */
+public class DamageTableTest extends TestCase {
+	
+	private final Status status = new Status();
+	
+	public void testDefaultStatusUndergoesDamagesAsIs() {
+		for( ElementalType type : ElementalType.values() ) {
+			assertEquals(type.name(), -100, status.resolve(type, -100));
+			assertEquals(type.name(), 100, status.resolve(type, 100));
+		}
+	}
+	
+	public void testWeaknessesAndResistances() {
+		status.addWeakness(ElementalType.FIRE);
+		status.addResistance(ElementalType.ICE);
+		
+		assertEquals(-150, status.resolve(ElementalType.FIRE, -100));
+		assertEquals(-50, status.resolve(ElementalType.ICE, -100));
+		assertEquals(150, status.resolve(ElementalType.FIRE, 100));
+		assertEquals(-100, status.resolve(ElementalType.POISON, -100));
+	}
+	
+	public void testUntypedEffectsHaveNoAffinity() {
+		status.addWeakness(ElementalType.NONE);
+		
+		assertEquals(-100, status.resolve(ElementalType.NONE, -100));
+	}
+	
+	public void testArmorOnlyReducesPhysicalAndUntypedDamages() {
+		status.setArmor(2 * Status.DEFAULT_ARMOR);
+		status.addWeakness(ElementalType.PHYSICAL);
+		
+		assertEquals(-50, status.resolve(ElementalType.NONE, -100));
+		assertEquals(-75, status.resolve(ElementalType.PHYSICAL, -100));
+		assertEquals(-100, status.resolve(ElementalType.FIRE, -100));
+		assertEquals(100, status.resolve(ElementalType.NONE, 100));
+	}
+	
+	public void testTheStrengthOfTheTargetDoesNotReduceDamages() {
+		status.setStrength(Status.DEFAULT_STRENGTH / 2);
+		
+		assertEquals(-100, status.resolve(ElementalType.FIRE, -100));
+		assertEquals(-100, status.resolve(ElementalType.PHYSICAL, -100));
+	}
+	
+	public void testTheStrengthOfTheAttackerScalesDamages() {
+		status.addWeakness(ElementalType.FIRE);
+		status.setArmor(2 * Status.DEFAULT_ARMOR);
+		
+		assertEquals(-300, status.resolve(ElementalType.FIRE, -100, 2 * Status.DEFAULT_STRENGTH));
+		assertEquals(-100, status.resolve(ElementalType.PHYSICAL, -100, 2 * Status.DEFAULT_STRENGTH));
+		assertEquals(-25, status.resolve(ElementalType.PHYSICAL, -100, Status.DEFAULT_STRENGTH / 2));
+		assertEquals(0, status.resolve(ElementalType.PHYSICAL, -100, -1));
+	}
+	
+	public void testTheStrengthOfTheAttackerDoesNotScaleHeals() {
+		assertEquals(100, status.resolve(ElementalType.NONE, 100, 2 * Status.DEFAULT_STRENGTH));
+	}
+	
+	public void testWeaponsStrikeWithTheStrengthOfTheirWielder() {
+		Merchant target = new HumanFactory(new SplittableRandom(1)).createMerchant();
+		Weapon weapon = new WeaponBuilder("Burning Stick").injuring(10).burning(10, 1).build();
+		
+		weapon.useOn(target, 3 * Status.DEFAULT_STRENGTH);
+		assertEquals(Status.DEFAULT_LIFE - 30, target.life());
+		
+		target.undergoTroubles();
+		assertEquals(Status.DEFAULT_LIFE - 60, target.life());
+	}
+	
+	public void testTablesAreInternedByArmor() {
+		assertSame(DamageTable.of(150), DamageTable.of(150));
+		assertSame(DamageTable.of(0), DamageTable.of(1));
+		assertNotSame(DamageTable.of(150), DamageTable.of(151));
+	}
+	
+	public void testChangesAreRoundedTowardsZero() {
+		status.setArmor(3 * Status.DEFAULT_ARMOR);
+		
+		assertEquals(-33, status.resolve(ElementalType.PHYSICAL, -100));
+		assertEquals(0, status.resolve(ElementalType.PHYSICAL, -1));
+	}
+	
+	public void testArmorBelowOneIsTakenAsOne() {
+		status.setArmor(0);
+		
+		assertEquals(-100 * Status.DEFAULT_ARMOR, status.resolve(ElementalType.PHYSICAL, -100));
+	}
+	
+	public void testTableFollowsTheArmorWhereverItIsStored() {
+		StatusStore <Object> store = new StatusStore<>();
+		store.adopt("owner", status);
+		
+		status.setArmor(Status.DEFAULT_ARMOR / 2);
+		assertEquals(-200, status.resolve(ElementalType.PHYSICAL, -100));
+		
+		store.release(0);
+		assertEquals(-200, status.resolve(ElementalType.PHYSICAL, -100));
+		
+		status.setArmor(Status.DEFAULT_ARMOR);
+		assertEquals(-100, status.resolve(ElementalType.PHYSICAL, -100));
+	}
+	
+	public void testAlterLifeAppliesTheResolvedChange() {
+		status.addResistance(ElementalType.FIRE);
+		status.alterLife(ElementalType.FIRE, -100);
+		
+		assertEquals(Status.DEFAULT_LIFE - 50, status.life());
+	}
+}
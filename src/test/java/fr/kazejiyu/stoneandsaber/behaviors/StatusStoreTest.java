@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.behaviors;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks the slots, the views and the collection of the fallen of a {@link StatusStore}.
+ */
+public class StatusStoreTest extends TestCase {
+	
+	private final StatusStore <String> store = new StatusStore<>(2);
+	
+	public void testAdoptedStatusReadsAndWritesThroughTheStore() {
+		Status status = new Status(300, 40, 50);
+		status.setMoney(7);
+		
+		int slot = store.adopt("first", status);
+		
+		assertEquals(slot, store.slotOf(status));
+		assertSame(status, store.status(slot));
+		assertEquals("first", store.owner(slot));
+		assertEquals(300, store.life(slot));
+		assertEquals(40, store.strength(slot));
+		assertEquals(50, store.armor(slot));
+		assertEquals(7, store.money(slot));
+		
+		status.setLife(120);
+		status.setMoney(9);
+		
+		assertEquals(120, store.life(slot));
+		assertEquals(9, store.money(slot));
+	}
+	
+	public void testReleasedStatusKeepsItsAttributesAndTheLastOneTakesItsSlot() {
+		Status first = adopt("first", 100);
+		Status second = adopt("second", 200);
+		Status third = adopt("third", 300);
+		
+		store.release(store.slotOf(first));
+		
+		assertEquals(2, store.size());
+		assertEquals(-1, store.slotOf(first));
+		assertEquals(100, first.life());
+		
+		first.setLife(50);
+		assertEquals(50, first.life());
+		
+		assertEquals(0, store.slotOf(third));
+		assertEquals("third", store.owner(0));
+		assertEquals(300, store.life(0));
+		assertEquals(1, store.slotOf(second));
+		
+		third.setLife(30);
+		assertEquals(30, store.life(0));
+	}
+	
+	public void testAdoptingMovesTheStatusFromItsPreviousStore() {
+		StatusStore <String> other = new StatusStore<>();
+		Status status = adopt("first", 100);
+		adopt("second", 200);
+		
+		int slot = other.adopt("first", status);
+		
+		assertEquals(1, store.size());
+		assertEquals(-1, store.slotOf(status));
+		assertEquals(slot, other.slotOf(status));
+		assertEquals(100, other.life(slot));
+		assertEquals("second", store.owner(0));
+	}
+	
+	public void testGrowingKeepsTheAttributes() {
+		Status[] statuses = new Status[100];
+		
+		for( int i = 0 ; i < statuses.length ; i++ )
+			statuses[i] = adopt("#" + i, i + 1);
+		
+		store.ensureCapacity(1000);
+		
+		for( int i = 0 ; i < statuses.length ; i++ ) {
+			assertEquals(i + 1, statuses[i].life());
+			assertEquals("#" + i, store.owner(store.slotOf(statuses[i])));
+		}
+	}
+	
+	public void testFallenAreCollectedOnceInAscendingOrder() {
+		Status[] statuses = new Status[6];
+		
+		for( int i = 0 ; i < statuses.length ; i++ )
+			statuses[i] = adopt("#" + i, 100);
+		
+		statuses[4].setLife(0);
+		statuses[1].setLife(-5);
+		statuses[2].setLife(0);
+		statuses[4].setLife(10);	// healed
+		statuses[4].setLife(0);		// fell again
+		statuses[3].setLife(0);
+		statuses[3].setLife(100);	// healed for good
+		statuses[5].setLife(0);
+		store.release(store.slotOf(statuses[5]));
+		
+		assertTrue(Arrays.equals(new int[] { 1, 2, 4 }, store.collectFallen()));
+		assertEquals(0, store.collectFallen().length);
+	}
+	
+	public void testAdoptingADeadStatusRecordsItsFall() {
+		adopt("alive", 100);
+		adopt("dead", 0);
+		
+		assertTrue(Arrays.equals(new int[] { 1 }, store.collectFallen()));
+	}
+	
+	public void testFallsNotRecordedMustBeHandedToTheCollection() {
+		Status first = adopt("first", 100);
+		Status second = adopt("second", 100);
+		Status third = adopt("third", 100);
+		
+		store.recordFalls(false);
+		first.setLife(0);
+		third.setLife(0);
+		store.recordFalls(true);
+		second.setLife(0);
+		
+		assertTrue(Arrays.equals(new int[] { 1 }, store.collectFallen()));
+		
+		second.setLife(100);
+		second.setLife(0);
+		
+		int[] fallen = store.collectFallen(store.slotOf(third), store.slotOf(first), store.slotOf(third));
+		assertTrue(Arrays.equals(new int[] { 0, 1, 2 }, fallen));
+	}
+	
+	private Status adopt(String owner, int life) {
+		Status status = new Status();
+		status.setLife(life);
+		store.adopt(owner, status);
+		
+		return status;
+	}
+}
@@ -0,0 +1,212 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.behaviors.effect.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import fr.kazejiyu.stoneandsaber.behaviors.effect.AttackAction;
+import fr.kazejiyu.stoneandsaber.behaviors.effect.ElementalType;
+import fr.kazejiyu.stoneandsaber.behaviors.effect.Stacking;
+import fr.kazejiyu.stoneandsaber.human.characters.HumanFactory;
+import fr.kazejiyu.stoneandsaber.human.characters.Merchant;
+import junit.framework.TestCase;
+
+/**
+ * Checks how identical lasting effects stack, according to their {@link Stacking}.
+ */
+public class StacksTest extends TestCase {
+	
+	private final Troubles troubles = new Troubles();
+	
+	private Merchant target;
+	
+	private int life;
+	
+	@Override
+	protected void setUp() {
+		target = new HumanFactory(new SplittableRandom(1)).createMerchant();
+		target.status().setLife(1_000_000);
+		life = target.life();
+	}
+	
+	public void testRefreshDealsASingleStack() {
+		LastingAttackEffect burn = burn(10, 3, Stacking.REFRESH, 1);
+		
+		troubles.inflict(burn);
+		undergo(1);
+		assertEquals(3, troubles.inflict(burn));
+		
+		undergo(3);
+		assertEquals(life - 40, target.life());
+		assertTrue(troubles.isEmpty());
+	}
+	
+	public void testAddDealsEveryStack() {
+		LastingAttackEffect burn = burn(10, 3, Stacking.ADD, Integer.MAX_VALUE);
+		
+		troubles.inflict(burn);
+		undergo(1);
+		troubles.inflict(burn);
+		
+		undergo(2);
+		assertEquals(life - 10 - 2 * 20, target.life());
+		
+		undergo(1);
+		assertEquals(life - 10 - 2 * 20 - 10, target.life());
+		assertTrue(troubles.isEmpty());
+	}
+	
+	public void testCapRefreshesOnceFull() {
+		LastingAttackEffect burn = burn(10, 3, Stacking.CAP, 2);
+		
+		troubles.inflict(burn);
+		troubles.inflict(burn);
+		undergo(2);
+		assertEquals(3, troubles.inflict(burn));
+		
+		// the third hit only refreshes both stacks
+		undergo(3);
+		assertEquals(life - 5 * 20, target.life());
+		assertTrue(troubles.isEmpty());
+	}
+	
+	public void testLongerHitsAreNotShortened() {
+		troubles.inflict(burn(10, 5, Stacking.REFRESH, 1));
+		
+		assertEquals(5, troubles.inflict(burn(10, 2, Stacking.REFRESH, 1)));
+		undergo(5);
+		assertEquals(life - 50, target.life());
+		assertTrue(troubles.isEmpty());
+	}
+	
+	public void testDifferentEffectsOfAnElementAreNotMerged() {
+		troubles.inflict(burn(10, 3, Stacking.REFRESH, 1));
+		troubles.inflict(burn(50, 3, Stacking.REFRESH, 1));
+		assertEquals(2, troubles.size());
+		
+		undergo(3);
+		assertEquals(life - 3 * 10 - 3 * 50, target.life());
+		assertTrue(troubles.isEmpty());
+	}
+	
+	public void testAWeakBurnNeverWeakensAStrongerOne() {
+		Troubles alone = new Troubles();
+		Merchant other = new HumanFactory(new SplittableRandom(1)).createMerchant();
+		other.status().setLife(life);
+		
+		LastingAttackEffect strong = burn(50, 3, Stacking.REFRESH, 1);
+		alone.inflict(strong);
+		troubles.inflict(burn(10, 3, Stacking.REFRESH, 1));
+		troubles.inflict(strong);
+		
+		for( int tick = 0 ; tick < 3 ; tick++ ) {
+			alone.undergoBy(other);
+			troubles.undergoBy(target);
+			assertTrue(target.life() <= other.life());
+		}
+	}
+	
+	public void testCapNeedsAPositiveMaximum() {
+		try {
+			burn(10, 3, Stacking.CAP, 0);
+			fail("A cap of 0 stacks should be refused");
+		}
+		catch( IllegalArgumentException e ) {
+			// expected
+		}
+	}
+	
+	public void testStacksMatchANaiveModel() {
+		SplittableRandom random = new SplittableRandom(3);
+		ElementalType[] types = { ElementalType.FIRE, ElementalType.ICE, ElementalType.POISON };
+		
+		for( int trial = 0 ; trial < 200 ; trial++ ) {
+			Troubles troubles = new Troubles();
+			List <LastingAttackEffect> effects = new ArrayList<>();
+			
+			for( int i = 0 ; i < 5 ; i++ ) {
+				Stacking stacking = Stacking.values()[random.nextInt(Stacking.values().length)];
+				int maxStacks = stacking == Stacking.CAP ? random.nextInt(1, 4) : stacking == Stacking.ADD ? Integer.MAX_VALUE : 1;
+				AttackAction.Type action = random.nextBoolean() ? AttackAction.Type.DECREASE : AttackAction.Type.INCREASE;
+				
+				effects.add(new LastingAttackEffect(new AlterLife(action, random.nextInt(1, 20)), 
+						types[random.nextInt(types.length)], random.nextInt(1, 70), stacking, maxStacks));
+			}
+			
+			// each stack is a pair { delta, ticks remaining }, identical effects share their stacks
+			Map <List<Object>, List<int[]>> model = new LinkedHashMap<>();
+			long expected = target.life();
+			
+			for( int tick = 0 ; tick < 200 ; tick++ ) {
+				for( int hits = random.nextInt(3) ; hits > 0 ; hits-- ) {
+					LastingAttackEffect effect = effects.get(random.nextInt(effects.size()));
+					List <Object> signature = Arrays.asList(effect.getType(), ((AlterLife) effect.getAction()).getDelta(), effect.getStacking(), effect.getMaxStacks());
+					List <int[]> stacks = model.computeIfAbsent(signature, key -> new ArrayList<>());
+					
+					if( stacks.size() < effect.getMaxStacks() )
+						stacks.add(new int[] { ((AlterLife) effect.getAction()).getDelta(), effect.getTimeDuration() });
+					else
+						for( int[] stack : stacks )
+							stack[1] = Math.max(stack[1], effect.getTimeDuration());
+					
+					int longest = 0;
+					for( int[] stack : stacks )
+						longest = Math.max(longest, stack[1]);
+					
+					assertEquals(longest, troubles.inflict(effect));
+				}
+				
+				troubles.undergoBy(target);
+				
+				for( Iterator <List<int[]>> it = model.values().iterator() ; it.hasNext() ; ) {
+					List <int[]> stacks = it.next();
+					
+					for( int[] stack : stacks )
+						expected += stack[0];
+					
+					stacks.removeIf(stack -> --stack[1] <= 0);
+					
+					if( stacks.isEmpty() )
+						it.remove();
+				}
+				
+				assertEquals(expected, target.life());
+				assertEquals(model.isEmpty(), troubles.isEmpty());
+			}
+		}
+	}
+	
+	private void undergo(int ticks) {
+		for( int i = 0 ; i < ticks ; i++ )
+			troubles.undergoBy(target);
+	}
+	
+	private static LastingAttackEffect burn(int amount, int duration, Stacking stacking, int maxStacks) {
+		return new LastingAttackEffect(new AlterLife(AttackAction.Type.DECREASE, amount), ElementalType.FIRE, duration, stacking, maxStacks);
+	}
+}
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.behaviors.effect.impl;
+
+import java.util.SplittableRandom;
+
+import fr.kazejiyu.stoneandsaber.behaviors.effect.AttackAction;
+import fr.kazejiyu.stoneandsaber.behaviors.effect.AttackEffect;
+import fr.kazejiyu.stoneandsaber.behaviors.effect.ElementalType;
+import fr.kazejiyu.stoneandsaber.human.characters.HumanFactory;
+import fr.kazejiyu.stoneandsaber.human.characters.Merchant;
+import junit.framework.TestCase;
+
+/**
+ * Checks how {@link Troubles} keeps the effects undergone apart and counts them down.
+ */
+public class TroublesTest extends TestCase {
+	
+	private final Troubles troubles = new Troubles();
+	
+	private Merchant target;
+	
+	@Override
+	protected void setUp() {
+		target = new HumanFactory(new SplittableRandom(1)).createMerchant();
+	}
+	
+	public void testNewTroublesAreEmpty() {
+		int life = target.life();
+		
+		assertTrue(troubles.isEmpty());
+		assertEquals(0, troubles.size());
+		assertFalse(troubles.undergoBy(target));
+		assertEquals(life, target.life());
+	}
+	
+	public void testEffectsKeptApartGrowBeyondASingleSlot() {
+		int life = target.life();
+		
+		troubles.inflict(injuring(1));
+		troubles.inflict(injuring(2));
+		troubles.inflict(injuring(4));
+		
+		assertEquals(3, troubles.size());
+		assertFalse(troubles.undergoBy(target));
+		assertEquals(life - 7, target.life());
+		assertTrue(troubles.isEmpty());
+	}
+	
+	public void testEffectsEndInAnyOrder() {
+		int life = target.life();
+		
+		troubles.inflict(lasting(1, 1));
+		troubles.inflict(lasting(10, 3));
+		troubles.inflict(lasting(100, 2));
+		
+		assertTrue(troubles.undergoBy(target));
+		assertEquals(life - 111, target.life());
+		assertEquals(2, troubles.size());
+		
+		assertTrue(troubles.undergoBy(target));
+		assertEquals(life - 221, target.life());
+		assertEquals(1, troubles.size());
+		
+		assertFalse(troubles.undergoBy(target));
+		assertEquals(life - 231, target.life());
+		assertTrue(troubles.isEmpty());
+	}
+	
+	public void testInflictingAgainRestartsTheCountdown() {
+		AttackEffect effect = lasting(1, 3);
+		
+		assertEquals(3, troubles.inflict(effect));
+		troubles.undergoBy(target);
+		troubles.undergoBy(target);
+		
+		assertEquals(3, troubles.inflict(effect));
+		assertEquals(1, troubles.size());
+		
+		assertTrue(troubles.undergoBy(target));
+		assertTrue(troubles.undergoBy(target));
+		assertFalse(troubles.undergoBy(target));
+	}
+	
+	public void testTroublesAreUndergoneInTheOrderTheyWereInflicted() {
+		target.status().setLife(30);
+		
+		troubles.inflict(new LastingAttackEffect(new AlterLife(AttackAction.Type.DECREASE, 50), ElementalType.FIRE, 3));
+		troubles.inflict(new LastingAttackEffect(new AlterLife(AttackAction.Type.INCREASE, 100), 3) {
+			// kept apart
+		});
+		
+		// burnt to 0 first, then healed
+		troubles.undergoBy(target);
+		assertEquals(100, target.life());
+	}
+	
+	public void testElementsAreStackedApartFromOtherEffects() {
+		troubles.inflict(new LastingAttackEffect(new AlterLife(AttackAction.Type.DECREASE, 1), ElementalType.FIRE, 3));
+		troubles.inflict(new LastingAttackEffect(new AlterLife(AttackAction.Type.DECREASE, 1), ElementalType.FIRE, 3));
+		troubles.inflict(new LastingAttackEffect(new AlterLife(AttackAction.Type.DECREASE, 1), ElementalType.ICE, 3));
+		troubles.inflict(injuring(1));
+		
+		// two elements and one effect kept apart
+		assertEquals(3, troubles.size());
+	}
+	
+	private static AttackEffect injuring(int amount) {
+		return new InstantaneousAttackEffect(new AlterLife(AttackAction.Type.DECREASE, amount));
+	}
+	
+	/**
+	 * Returns a lasting effect that is not merged with the others, since it is not a plain {@link LastingAttackEffect}.
+	 */
+	private static AttackEffect lasting(int amount, int duration) {
+		return new LastingAttackEffect(new AlterLife(AttackAction.Type.DECREASE, amount), duration) {
+			// kept apart
+		};
+	}
+}
@@ -0,0 +1,236 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.event;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks the ordering, the overflow policies and the failure handling of {@link AsyncSubscription}.
+ */
+public class AsyncSubscriptionTest extends TestCase
+{
+	/**
+	 * How long a test waits for the events to be delivered.
+	 */
+	private static final long TIMEOUT_MILLIS = 10000;
+	
+	private final EventBus <Object> bus = new EventBus<>();
+	
+	private ExecutorService executor;
+	
+	private PrintStream err;
+	
+	@Override
+	protected void setUp()
+	{
+		// failures are reported on the error stream
+		err = System.err;
+		System.setErr(new PrintStream(new ByteArrayOutputStream()));
+	}
+	
+	@Override
+	protected void tearDown() throws InterruptedException
+	{
+		System.setErr(err);
+		
+		if( executor != null )
+		{
+			executor.shutdownNow();
+			executor.awaitTermination(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+		}
+	}
+	
+	public void testEventsAreDeliveredOneAtATimeInTheirOrderOfArrival() throws InterruptedException
+	{
+		executor = Executors.newFixedThreadPool(4);
+		List <Object> received = Collections.synchronizedList(new ArrayList<>());
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger overlaps = new AtomicInteger();
+		
+		AsyncSubscription <Object> subscription = bus.registerAsync(Integer.class, event -> {
+			if( running.incrementAndGet() > 1 )
+				overlaps.incrementAndGet();
+			
+			received.add(event);
+			running.decrementAndGet();
+		}, executor, 16, OverflowPolicy.BLOCK);
+		
+		for( int i = 0 ; i < 10000 ; i++ )
+			bus.post(i);
+		
+		await(() -> subscription.delivered() == 10000);
+		
+		assertEquals(0, overlaps.get());
+		assertEquals(0, subscription.dropped());
+		assertTrue(subscription.maxLag() <= 16);
+		
+		for( int i = 0 ; i < 10000 ; i++ )
+			assertEquals(i, received.get(i));
+	}
+	
+	public void testSubscriberPostingToItselfDoesNotWaitForItself() throws InterruptedException
+	{
+		executor = Executors.newSingleThreadExecutor();
+		List <Object> received = Collections.synchronizedList(new ArrayList<>());
+		
+		AsyncSubscription <Object> subscription = bus.registerAsync(Object.class, event -> {
+			received.add(event);
+			
+			if( "burst".equals(event) )
+				for( int i = 0 ; i < 5 ; i++ )
+					bus.post(i);
+		}, executor, 1, OverflowPolicy.BLOCK);
+		
+		bus.post("burst");
+		
+		await(() -> subscription.delivered() + subscription.dropped() == 6);
+		
+		assertEquals(4, subscription.dropped());
+		assertEquals(2, received.size());
+		assertEquals(4, received.get(1));
+	}
+	
+	public void testFailingCallbackDoesNotStopTheDelivery() throws InterruptedException
+	{
+		executor = Executors.newSingleThreadExecutor();
+		List <Object> received = Collections.synchronizedList(new ArrayList<>());
+		
+		AsyncSubscription <Object> subscription = bus.registerAsync(Integer.class, event -> {
+			if( (Integer) event == 0 )
+				throw new IllegalStateException("expected");
+			received.add(event);
+		}, executor, 8, OverflowPolicy.BLOCK);
+		
+		for( int i = 0 ; i < 5 ; i++ )
+			bus.post(i);
+		
+		await(() -> subscription.delivered() == 5);
+		
+		assertEquals(4, received.size());
+	}
+	
+	public void testErrorInCallbackDoesNotStopTheDelivery() throws InterruptedException
+	{
+		// the error kills the thread delivering it; keep it quiet
+		executor = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable);
+			thread.setUncaughtExceptionHandler((t, e) -> {});
+			return thread;
+		});
+		List <Object> received = Collections.synchronizedList(new ArrayList<>());
+		
+		AsyncSubscription <Object> subscription = bus.registerAsync(Integer.class, event -> {
+			if( (Integer) event == 0 )
+				throw new ExpectedError();
+			received.add(event);
+		}, executor, 8, OverflowPolicy.BLOCK);
+		
+		for( int i = 0 ; i < 5 ; i++ )
+			bus.post(i);
+		
+		await(() -> subscription.delivered() == 4);
+		
+		bus.post(5);
+		
+		await(() -> subscription.delivered() == 5);
+		assertEquals(5, received.size());
+		assertEquals(0, subscription.lag());
+	}
+	
+	public void testDropOldestKeepsTheLatestEvents() throws InterruptedException
+	{
+		executor = Executors.newSingleThreadExecutor();
+		Object gate = new Object();
+		List <Object> received = Collections.synchronizedList(new ArrayList<>());
+		
+		AsyncSubscription <Object> subscription;
+		
+		synchronized( gate ) {
+			subscription = bus.registerAsync(Integer.class, event -> {
+				synchronized( gate ) {
+					received.add(event);
+				}
+			}, executor, 2, OverflowPolicy.DROP_OLDEST);
+			
+			// the first event is taken by the delivery task, which waits for the gate
+			bus.post(0);
+			await(() -> subscription.lag() == 0);
+			
+			for( int i = 1 ; i <= 5 ; i++ )
+				bus.post(i);
+		}
+		
+		await(() -> subscription.delivered() == 3);
+		
+		assertEquals(3, subscription.dropped());
+		assertEquals(4, received.get(1));
+		assertEquals(5, received.get(2));
+	}
+	
+	public void testUnsubscribedSubscriptionIgnoresEvents() throws InterruptedException
+	{
+		executor = Executors.newSingleThreadExecutor();
+		AsyncSubscription <Object> subscription = bus.registerAsync(Integer.class, event -> {}, executor, 4, OverflowPolicy.BLOCK);
+		
+		subscription.unsubscribe();
+		bus.post(1);
+		
+		assertTrue(subscription.isUnsubscribed());
+		assertEquals(0, subscription.lag());
+		assertEquals(0, subscription.delivered());
+	}
+	
+	/**
+	 * Waits until <code>condition</code> holds, failing if it takes too long.
+	 */
+	private static void await(BooleanSupplier condition) throws InterruptedException
+	{
+		long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+		
+		while( !condition.getAsBoolean() )
+		{
+			if( System.currentTimeMillis() > deadline )
+				fail("The events have not been delivered in time");
+			
+			Thread.sleep(1);
+		}
+	}
+	
+	/**
+	 * A failure that escapes the callback.
+	 */
+	private static final class ExpectedError extends Error
+	{
+		private static final long serialVersionUID = 1L;
+	}
+}
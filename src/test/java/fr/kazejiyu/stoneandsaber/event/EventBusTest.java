@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.event;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import rx.Subscription;
+import junit.framework.TestCase;
+
+/**
+ * Checks that an {@link EventBus} dispatches each event to the subscribers of its class hierarchy.
+ */
+public class EventBusTest extends TestCase
+{
+	private final EventBus <Object> bus = new EventBus<>();
+	
+	private final List <String> calls = new ArrayList<>();
+	
+	public void testEventsReachTheSubscribersOfTheirSupertypesInOrderOfRegistration()
+	{
+		bus.register(Object.class, event -> calls.add("object " + event));
+		bus.register(Integer.class, event -> calls.add("integer " + event));
+		bus.register(String.class, event -> calls.add("string " + event));
+		bus.register(Number.class, event -> calls.add("number " + event));
+		bus.register(Comparable.class, event -> calls.add("comparable " + event));
+		
+		bus.post(1);
+		bus.post(2.5);
+		
+		assertEquals(Arrays.asList(
+				"object 1", "integer 1", "number 1", "comparable 1",
+				"object 2.5", "number 2.5", "comparable 2.5"
+		), calls);
+	}
+	
+	public void testRegistrationAfterAPostIsTakenIntoAccount()
+	{
+		bus.register(Integer.class, event -> calls.add("first " + event));
+		bus.post(1);
+		
+		bus.register(Number.class, event -> calls.add("second " + event));
+		bus.post(2);
+		
+		assertEquals(Arrays.asList("first 1", "first 2", "second 2"), calls);
+	}
+	
+	public void testUnsubscribedCallbackIsNoLongerCalled()
+	{
+		Subscription first = bus.register(Integer.class, event -> calls.add("first " + event));
+		bus.register(Integer.class, event -> calls.add("second " + event));
+		bus.post(1);
+		
+		first.unsubscribe();
+		bus.post(2);
+		
+		first.unsubscribe();
+		bus.post(3);
+		
+		assertEquals(Arrays.asList("first 1", "second 1", "second 2", "second 3"), calls);
+	}
+	
+	public void testEventsWithoutSubscribersAndNullEventsAreIgnored()
+	{
+		bus.register(String.class, event -> calls.add("string " + event));
+		
+		bus.post(1);
+		bus.post(null);
+		
+		assertTrue(calls.isEmpty());
+	}
+	
+	public void testShardsSplitTheSubscribersOnceAndForAll()
+	{
+		EventBus <Object> sharded = new EventBus <Object>() {
+			@Override
+			public void post(Object event)
+			{
+				for( int shard = 0 ; shard < 2 ; shard++ )
+				{
+					calls.add("shard " + shard);
+					dispatch(event, shard, 2);
+				}
+			}
+		};
+		
+		for( int i = 0 ; i < 3 ; i++ )
+		{
+			int subscriber = i;
+			sharded.register(Object.class, event -> calls.add("subscriber " + subscriber));
+		}
+		sharded.post("event");
+		
+		assertEquals(Arrays.asList("shard 0", "subscriber 0", "subscriber 2", "shard 1", "subscriber 1"), calls);
+	}
+}
@@ -0,0 +1,306 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.event;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks the ordering, the concurrency and the failure handling of {@link RingBufferEventBus}.
+ */
+public class RingBufferEventBusTest extends TestCase
+{
+	/**
+	 * How long a test waits for a thread that should not be stuck.
+	 */
+	private static final long TIMEOUT_MILLIS = 10000;
+	
+	public void testDeliversTheEventsInTheirOrderOfPosting() throws Exception
+	{
+		RingBufferEventBus <Object> bus = new RingBufferEventBus<>(8);
+		List <Object> received = new ArrayList<>();
+		bus.register(Integer.class, received::add);
+		
+		for( int i = 0 ; i < 1000 ; i++ )
+			bus.post(i);
+		
+		bus.close();
+		
+		assertEquals(1000, received.size());
+		
+		for( int i = 0 ; i < 1000 ; i++ )
+			assertEquals(i, received.get(i));
+	}
+	
+	public void testEachSubscriberReceivesTheEventsOfEachProducerInOrder() throws Exception
+	{
+		final int producers = 4;
+		final int events = 20000;
+		
+		RingBufferEventBus <Object> bus = new RingBufferEventBus<>(64, WaitStrategy.blocking(), 3);
+		List <List<Object>> subscribers = new ArrayList<>();
+		
+		for( int s = 0 ; s < 5 ; s++ )
+		{
+			List <Object> received = new ArrayList<>();
+			subscribers.add(received);
+			bus.register(Integer.class, received::add);
+		}
+		
+		List <Thread> threads = new ArrayList<>();
+		
+		for( int p = 0 ; p < producers ; p++ )
+		{
+			int producer = p;
+			threads.add(new Thread(() -> {
+				for( int i = 0 ; i < events ; i++ )
+					bus.post(producer * events + i);
+			}));
+		}
+		
+		for( Thread thread : threads )
+			thread.start();
+		
+		for( Thread thread : threads )
+			join(thread);
+		
+		bus.close();
+		
+		for( List <Object> received : subscribers )
+		{
+			assertEquals(producers * events, received.size());
+			
+			int[] last = new int[producers];
+			
+			for( Object event : received )
+			{
+				int value = (Integer) event;
+				int producer = value / events;
+				
+				assertEquals(last[producer]++, value % events);
+			}
+		}
+	}
+	
+	public void testSubscribersOfDifferentConsumersAreCalledConcurrently() throws Exception
+	{
+		RingBufferEventBus <Object> bus = new RingBufferEventBus<>(8, WaitStrategy.blocking(), 2);
+		CountDownLatch both = new CountDownLatch(2);
+		AtomicInteger met = new AtomicInteger();
+		
+		for( int s = 0 ; s < 2 ; s++ )
+		{
+			bus.register(String.class, event -> {
+				both.countDown();
+				
+				try {
+					if( both.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS) )
+						met.incrementAndGet();
+				}
+				catch( InterruptedException e ) {
+					Thread.currentThread().interrupt();
+				}
+			});
+		}
+		
+		bus.post("meet");
+		bus.close();
+		
+		assertEquals(2, met.get());
+	}
+	
+	public void testConsumerPostingIntoAFullBufferFailsInsteadOfWaitingForItself() throws Exception
+	{
+		RingBufferEventBus <Object> bus = new RingBufferEventBus<>(2);
+		List <Object> received = Collections.synchronizedList(new ArrayList<>());
+		AtomicInteger refused = new AtomicInteger();
+		
+		bus.register(Object.class, event -> {
+			received.add(event);
+			
+			if( "burst".equals(event) )
+			{
+				for( int i = 0 ; i < 10 ; i++ )
+				{
+					try {
+						bus.post(i);
+					}
+					catch( IllegalStateException e ) {
+						refused.incrementAndGet();
+					}
+				}
+			}
+		});
+		
+		bus.post("burst");
+		close(bus);
+		
+		assertEquals(1 + 10 - refused.get(), received.size());
+		assertTrue(refused.get() > 0);
+	}
+	
+	public void testWaitingProducerIsReleasedWhenTheConsumerDies() throws Exception
+	{
+		RingBufferEventBus <Object> bus = new RingBufferEventBus<>(2);
+		CountDownLatch blocked = new CountDownLatch(1);
+		
+		bus.register(Object.class, event -> {
+			try {
+				blocked.await();
+			}
+			catch( InterruptedException e ) {
+				Thread.currentThread().interrupt();
+			}
+			throw new ExpectedError();
+		});
+		
+		AtomicReference <Throwable> failure = new AtomicReference<>();
+		
+		Thread producer = new Thread(() -> {
+			try {
+				for( int i = 0 ; i < 10 ; i++ )
+					bus.post(i);
+			}
+			catch( IllegalStateException e ) {
+				failure.set(e);
+			}
+		});
+		
+		Thread.UncaughtExceptionHandler handler = Thread.getDefaultUncaughtExceptionHandler();
+		Thread.setDefaultUncaughtExceptionHandler((thread, e) -> {});
+		
+		try {
+			producer.start();
+			blocked.countDown();
+			join(producer);
+		}
+		finally {
+			Thread.setDefaultUncaughtExceptionHandler(handler);
+		}
+		
+		assertNotNull(failure.get());
+		
+		try {
+			bus.post("after");
+			fail("A halted bus should refuse new events");
+		}
+		catch( IllegalStateException e ) {
+			// expected
+		}
+	}
+	
+	public void testClosedBusRefusesEvents() throws Exception
+	{
+		RingBufferEventBus <Object> bus = new RingBufferEventBus<>(4);
+		bus.close();
+		
+		try {
+			bus.post("late");
+			fail("A closed bus should refuse new events");
+		}
+		catch( IllegalStateException e ) {
+			// expected
+		}
+	}
+	
+	public void testFailingSubscriberDoesNotStopTheDelivery() throws Exception
+	{
+		RingBufferEventBus <Object> bus = new RingBufferEventBus<>(4);
+		List <Object> received = new ArrayList<>();
+		
+		bus.register(Integer.class, event -> {
+			if( (Integer) event == 0 )
+				throw new IllegalArgumentException("expected");
+			received.add(event);
+		});
+		
+		PrintStream err = System.err;
+		System.setErr(new PrintStream(new ByteArrayOutputStream()));
+		
+		try {
+			for( int i = 0 ; i < 3 ; i++ )
+				bus.post(i);
+			bus.close();
+		}
+		finally {
+			System.setErr(err);
+		}
+		
+		assertEquals(2, received.size());
+	}
+	
+	public void testCapacityMustBeAPowerOfTwo()
+	{
+		try {
+			new RingBufferEventBus<>(3);
+			fail("A capacity that is not a power of two should be refused");
+		}
+		catch( IllegalArgumentException e ) {
+			// expected
+		}
+	}
+	
+	/**
+	 * Closes <code>bus</code>, failing if it takes too long.
+	 */
+	private static void close(RingBufferEventBus <?> bus) throws InterruptedException
+	{
+		Thread closing = new Thread(() -> {
+			try {
+				bus.close();
+			}
+			catch( InterruptedException e ) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		closing.start();
+		join(closing);
+	}
+	
+	/**
+	 * Waits for <code>thread</code> to end, failing if it takes too long.
+	 */
+	private static void join(Thread thread) throws InterruptedException
+	{
+		thread.join(TIMEOUT_MILLIS);
+		
+		if( thread.isAlive() )
+			fail(thread.getName() + " is stuck");
+	}
+	
+	/**
+	 * A failure that kills the consumer.
+	 */
+	private static final class ExpectedError extends Error
+	{
+		private static final long serialVersionUID = 1L;
+	}
+}
@@ -0,0 +1,336 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.human.characters;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import fr.kazejiyu.stoneandsaber.behaviors.effect.ElementalType;
+import fr.kazejiyu.stoneandsaber.behaviors.effect.Stacking;
+import fr.kazejiyu.stoneandsaber.behaviors.weapon.Weapon;
+import fr.kazejiyu.stoneandsaber.behaviors.weapon.WeaponBuilder;
+import fr.kazejiyu.stoneandsaber.human.kingdom.Kingdom;
+import fr.kazejiyu.stoneandsaber.world.World;
+import fr.kazejiyu.stoneandsaber.world.WorldSeedParameters;
+import junit.framework.TestCase;
+
+/**
+ * Checks that {@link DuelCache} replays the simulated duels faithfully, 
+ * and its eviction, statistics and thread-safety.
+ */
+public class DuelCacheTest extends TestCase
+{
+	private final HumanFactory factory = new HumanFactory(new SplittableRandom(1));
+	
+	private final Lord lord = new Lord("Lord", new Kingdom());
+	
+	private PrintStream out;
+	
+	@Override
+	protected void setUp()
+	{
+		// the duelists comment every blow
+		out = System.out;
+		System.setOut(new PrintStream(new OutputStream() 
+		{
+			@Override
+			public void write(int b)
+			{
+				// muted
+			}
+		}));
+	}
+	
+	@Override
+	protected void tearDown()
+	{
+		System.setOut(out);
+	}
+	
+	public void testReplayedDuelsMatchSimulatedOnes()
+	{
+		DuelCache cache = new DuelCache(8);
+		
+		fight(torch(), sword(), 400, 300, cache);
+		Samurai[] replayed = fight(torch(), sword(), 400, 300, cache);
+		Samurai[] simulated = fight(torch(), sword(), 400, 300, null);
+		
+		assertEquals(1, cache.hits());
+		assertEquals(1, cache.misses());
+		assertSameState(simulated, replayed);
+	}
+	
+	public void testCachedFightsMatchSimulatedOnes()
+	{
+		SplittableRandom random = new SplittableRandom(5);
+		DuelCache cache = new DuelCache(64);
+		Weapon[] weapons = { torch(), sword(), new WeaponBuilder("Inferno").injuring(20).burning(30, 4, Stacking.ADD, Integer.MAX_VALUE).build(),
+							 new WeaponBuilder("Ember").burning(5, 2, Stacking.CAP, 2).build() };
+		
+		for( int duel = 0 ; duel < 500 ; duel++ )
+		{
+			Weapon challengerWeapon = weapons[random.nextInt(weapons.length)];
+			Weapon opponentWeapon = weapons[random.nextInt(weapons.length)];
+			int challengerLife = 100 * random.nextInt(1, 4);
+			int opponentLife = 100 * random.nextInt(1, 4);
+			int maxRounds = random.nextInt(1, 6);
+			boolean troubled = random.nextBoolean();
+			
+			Samurai[] simulated = { duelist(challengerWeapon, challengerLife), duelist(opponentWeapon, opponentLife) };
+			Samurai[] cached = { duelist(challengerWeapon, challengerLife), duelist(opponentWeapon, opponentLife) };
+			
+			if( troubled )
+			{
+				weapons[3].useOn(simulated[1]);
+				weapons[3].useOn(cached[1]);
+			}
+			
+			int expected = DuelResolver.fight(simulated[0], simulated[1], maxRounds, null);
+			int actual = DuelResolver.fight(cached[0], cached[1], maxRounds, cache);
+			
+			assertEquals("duel #" + duel, expected, actual);
+			assertSameState(simulated, cached);
+			
+			// the troubles left must go on alike
+			for( Samurai[] duelists : new Samurai[][] { simulated, cached } )
+			{
+				duelists[0].undergoTroubles();
+				duelists[1].undergoTroubles();
+			}
+			assertSameState(simulated, cached);
+		}
+		assertTrue(cache.hits() > 0);
+	}
+	
+	public void testPendingTroublesArePartOfTheMatchup()
+	{
+		DuelCache cache = new DuelCache(8);
+		Samurai[] fresh = { duelist(torch(), 400), duelist(sword(), 300) };
+		Samurai[] burnt = { duelist(torch(), 400), duelist(sword(), 300) };
+		torch().useOn(burnt[1]);
+		
+		DuelResolver.fight(fresh[0], fresh[1], 1000, cache);
+		DuelResolver.fight(burnt[0], burnt[1], 1000, cache);
+		
+		assertEquals(0, cache.hits());
+		assertEquals(2, cache.size());
+	}
+	
+	public void testMatchupsDifferByWeaponsStatusesAndRounds()
+	{
+		DuelCache cache = new DuelCache(8);
+		
+		fight(torch(), sword(), 100, 100, cache);
+		fight(sword(), torch(), 100, 100, cache);
+		fight(torch(), sword(), 100, 101, cache);
+		fight(new WeaponBuilder("Torch").burning(11, 3).build(), sword(), 100, 100, cache);
+		DuelResolver.fight(duelist(torch(), 100), duelist(sword(), 100), 999, cache);
+		
+		Samurai weak = duelist(sword(), 100);
+		weak.status().addWeakness(ElementalType.FIRE);
+		DuelResolver.fight(duelist(torch(), 100), weak, 1000, cache);
+		
+		Samurai strong = duelist(torch(), 100);
+		strong.status().setStrength(200);
+		DuelResolver.fight(strong, duelist(sword(), 100), 1000, cache);
+		
+		assertEquals(0, cache.hits());
+		assertEquals(7, cache.size());
+	}
+	
+	public void testAnalyticDuelsAreNotCached()
+	{
+		DuelCache cache = new DuelCache(8);
+		
+		fight(sword(), sword(), 100, 100, cache);
+		fight(sword(), sword(), 100, 100, cache);
+		
+		assertEquals(0, cache.hits() + cache.misses());
+		assertEquals(0, cache.size());
+	}
+	
+	public void testReplayNotifiesTheTroubleListener()
+	{
+		DuelCache cache = new DuelCache(8);
+		fight(torch(), sword(), 1000, 1000, cache);
+		
+		Samurai challenger = duelist(torch(), 1000);
+		Samurai opponent = duelist(sword(), 1000);
+		List <Integer> notified = new ArrayList<>();
+		opponent.setTroubleListener((entity, trouble, timeRemaining) -> notified.add(timeRemaining));
+		
+		DuelResolver.fight(challenger, opponent, 1000, cache);
+		
+		assertEquals(1, cache.hits());
+		assertTrue(opponent.hasTroubles());
+		assertEquals(1, notified.size());
+	}
+	
+	public void testEvictsTheLeastRecentlyUsedOutcome()
+	{
+		DuelCache cache = new DuelCache(2);
+		
+		fight(torch(), sword(), 100, 100, cache);	// A
+		fight(torch(), sword(), 200, 200, cache);	// B
+		fight(torch(), sword(), 100, 100, cache);	// A, now more recent than B
+		fight(torch(), sword(), 300, 300, cache);	// C evicts B
+		
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.evictions());
+		assertEquals(1, cache.hits());
+		assertEquals(3, cache.misses());
+		
+		fight(torch(), sword(), 100, 100, cache);	// A is still there
+		assertEquals(2, cache.hits());
+		
+		fight(torch(), sword(), 200, 200, cache);	// B is not
+		assertEquals(4, cache.misses());
+		assertEquals(2, cache.evictions());
+	}
+	
+	public void testClearForgetsOutcomesAndStatistics()
+	{
+		DuelCache cache = new DuelCache(1);
+		
+		fight(torch(), sword(), 100, 100, cache);
+		fight(torch(), sword(), 200, 200, cache);
+		cache.clear();
+		
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.hits());
+		assertEquals(0, cache.misses());
+		assertEquals(0, cache.evictions());
+		assertEquals(0.0, cache.hitRate(), 0.0);
+	}
+	
+	public void testCapacityMustBeStrictlyPositive()
+	{
+		try 
+		{
+			new DuelCache(0);
+			fail("A cache without capacity should be refused");
+		}
+		catch( IllegalArgumentException e ) 
+		{
+			// expected
+		}
+	}
+	
+	public void testConcurrentFightsAreAllCounted() throws Exception
+	{
+		final DuelCache cache = new DuelCache(16);
+		final int fights = 2000;
+		
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List <Callable<Void>> tasks = new ArrayList<>();
+		
+		for( int t = 0 ; t < 4 ; t++ )
+		{
+			tasks.add(() -> {
+				HumanFactory humans = new HumanFactory(new SplittableRandom(2));
+				
+				for( int i = 0 ; i < fights ; i++ )
+				{
+					int life = 100 + i % 32;
+					Samurai challenger = humans.createSamurai(lord);
+					Samurai opponent = humans.createSamurai(lord);
+					challenger.setWeapon(torch());
+					opponent.setWeapon(sword());
+					challenger.status().setLife(life);
+					opponent.status().setLife(life);
+					
+					DuelResolver.fight(challenger, opponent, 1000, cache);
+				}
+				return null;
+			});
+		}
+		
+		try 
+		{
+			for( Future <Void> result : executor.invokeAll(tasks) )
+				result.get();
+		}
+		finally 
+		{
+			executor.shutdownNow();
+		}
+		
+		assertEquals(4 * fights, cache.hits() + cache.misses());
+		assertTrue(cache.size() <= cache.capacity());
+	}
+	
+	public void testEachWorldHasItsOwnCache()
+	{
+		WorldSeedParameters parameters = new WorldSeedParameters().samurais(1).yakuzas(1).merchants(0).traitors(0).seed(3);
+		
+		World first = World.randomized(parameters.toSeed());
+		World second = World.randomized(parameters.toSeed());
+		
+		assertNotSame(first.duels(), second.duels());
+	}
+	
+	private Samurai[] fight(Weapon challengerWeapon, Weapon opponentWeapon, int challengerLife, int opponentLife, DuelCache cache)
+	{
+		Samurai challenger = duelist(challengerWeapon, challengerLife);
+		Samurai opponent = duelist(opponentWeapon, opponentLife);
+		
+		DuelResolver.fight(challenger, opponent, 1000, cache);
+		
+		return new Samurai[] { challenger, opponent };
+	}
+	
+	private Samurai duelist(Weapon weapon, int life)
+	{
+		Samurai samurai = factory.createSamurai(lord);
+		samurai.setWeapon(weapon);
+		samurai.status().setLife(life);
+		
+		return samurai;
+	}
+	
+	private static void assertSameState(Samurai[] expected, Samurai[] actual)
+	{
+		for( int i = 0 ; i < expected.length ; i++ )
+		{
+			assertEquals(expected[i].life(), actual[i].life());
+			assertEquals(expected[i].hasTroubles(), actual[i].hasTroubles());
+			assertEquals(expected[i].copyTroubles(), actual[i].copyTroubles());
+		}
+	}
+	
+	private static Weapon torch()
+	{
+		return new WeaponBuilder("Torch").burning(10, 3).build();
+	}
+	
+	private static Weapon sword()
+	{
+		return new WeaponBuilder("Sword").injuring(30).build();
+	}
+}
@@ -0,0 +1,188 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.human.characters;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.SplittableRandom;
+
+import fr.kazejiyu.stoneandsaber.behaviors.effect.AttackAction;
+import fr.kazejiyu.stoneandsaber.behaviors.effect.ElementalType;
+import fr.kazejiyu.stoneandsaber.behaviors.effect.impl.AlterLife;
+import fr.kazejiyu.stoneandsaber.behaviors.effect.impl.InstantaneousAttackEffect;
+import fr.kazejiyu.stoneandsaber.behaviors.weapon.Weapon;
+import fr.kazejiyu.stoneandsaber.behaviors.weapon.WeaponBuilder;
+import fr.kazejiyu.stoneandsaber.human.kingdom.Kingdom;
+import junit.framework.TestCase;
+
+/**
+ * Checks that the duels resolved analytically end as if they were simulated round by round.
+ */
+public class DuelResolverTest extends TestCase
+{
+	private final HumanFactory factory = new HumanFactory(new SplittableRandom(1));
+	
+	private final Lord lord = new Lord("Lord", new Kingdom());
+	
+	private PrintStream out;
+	
+	@Override
+	protected void setUp()
+	{
+		// the duelists comment every blow
+		out = System.out;
+		System.setOut(new PrintStream(new OutputStream() 
+		{
+			@Override
+			public void write(int b)
+			{
+				// muted
+			}
+		}));
+	}
+	
+	@Override
+	protected void tearDown()
+	{
+		System.setOut(out);
+	}
+	
+	public void testAnalyticFightsMatchSimulatedOnes()
+	{
+		SplittableRandom random = new SplittableRandom(7);
+		
+		for( int duel = 0 ; duel < 2000 ; duel++ )
+		{
+			Weapon challengerWeapon = randomWeapon(random);
+			Weapon opponentWeapon = randomWeapon(random);
+			int challengerLife = random.nextInt(0, 1000);
+			int opponentLife = random.nextInt(0, 1000);
+			int maxRounds = random.nextInt(1, 60);
+			
+			Samurai simulatedChallenger = duelist(challengerWeapon, challengerLife);
+			Samurai simulatedOpponent = duelist(opponentWeapon, opponentLife);
+			Samurai solvedChallenger = duelist(challengerWeapon, challengerLife);
+			Samurai solvedOpponent = duelist(opponentWeapon, opponentLife);
+			
+			for( ElementalType type : ElementalType.values() )
+			{
+				int affinity = random.nextInt(3);
+				setAffinity(simulatedChallenger, type, affinity);
+				setAffinity(solvedChallenger, type, affinity);
+				
+				affinity = random.nextInt(3);
+				setAffinity(simulatedOpponent, type, affinity);
+				setAffinity(solvedOpponent, type, affinity);
+			}
+			
+			int armor = random.nextInt(1, 300);
+			simulatedOpponent.status().setArmor(armor);
+			solvedOpponent.status().setArmor(armor);
+			
+			int strength = random.nextInt(0, 300);
+			simulatedChallenger.status().setStrength(strength);
+			solvedChallenger.status().setStrength(strength);
+			
+			int simulated = DuelResolver.simulate(simulatedChallenger, simulatedOpponent, maxRounds);
+			int solved = DuelResolver.fight(solvedChallenger, solvedOpponent, maxRounds, null);
+			
+			String duelName = "duel #" + duel;
+			assertEquals(duelName, simulated, solved);
+			assertEquals(duelName, simulatedChallenger.life(), solvedChallenger.life());
+			assertEquals(duelName, simulatedOpponent.life(), solvedOpponent.life());
+		}
+	}
+	
+	public void testDuelStallsWhenNothingChanges()
+	{
+		Samurai challenger = duelist(new WeaponBuilder("Feather").injuring(0).build(), 100);
+		Samurai opponent = duelist(new WeaponBuilder("Feather").injuring(0).build(), 100);
+		
+		assertEquals(1, DuelResolver.fight(challenger, opponent, 1000, null));
+		assertEquals(100, challenger.life());
+		assertEquals(100, opponent.life());
+	}
+	
+	public void testDuelLastsAtMostMaxRounds()
+	{
+		Samurai challenger = duelist(new WeaponBuilder("Stick").injuring(1).build(), 500);
+		Samurai opponent = duelist(new WeaponBuilder("Stick").injuring(1).build(), 500);
+		
+		assertEquals(10, DuelResolver.fight(challenger, opponent, 10, null));
+		assertEquals(490, challenger.life());
+		assertEquals(490, opponent.life());
+	}
+	
+	public void testChallengerStrikesFirst()
+	{
+		Samurai challenger = duelist(new WeaponBuilder("Sword").injuring(100).build(), 100);
+		Samurai opponent = duelist(new WeaponBuilder("Sword").injuring(100).build(), 100);
+		
+		assertEquals(1, DuelResolver.fight(challenger, opponent, 1000, null));
+		assertTrue(challenger.isAlive());
+		assertFalse(opponent.isAlive());
+	}
+	
+	public void testLastingEffectsCannotBePredicted()
+	{
+		Samurai challenger = duelist(new WeaponBuilder("Torch").burning(10, 3).build(), 100);
+		Samurai opponent = duelist(new WeaponBuilder("Sword").injuring(10).build(), 100);
+		
+		assertNull(DuelResolver.predict(challenger, opponent, 1000));
+	}
+	
+	private Samurai duelist(Weapon weapon, int life)
+	{
+		Samurai samurai = factory.createSamurai(lord);
+		samurai.setWeapon(weapon);
+		samurai.status().setLife(life);
+		
+		return samurai;
+	}
+	
+	/**
+	 * Returns a weapon made of 1 to 3 instantaneous effects, damaging or healing.
+	 */
+	private static Weapon randomWeapon(SplittableRandom random)
+	{
+		Weapon weapon = new Weapon("Random");
+		ElementalType[] types = ElementalType.values();
+		
+		for( int i = random.nextInt(1, 4) ; i > 0 ; i-- )
+		{
+			int amount = random.nextInt(-300, 301) / (random.nextBoolean() ? 1 : 50);
+			AttackAction.Type action = amount < 0 ? AttackAction.Type.INCREASE : AttackAction.Type.DECREASE;
+			
+			weapon.addEffect(new InstantaneousAttackEffect(new AlterLife(action, Math.abs(amount)), types[random.nextInt(types.length)]));
+		}
+		return weapon;
+	}
+	
+	private static void setAffinity(Samurai samurai, ElementalType type, int affinity)
+	{
+		if( affinity == 0 )
+			samurai.status().addWeakness(type);
+		
+		else if( affinity == 1 )
+			samurai.status().addResistance(type);
+	}
+}
@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.human.characters;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import fr.kazejiyu.stoneandsaber.human.Human;
+import fr.kazejiyu.stoneandsaber.human.kingdom.Kingdom;
+import junit.framework.TestCase;
+
+/**
+ * Checks the bulk creation of humans by a {@link HumanFactory} and its notifications.
+ */
+public class HumanFactoryTest extends TestCase
+{
+	public void testBulkCreationNotifiesOneBatchPerChunkThenEachHuman()
+	{
+		HumanFactory factory = new HumanFactory(new SplittableRandom(13));
+		List <Human> batched = new ArrayList<>();
+		List <Integer> sizes = new ArrayList<>();
+		List <Human> notified = new ArrayList<>();
+		
+		factory.onCreateBatch(batch -> {
+			sizes.add(batch.size());
+			batched.addAll(batch.humans());
+		});
+		factory.onCreate(Merchant.class, notified::add);
+		
+		List <Merchant> merchants = factory.createMerchants(10000);
+		
+		assertEquals(3, sizes.size());
+		assertEquals(10000, sizes.get(0) + sizes.get(1) + sizes.get(2));
+		assertEquals(merchants, batched);
+		assertEquals(merchants, notified);
+	}
+	
+	public void testHumanCreatedAloneIsABatchOfOne()
+	{
+		HumanFactory factory = new HumanFactory(new SplittableRandom(13));
+		List <HumanBatch> batches = new ArrayList<>();
+		factory.onCreateBatch(batches::add);
+		
+		Yakuza yakuza = factory.createYakuza(new Clan("Clan"));
+		
+		assertEquals(1, batches.size());
+		assertEquals(1, batches.get(0).size());
+		assertSame(yakuza, batches.get(0).humans().get(0));
+	}
+	
+	public void testBulkCreationOnlyDependsOnTheRandomStream()
+	{
+		Lord lord = new Lord("Lord", new Kingdom());
+		
+		List <Samurai> first = new HumanFactory(new SplittableRandom(13)).createSamurais(9000, lord);
+		List <Samurai> second = new HumanFactory(new SplittableRandom(13)).createSamurais(9000, lord);
+		
+		for( int i = 0 ; i < first.size() ; i++ )
+		{
+			assertEquals(first.get(i).name(), second.get(i).name());
+			assertEquals(first.get(i).money(), second.get(i).money());
+			assertEquals(first.get(i).weapon().name(), second.get(i).weapon().name());
+		}
+	}
+	
+	public void testHumansAreCreatedWithMoneyInTheRange()
+	{
+		List <Merchant> merchants = new HumanFactory(10, 20, new SplittableRandom(13)).createMerchants(5000);
+		
+		for( Merchant merchant : merchants )
+			assertTrue(merchant.money() >= 10 && merchant.money() <= 20);
+	}
+	
+	public void testNegativeCountIsRefused()
+	{
+		try 
+		{
+			new HumanFactory(new SplittableRandom(13)).createMerchants(-1);
+			fail("A negative number of humans should be refused");
+		}
+		catch( IllegalArgumentException e ) 
+		{
+			// expected
+		}
+	}
+}
@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.human.characters;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import fr.kazejiyu.stoneandsaber.behaviors.Status;
+import fr.kazejiyu.stoneandsaber.behaviors.weapon.WeaponBuilder;
+import fr.kazejiyu.stoneandsaber.human.kingdom.Kingdom;
+import fr.kazejiyu.stoneandsaber.world.World;
+import fr.kazejiyu.stoneandsaber.world.WorldSeedParameters;
+import junit.framework.TestCase;
+
+/**
+ * Checks how a {@link Tournament} pairs the duelists and that its outcome, 
+ * including the statistics of its cache, does not depend on the number of threads.
+ */
+public class TournamentTest extends TestCase
+{
+	private final HumanFactory factory = new HumanFactory(new SplittableRandom(1));
+	
+	private final Lord lord = new Lord("Lord", new Kingdom());
+	
+	private PrintStream out;
+	
+	@Override
+	protected void setUp()
+	{
+		// the duelists comment every duel
+		out = System.out;
+		System.setOut(new PrintStream(new OutputStream() 
+		{
+			@Override
+			public void write(int b)
+			{
+				// muted
+			}
+		}));
+	}
+	
+	@Override
+	protected void tearDown()
+	{
+		System.setOut(out);
+	}
+	
+	public void testNobodyFightsTwice()
+	{
+		Samurai a = duelist(), b = duelist(), c = duelist(), d = duelist(), e = duelist();
+		
+		// a fights b; b is already engaged; c fights d; e has nobody left
+		MatchReport report = new Tournament(ForkJoinPool.commonPool(), 1).play(Arrays.asList(a, b, c, e), Arrays.asList(b, d));
+		
+		assertEquals(2, report.matches());
+		
+		// a single round of 1 damage each: a duelist fighting twice would have lost 2
+		for( Samurai fought : Arrays.asList(a, b, c, d) )
+			assertEquals(Status.DEFAULT_LIFE - 1, fought.life());
+		
+		assertEquals(Status.DEFAULT_LIFE, e.life());
+	}
+	
+	public void testDeadDuelistsDoNotFight()
+	{
+		Samurai a = duelist(), dead = duelist(), b = duelist();
+		dead.status().setLife(0);
+		
+		MatchReport report = new Tournament(ForkJoinPool.commonPool(), 1).play(Arrays.asList(dead, a), Arrays.asList(dead, b));
+		
+		assertEquals(1, report.matches());
+		assertEquals(Status.DEFAULT_LIFE - 1, a.life());
+		assertEquals(Status.DEFAULT_LIFE - 1, b.life());
+	}
+	
+	public void testOutcomeDoesNotDependOnThreads()
+	{
+		World sequential = world();
+		World parallel = world();
+		
+		MatchReport expected = new Tournament(new ForkJoinPool(1), Duelist.DEFAULT_MAX_ROUNDS, sequential.duels())
+				.play(sequential.living(Ronin.class), sequential.living(Yakuza.class), sequential.random());
+		MatchReport actual = new Tournament(new ForkJoinPool(4), Duelist.DEFAULT_MAX_ROUNDS, parallel.duels())
+				.play(parallel.living(Ronin.class), parallel.living(Yakuza.class), parallel.random());
+		
+		assertTrue(expected.matches() > 0);
+		assertEquals(expected.matches(), actual.matches());
+		assertEquals(expected.challengerWins(), actual.challengerWins());
+		assertEquals(expected.opponentWins(), actual.opponentWins());
+		assertEquals(expected.draws(), actual.draws());
+		assertEquals(expected.predicted(), actual.predicted());
+		assertEquals(expected.rounds(), actual.rounds());
+		assertEquals(expected.blings(), actual.blings());
+		
+		assertEquals(lives(sequential), lives(parallel));
+		assertEquals(sequential.wealth().getSum(), parallel.wealth().getSum());
+		
+		assertEquals(sequential.duels().hits(), parallel.duels().hits());
+		assertEquals(sequential.duels().misses(), parallel.duels().misses());
+		assertEquals(sequential.duels().evictions(), parallel.duels().evictions());
+	}
+	
+	private Samurai duelist()
+	{
+		Samurai samurai = factory.createSamurai(lord);
+		samurai.setWeapon(new WeaponBuilder("Stick").injuring(1).build());
+		
+		return samurai;
+	}
+	
+	/**
+	 * Creates a world large enough for the fights to be predicted by several tasks.
+	 */
+	private static World world()
+	{
+		return World.randomized(new WorldSeedParameters().samurais(3000).yakuzas(3000).merchants(0).traitors(0).seed(42).toSeed());
+	}
+	
+	private static List <Integer> lives(World world)
+	{
+		List <Integer> lives = new ArrayList<>();
+		
+		for( Duelist duelist : world.living(Duelist.class) )
+			lives.add(duelist.life());
+		
+		return lives;
+	}
+}
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.world;
+
+import java.util.SplittableRandom;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that an {@link AliasTable} samples indexes according to their weights.
+ */
+public class AliasTableTest extends TestCase
+{
+	private static final int SAMPLES = 100000;
+	
+	private final SplittableRandom random = new SplittableRandom(23);
+	
+	public void testIndexesAreSampledProportionallyToTheirWeights()
+	{
+		double[] weights = { 1, 0, 3, .5, 5.5 };
+		long[] samples = sample(new AliasTable(weights));
+		
+		assertEquals(0, samples[1]);
+		
+		// the standard deviations are below 160
+		for( int i = 0 ; i < weights.length ; i++ )
+			assertEquals("index " + i, SAMPLES * weights[i] / 10, samples[i], 800);
+	}
+	
+	public void testUniformWeightsGiveUniformSamples()
+	{
+		long[] samples = sample(new AliasTable(new double[] { 2, 2, 2, 2 }));
+		
+		for( int i = 0 ; i < 4 ; i++ )
+			assertEquals("index " + i, SAMPLES / 4, samples[i], 800);
+	}
+	
+	public void testSingleWeightIsAlwaysSampled()
+	{
+		long[] samples = sample(new AliasTable(new double[] { .3 }));
+		
+		assertEquals(SAMPLES, samples[0]);
+	}
+	
+	public void testInvalidWeightsAreRefused()
+	{
+		assertRefused(new double[] { 1, -1 });
+		assertRefused(new double[] { 1, Double.NaN });
+		assertRefused(new double[] { 0, 0 });
+		assertRefused(new double[] { Double.POSITIVE_INFINITY });
+		assertRefused(new double[0]);
+	}
+	
+	private long[] sample(AliasTable table)
+	{
+		long[] samples = new long[8];
+		
+		for( int i = 0 ; i < SAMPLES ; i++ )
+			samples[table.sample(random)]++;
+		
+		return samples;
+	}
+	
+	private static void assertRefused(double[] weights)
+	{
+		try 
+		{
+			new AliasTable(weights);
+			fail("Invalid weights should be refused");
+		}
+		catch( IllegalArgumentException e ) 
+		{
+			// expected
+		}
+	}
+}
@@ -0,0 +1,196 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.world;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+
+import fr.kazejiyu.stoneandsaber.world.EventTable.Selection;
+import junit.framework.TestCase;
+
+/**
+ * Checks the selection, the requirements and the failures of the events of an {@link EventTable}.
+ */
+public class EventTableTest extends TestCase
+{
+	private static final IntSupplier[] NOBODY_REQUIRED = {};
+	
+	private final SplittableRandom random = new SplittableRandom(17);
+	
+	/**
+	 * The number of times each event occurred.
+	 */
+	private long[] occurrences;
+	
+	private PrintStream err;
+	
+	@Override
+	protected void setUp()
+	{
+		// failures are reported on the error stream
+		err = System.err;
+		System.setErr(new PrintStream(new ByteArrayOutputStream()));
+	}
+	
+	@Override
+	protected void tearDown()
+	{
+		System.setErr(err);
+	}
+	
+	public void testSharedDrawMakesLikelierEventsOccurWhenRarerOnesDo()
+	{
+		EventTable table = table(Selection.SHARED, 0, new double[] { .5, .1, 1 });
+		int generations = 20000;
+		
+		for( int i = 0 ; i < generations ; i++ )
+		{
+			long[] before = occurrences.clone();
+			table.tick(null, random);
+			
+			if( occurrences[1] > before[1] )
+				assertTrue(occurrences[0] > before[0]);
+		}
+		
+		assertEquals(generations, occurrences[2]);
+		assertEquals(.5 * generations, occurrences[0], 500);
+		assertEquals(.1 * generations, occurrences[1], 300);
+	}
+	
+	public void testIndependentEventsOccurWithTheirOwnProbability()
+	{
+		EventTable table = table(Selection.INDEPENDENT, 0, new double[] { .5, .1, 1 });
+		int generations = 20000;
+		long together = 0;
+		
+		for( int i = 0 ; i < generations ; i++ )
+		{
+			long[] before = occurrences.clone();
+			table.tick(null, random);
+			
+			if( occurrences[0] > before[0] && occurrences[1] > before[1] )
+				together++;
+		}
+		
+		assertEquals(generations, occurrences[2]);
+		assertEquals(.5 * generations, occurrences[0], 500);
+		assertEquals(.1 * generations, occurrences[1], 300);
+		assertEquals(.05 * generations, together, 250);
+	}
+	
+	public void testCategoricalDrawPicksEventsProportionallyToTheirProbability()
+	{
+		EventTable table = table(Selection.CATEGORICAL, 3, new double[] { .3, 0, .1, 1 });
+		int generations = 20000;
+		
+		for( int i = 0 ; i < generations ; i++ )
+			table.tick(null, random);
+		
+		assertEquals(generations, occurrences[3]);
+		assertEquals(0, occurrences[1]);
+		assertEquals(3 * generations, occurrences[0] + occurrences[2]);
+		assertEquals(.75 * 3 * generations, occurrences[0], 500);
+	}
+	
+	public void testCategoricalDrawWithoutUncertainEventsOnlyProcessesCertainOnes()
+	{
+		EventTable table = table(Selection.CATEGORICAL, 3, new double[] { 1, 0 });
+		
+		table.tick(null, random);
+		
+		assertEquals(1, occurrences[0]);
+		assertEquals(0, occurrences[1]);
+	}
+	
+	public void testEventLackingActorsIsSkipped()
+	{
+		int[] living = { 0 };
+		
+		occurrences = new long[1];
+		EventTable table = new EventTable(new double[] { 1 }, new String[] { "#0" }, actions(1), 
+				new IntSupplier[][] { { () -> 3, () -> living[0] } }, Selection.SHARED, 0);
+		
+		table.tick(null, random);
+		table.tick(null, random);
+		living[0] = 1;
+		table.tick(null, random);
+		
+		assertEquals(1, occurrences[0]);
+		assertEquals(2, table.skipped(0));
+	}
+	
+	public void testFailingEventIsNeverProcessedAgain()
+	{
+		int[] attempts = { 0 };
+		
+		@SuppressWarnings("unchecked")
+		Consumer <World>[] actions = new Consumer[] { 
+			world -> { attempts[0]++; throw new IllegalStateException("expected"); }, 
+			world -> attempts[0] += 10 
+		};
+		EventTable table = new EventTable(new double[] { 1, 1 }, new String[] { "failing", "working" }, actions, 
+				new IntSupplier[][] { NOBODY_REQUIRED, NOBODY_REQUIRED }, Selection.SHARED, 0);
+		
+		for( int i = 0 ; i < 3 ; i++ )
+			table.tick(null, random);
+		
+		assertEquals(1 + 3 * 10, attempts[0]);
+	}
+	
+	/**
+	 * Creates a table of events counting their {@link #occurrences}.
+	 */
+	private EventTable table(Selection selection, int picks, double[] probabilities)
+	{
+		int events = probabilities.length;
+		occurrences = new long[events];
+		
+		String[] names = new String[events];
+		IntSupplier[][] requirements = new IntSupplier[events][];
+		
+		for( int i = 0 ; i < events ; i++ )
+		{
+			names[i] = "#" + i;
+			requirements[i] = NOBODY_REQUIRED;
+		}
+		return new EventTable(probabilities, names, actions(events), requirements, selection, picks);
+	}
+	
+	/**
+	 * Returns actions counting their {@link #occurrences}.
+	 */
+	@SuppressWarnings("unchecked")
+	private Consumer <World>[] actions(int events)
+	{
+		Consumer <World>[] actions = new Consumer[events];
+		
+		for( int i = 0 ; i < events ; i++ )
+		{
+			int event = i;
+			actions[i] = world -> occurrences[event]++;
+		}
+		return actions;
+	}
+}
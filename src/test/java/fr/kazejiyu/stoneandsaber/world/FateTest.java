@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.world;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import fr.kazejiyu.stoneandsaber.human.Human;
+import fr.kazejiyu.stoneandsaber.human.characters.Merchant;
+import junit.framework.TestCase;
+
+/**
+ * Checks the events whose occurrences depend on the population of a world.
+ */
+public class FateTest extends TestCase
+{
+	private static final int GENERATIONS = 1000;
+	
+	private final World world = World.randomized(new WorldSeedParameters().samurais(5).yakuzas(5).merchants(1000).traitors(0).seed(31).toSeed());
+	
+	public void testRateEventsOccurProportionallyToTheNumberOfActors()
+	{
+		long[] occurrences = { 0 };
+		Set <Human> actors = new HashSet<>();
+		
+		new Fate(world, GENERATIONS)
+			.addRateEvent(.01, "Merchant sells", Merchant.class, merchant -> {
+				occurrences[0]++;
+				actors.add(merchant);
+			})
+			.descendOnWorld();
+		
+		// 10 occurrences per generation, with a standard deviation of 100 over the whole story
+		assertEquals(.01 * 1000 * GENERATIONS, occurrences[0], 500);
+		
+		for( Human actor : actors )
+			assertTrue(actor instanceof Merchant);
+	}
+	
+	public void testIndividualEventsAffectEachActorWithTheGivenProbability()
+	{
+		long[] occurrences = { 0 };
+		Set <Human> affected = new HashSet<>();
+		
+		new Fate(world, GENERATIONS)
+			.addIndividualEvent(.02, "Merchant drinks", Merchant.class, merchant -> {
+				occurrences[0]++;
+				assertTrue("affected twice in a generation", affected.add(merchant));
+			})
+			.addEvent(1, "Next generation", w -> affected.clear())
+			.descendOnWorld();
+		
+		// 20 occurrences per generation, with a standard deviation of 140 over the whole story
+		assertEquals(.02 * 1000 * GENERATIONS, occurrences[0], 700);
+	}
+	
+	public void testRateEventsRefuseInvalidRates()
+	{
+		try 
+		{
+			new Fate(world, 1).addRateEvent(-.1, "Nothing", Merchant.class, merchant -> {});
+			fail("A negative rate should be refused");
+		}
+		catch( IllegalArgumentException e ) 
+		{
+			// expected
+		}
+	}
+	
+	public void testIndividualEventsRefuseInvalidProbabilities()
+	{
+		try 
+		{
+			new Fate(world, 1).addIndividualEvent(1.5, "Nothing", Merchant.class, merchant -> {});
+			fail("A probability greater than 1 should be refused");
+		}
+		catch( IllegalArgumentException e ) 
+		{
+			// expected
+		}
+	}
+}
@@ -0,0 +1,204 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.world;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.IntSupplier;
+
+import fr.kazejiyu.stoneandsaber.human.Human;
+import fr.kazejiyu.stoneandsaber.human.characters.Bully;
+import fr.kazejiyu.stoneandsaber.human.characters.Clan;
+import fr.kazejiyu.stoneandsaber.human.characters.Duelist;
+import fr.kazejiyu.stoneandsaber.human.characters.Grandma;
+import fr.kazejiyu.stoneandsaber.human.characters.HumanFactory;
+import fr.kazejiyu.stoneandsaber.human.characters.Lord;
+import fr.kazejiyu.stoneandsaber.human.characters.Merchant;
+import fr.kazejiyu.stoneandsaber.human.characters.Samurai;
+import fr.kazejiyu.stoneandsaber.human.characters.Traitor;
+import fr.kazejiyu.stoneandsaber.human.characters.Yakuza;
+import fr.kazejiyu.stoneandsaber.human.kingdom.Kingdom;
+import junit.framework.TestCase;
+
+/**
+ * Checks the indexing by type, the removals and the random picks of {@link Population}.
+ */
+public class PopulationTest extends TestCase
+{
+	private final HumanFactory factory = new HumanFactory(new SplittableRandom(5));
+	
+	private final Lord lord = new Lord("Lord", new Kingdom());
+	
+	private final Clan clan = new Clan("Clan");
+	
+	private Population population;
+	
+	private List <Merchant> merchants;
+	
+	private List <Samurai> samurais;
+	
+	private List <Yakuza> yakuzas;
+	
+	private List <Traitor> traitors;
+	
+	@Override
+	protected void setUp()
+	{
+		population = new Population(new SplittableRandom(3));
+		
+		merchants = factory.createMerchants(4);
+		samurais = factory.createSamurais(3, lord);
+		yakuzas = factory.createYakuzas(2, clan);
+		traitors = factory.createTraitors(1, lord);
+		
+		merchants.forEach(population::add);
+		samurais.forEach(population::add);
+		yakuzas.forEach(population::add);
+		traitors.forEach(population::add);
+	}
+	
+	public void testHumansAreCountedByEachOfTheirTypes()
+	{
+		assertEquals(10, population.count(Human.class));
+		assertEquals(4, population.count(Merchant.class));
+		assertEquals(3 + 1, population.count(Samurai.class));
+		assertEquals(3 + 2 + 1, population.count(Duelist.class));
+		assertEquals(2 + 1, population.count(Bully.class));
+		assertEquals(0, population.count(String.class));
+	}
+	
+	public void testAddingTwiceTheSameHumanHasNoEffect()
+	{
+		population.add(merchants.get(0));
+		
+		assertEquals(4, population.count(Merchant.class));
+		assertEquals(10, population.count(Human.class));
+	}
+	
+	public void testRemovalUpdatesEveryTypeAndTheCounters()
+	{
+		IntSupplier bullies = population.counter(Bully.class);
+		
+		assertTrue(population.remove(traitors.get(0)));
+		assertFalse(population.remove(traitors.get(0)));
+		
+		assertEquals(2, bullies.getAsInt());
+		assertEquals(3, population.count(Samurai.class));
+		assertEquals(5, population.count(Duelist.class));
+		assertEquals(9, population.count(Human.class));
+		assertFalse(population.living(Human.class).contains(traitors.get(0)));
+	}
+	
+	public void testPicksAreInstancesOfTheRequestedType()
+	{
+		for( int i = 0 ; i < 100 ; i++ )
+		{
+			assertTrue(population.any(Duelist.class).get() instanceof Duelist);
+			assertTrue(population.any(Samurai.class).get() instanceof Samurai);
+			assertTrue(population.any(Merchant.class).get() instanceof Merchant);
+		}
+		assertFalse(population.any(Grandma.class).isPresent());
+	}
+	
+	public void testPicksAreUniform()
+	{
+		Map <Human, Integer> picks = new HashMap<>();
+		int draws = 40000;
+		
+		for( int i = 0 ; i < draws ; i++ )
+			picks.merge(population.any(Merchant.class).get(), 1, Integer::sum);
+		
+		assertEquals(4, picks.size());
+		
+		// each merchant is expected 10000 times, with a standard deviation below 87
+		for( int count : picks.values() )
+			assertEquals(draws / 4, count, 500);
+	}
+	
+	public void testDeadHumansAreNeverPickedAndGetRemoved()
+	{
+		for( int i = 1 ; i < merchants.size() ; i++ )
+			merchants.get(i).status().setLife(0);
+		
+		for( int i = 0 ; i < 100 ; i++ )
+			assertSame(merchants.get(0), population.any(Merchant.class).get());
+		
+		assertEquals(1, population.count(Merchant.class));
+		
+		merchants.get(0).status().setLife(0);
+		
+		assertFalse(population.any(Merchant.class).isPresent());
+		assertEquals(0, population.forRandom(Merchant.class, 10, merchant -> fail()));
+		assertEquals(6, population.count(Human.class));
+	}
+	
+	public void testForRandomAppliesTheActionTheRequestedNumberOfTimes()
+	{
+		int[] applied = { 0 };
+		
+		assertEquals(25, population.forRandom(Duelist.class, 25, duelist -> applied[0]++));
+		assertEquals(25, applied[0]);
+	}
+	
+	public void testForSomeAffectsEachHumanWithTheGivenProbability()
+	{
+		Population crowd = new Population(new SplittableRandom(8));
+		factory.createMerchants(10000).forEach(crowd::add);
+		
+		Map <Human, Integer> affected = new HashMap<>();
+		long done = crowd.forSome(Merchant.class, .1, merchant -> affected.merge(merchant, 1, Integer::sum));
+		
+		// 1000 expected, with a standard deviation of 30
+		assertEquals(1000, done, 150);
+		assertEquals(done, affected.size());
+		
+		assertEquals(0, crowd.forSome(Merchant.class, 0, merchant -> fail()));
+		assertEquals(10000, crowd.forSome(Merchant.class, 1, merchant -> {}));
+	}
+	
+	public void testForSomeRefusesInvalidProbabilities()
+	{
+		try 
+		{
+			population.forSome(Merchant.class, 1.5, merchant -> {});
+			fail("A probability greater than 1 should be refused");
+		}
+		catch( IllegalArgumentException e ) 
+		{
+			// expected
+		}
+	}
+	
+	public void testSameRandomGivesSamePicks()
+	{
+		Population twin = new Population(new SplittableRandom(3));
+		merchants.forEach(twin::add);
+		samurais.forEach(twin::add);
+		yakuzas.forEach(twin::add);
+		traitors.forEach(twin::add);
+		
+		for( int i = 0 ; i < 50 ; i++ )
+			assertSame(population.any(Human.class).get(), twin.any(Human.class).get());
+	}
+}
@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.world;
+
+import java.util.SplittableRandom;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks the moments of the distributions sampled by {@link Sampling}.
+ */
+public class SamplingTest extends TestCase
+{
+	private static final int SAMPLES = 200000;
+	
+	private final SplittableRandom random = new SplittableRandom(29);
+	
+	public void testPoissonMeanAndVarianceMatchTheRequestedMean()
+	{
+		// both sides of the switch between the two algorithms
+		for( double mean : new double[] { .2, 3, 9.9, 10, 42, 1e6 } )
+		{
+			double sum = 0, squares = 0;
+			
+			for( int i = 0 ; i < SAMPLES ; i++ )
+			{
+				long k = Sampling.poisson(mean, random);
+				assertTrue(k >= 0);
+				
+				sum += k;
+				squares += (double) k * k;
+			}
+			
+			double average = sum / SAMPLES;
+			double variance = squares / SAMPLES - average * average;
+			
+			// the standard error of the average is sqrt(mean / SAMPLES)
+			assertEquals("mean of Poisson(" + mean + ")", mean, average, 5 * Math.sqrt(mean / SAMPLES));
+			assertEquals("variance of Poisson(" + mean + ")", mean, variance, .05 * mean);
+		}
+	}
+	
+	public void testPoissonOfNullMeanIsAlwaysZero()
+	{
+		for( int i = 0 ; i < 100 ; i++ )
+			assertEquals(0, Sampling.poisson(0, random));
+	}
+	
+	public void testPoissonRefusesInvalidMeans()
+	{
+		for( double mean : new double[] { -1, Double.NaN, Double.POSITIVE_INFINITY } )
+		{
+			try 
+			{
+				Sampling.poisson(mean, random);
+				fail("A mean of " + mean + " should be refused");
+			}
+			catch( IllegalArgumentException e ) 
+			{
+				// expected
+			}
+		}
+	}
+	
+	public void testGeometricMeanMatchesTheProbabilityOfSuccess()
+	{
+		for( double p : new double[] { .9, .5, .1, .001 } )
+		{
+			double logFailure = Math.log1p(-p);
+			double sum = 0;
+			
+			for( int i = 0 ; i < SAMPLES ; i++ )
+			{
+				long k = Sampling.geometric(logFailure, random);
+				assertTrue(k >= 0);
+				
+				sum += k;
+			}
+			
+			// the mean is (1 - p) / p, and the standard deviation sqrt(1 - p) / p
+			double expected = (1 - p) / p;
+			assertEquals("mean of Geometric(" + p + ")", expected, sum / SAMPLES, 5 * Math.sqrt(1 - p) / p / Math.sqrt(SAMPLES));
+		}
+	}
+	
+	public void testGeometricOfCertainSuccessIsAlwaysZero()
+	{
+		double logFailure = Math.log1p(-1);
+		
+		for( int i = 0 ; i < 100 ; i++ )
+			assertEquals(0, Sampling.geometric(logFailure, random));
+	}
+}
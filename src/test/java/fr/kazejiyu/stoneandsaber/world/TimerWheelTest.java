@@ -0,0 +1,199 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.world;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that a {@link TimerWheel} expires each item at its deadline, and only once.
+ */
+public class TimerWheelTest extends TestCase
+{
+	private TimerWheel wheel;
+	
+	private List <Integer> expired;
+	
+	@Override
+	protected void setUp()
+	{
+		wheel = new TimerWheel();
+		expired = new ArrayList<>();
+	}
+	
+	public void testItemExpiresAtItsDeadline()
+	{
+		wheel.schedule(3, 2);
+		
+		advance();
+		advance();
+		assertTrue(expired.isEmpty());
+		assertTrue(wheel.contains(3));
+		
+		advance();
+		assertEquals(Arrays.asList(3), expired);
+		assertFalse(wheel.contains(3));
+		assertEquals(0, wheel.size());
+		assertEquals(3, wheel.now());
+	}
+	
+	public void testPastDeadlinesExpireAtOnce()
+	{
+		advance();
+		advance();
+		wheel.schedule(1, 0);
+		
+		advance();
+		assertEquals(Arrays.asList(1), expired);
+	}
+	
+	public void testItemsOfTheSameTickExpireInTheOrderTheyWereScheduled()
+	{
+		wheel.schedule(5, 1);
+		wheel.schedule(2, 1);
+		wheel.schedule(7, 1);
+		
+		advance();
+		advance();
+		assertEquals(Arrays.asList(5, 2, 7), expired);
+	}
+	
+	public void testFarDeadlinesAreCascadedDownToTheirTick()
+	{
+		long[] deadlines = { 63, 64, 65, 4095, 4096, 4097, 300000, 1L << 24, (1L << 24) + 70 };
+		
+		for( int item = 0 ; item < deadlines.length ; item++ )
+			wheel.schedule(item, deadlines[item]);
+		
+		for( int item = 0 ; item < deadlines.length ; item++ )
+		{
+			while( wheel.now() < deadlines[item] )
+				advance();
+			
+			assertEquals("item #" + item, item, expired.size());
+			advance();
+			assertEquals("item #" + item, Arrays.asList(item), expired.subList(item, expired.size()));
+		}
+	}
+	
+	public void testRescheduleReplacesThePreviousDeadline()
+	{
+		wheel.schedule(4, 10);
+		wheel.schedule(4, 100);
+		assertEquals(1, wheel.size());
+		assertEquals(100, wheel.deadline(4));
+		
+		for( int tick = 0 ; tick <= 100 ; tick++ )
+		{
+			assertTrue("tick #" + tick, expired.isEmpty());
+			advance();
+		}
+		assertEquals(Arrays.asList(4), expired);
+	}
+	
+	public void testCancelledItemsNeverExpire()
+	{
+		wheel.schedule(0, 5);
+		wheel.schedule(1, 5);
+		wheel.schedule(2, 5000);
+		wheel.cancel(1);
+		wheel.cancel(2);
+		wheel.cancel(3);
+		
+		for( int tick = 0 ; tick <= 5000 ; tick++ )
+			advance();
+		
+		assertEquals(Arrays.asList(0), expired);
+		assertEquals(-1, wheel.deadline(1));
+	}
+	
+	public void testReleaseMovesTheLastItem()
+	{
+		wheel.schedule(0, 3);
+		wheel.schedule(4, 7);
+		
+		wheel.release(0, 4);
+		assertEquals(7, wheel.deadline(0));
+		assertFalse(wheel.contains(4));
+		
+		wheel.release(1, 0);
+		assertEquals(7, wheel.deadline(1));
+		assertEquals(1, wheel.size());
+		
+		for( int tick = 0 ; tick <= 7 ; tick++ )
+			advance();
+		
+		assertEquals(Arrays.asList(1), expired);
+	}
+	
+	public void testExpiresLikeANaiveScan()
+	{
+		SplittableRandom random = new SplittableRandom(42);
+		long[] deadlines = new long[500];
+		Arrays.fill(deadlines, -1);
+		
+		for( int tick = 0 ; tick < 20000 ; tick++ )
+		{
+			for( int i = 0 ; i < 3 ; i++ )
+			{
+				int item = random.nextInt(deadlines.length);
+				
+				if( random.nextInt(4) == 0 )
+				{
+					wheel.cancel(item);
+					deadlines[item] = -1;
+				}
+				else 
+				{
+					long deadline = wheel.now() + (random.nextBoolean() ? random.nextInt(100) : random.nextInt(300000));
+					wheel.schedule(item, deadline);
+					deadlines[item] = deadline;
+				}
+			}
+			
+			List <Integer> expected = new ArrayList<>();
+			
+			for( int item = 0 ; item < deadlines.length ; item++ )
+			{
+				if( deadlines[item] == wheel.now() )
+				{
+					expected.add(item);
+					deadlines[item] = -1;
+				}
+			}
+			
+			expired.clear();
+			advance();
+			expired.sort(null);
+			assertEquals("tick #" + tick, expected, expired);
+		}
+	}
+	
+	private void advance()
+	{
+		wheel.advance(expired::add);
+	}
+}
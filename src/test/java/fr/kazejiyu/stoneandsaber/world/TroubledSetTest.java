@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.world;
+
+import java.util.SplittableRandom;
+
+import fr.kazejiyu.stoneandsaber.behaviors.StatusStore;
+import fr.kazejiyu.stoneandsaber.human.Human;
+import fr.kazejiyu.stoneandsaber.human.characters.HumanFactory;
+import fr.kazejiyu.stoneandsaber.human.characters.Merchant;
+import junit.framework.TestCase;
+
+/**
+ * Checks that a {@link TroubledSet} stays in sync with the slots of a {@link StatusStore}.
+ */
+public class TroubledSetTest extends TestCase
+{
+	private final HumanFactory factory = new HumanFactory(new SplittableRandom(1));
+	
+	private final StatusStore <Human> people = new StatusStore<>();
+	
+	private final TroubledSet troubled = new TroubledSet();
+	
+	private final Merchant[] merchants = new Merchant[4];
+	
+	@Override
+	protected void setUp()
+	{
+		for( int i = 0 ; i < merchants.length ; i++ )
+		{
+			merchants[i] = factory.createMerchant();
+			people.adopt(merchants[i], merchants[i].status());
+		}
+	}
+	
+	public void testAddIsIdempotent()
+	{
+		troubled.add(merchants[2], 2);
+		troubled.add(merchants[2], 2);
+		
+		assertEquals(1, troubled.size());
+		assertTrue(troubled.contains(2));
+		assertFalse(troubled.contains(1));
+		assertFalse(troubled.contains(100));
+	}
+	
+	public void testRemoveMovesTheLastHuman()
+	{
+		troubled.add(merchants[0], 0);
+		troubled.add(merchants[1], 1);
+		troubled.add(merchants[2], 2);
+		
+		troubled.remove(0);
+		
+		assertEquals(2, troubled.size());
+		assertSame(merchants[2], troubled.humans()[0]);
+		assertSame(merchants[1], troubled.humans()[1]);
+		
+		troubled.remove(2);
+		troubled.remove(2);
+		
+		assertEquals(1, troubled.size());
+		assertSame(merchants[1], troubled.humans()[0]);
+		assertTrue(troubled.contains(1));
+	}
+	
+	public void testReleaseFollowsTheStore()
+	{
+		troubled.add(merchants[1], 1);
+		troubled.add(merchants[3], 3);
+		
+		release(1);
+		
+		// the store moved its last status, merchants[3], to slot 1
+		assertEquals(1, people.slotOf(merchants[3].status()));
+		assertEquals(1, troubled.size());
+		assertTrue(troubled.contains(1));
+		assertFalse(troubled.contains(3));
+		assertSame(merchants[3], troubled.humans()[0]);
+		
+		troubled.remove(people.slotOf(merchants[3].status()));
+		assertEquals(0, troubled.size());
+	}
+	
+	public void testReleaseOfAnUntroubledSlot()
+	{
+		troubled.add(merchants[3], 3);
+		
+		release(0);
+		assertTrue(troubled.contains(0));
+		assertFalse(troubled.contains(3));
+		
+		release(people.size() - 1);
+		assertTrue(troubled.contains(0));
+		assertSame(merchants[3], troubled.humans()[0]);
+	}
+	
+	private void release(int slot)
+	{
+		troubled.release(slot, people.size() - 1);
+		people.release(slot);
+	}
+}
@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.world;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import fr.kazejiyu.stoneandsaber.Story;
+import fr.kazejiyu.stoneandsaber.human.Human;
+import junit.framework.TestCase;
+
+/**
+ * Checks that all the randomness of a world derives from its {@link WorldSeed}.
+ */
+public class WorldSeedTest extends TestCase
+{
+	private final WorldSeedParameters parameters = new WorldSeedParameters().samurais(8).yakuzas(8).merchants(5).traitors(2);
+	
+	private PrintStream out;
+	
+	@Override
+	protected void setUp()
+	{
+		// the humans comment the story
+		out = System.out;
+		System.setOut(new PrintStream(new ByteArrayOutputStream()));
+	}
+	
+	@Override
+	protected void tearDown()
+	{
+		System.setOut(out);
+	}
+	
+	public void testIdenticalSeedsGiveIdenticalStories()
+	{
+		WorldSeed seed = parameters.seed(42).toSeed();
+		
+		assertEquals(story(seed), story(seed));
+	}
+	
+	public void testDifferentSeedsGiveDifferentStories()
+	{
+		assertFalse(story(parameters.seed(1).toSeed()).equals(story(parameters.seed(2).toSeed())));
+	}
+	
+	public void testStreamsOnlyDependOnTheRootSeedAndTheSubsystem()
+	{
+		WorldSeed seed = parameters.seed(7).toSeed();
+		
+		assertEquals(draws(seed.random("events")), draws(parameters.seed(7).toSeed().random("events")));
+		assertFalse(draws(seed.random("events")).equals(draws(seed.random("names"))));
+	}
+	
+	public void testDerivationsAreReproducibleAndDistinct()
+	{
+		WorldSeed seed = parameters.seed(7).toSeed();
+		
+		assertEquals(seed.derive(3).seed, seed.derive(3).seed);
+		assertFalse(seed.derive(3).seed == seed.derive(4).seed);
+		assertFalse(seed.derive(0).seed == seed.seed);
+		assertEquals(seed.samurais, seed.derive(3).samurais);
+	}
+	
+	/**
+	 * Tells a story from <code>seed</code>, then describes the survivors.
+	 */
+	private static List <String> story(WorldSeed seed)
+	{
+		World world = World.randomized(seed);
+		Fate fate = new Fate(world, 100);
+		Story.addPossibleEvents(fate);
+		fate.descendOnWorld();
+		
+		List <String> survivors = new ArrayList<>();
+		
+		for( Human human : world.living(Human.class) )
+			survivors.add(human.getClass().getSimpleName() + " " + human.name() + " " + human.life() + " " + human.money());
+		
+		return survivors;
+	}
+	
+	private static List <Integer> draws(SplittableRandom random)
+	{
+		List <Integer> draws = new ArrayList<>();
+		
+		for( int i = 0 ; i < 16 ; i++ )
+			draws.add(random.nextInt());
+		
+		return draws;
+	}
+}
@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.world;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import fr.kazejiyu.stoneandsaber.behaviors.weapon.Weapon;
+import fr.kazejiyu.stoneandsaber.behaviors.weapon.WeaponBuilder;
+import fr.kazejiyu.stoneandsaber.human.characters.Merchant;
+import junit.framework.TestCase;
+
+/**
+ * Checks that a {@link World} upkeeps its troubled people until their troubles are over, and only them.
+ */
+public class WorldTroublesTest extends TestCase
+{
+	private World world;
+	
+	private Merchant merchant;
+	
+	@Override
+	protected void setUp()
+	{
+		world = World.randomized(new WorldSeedParameters().samurais(0).yakuzas(0).merchants(3).traitors(0).seed(1).toSeed());
+		merchant = world.living(Merchant.class).get(0);
+	}
+	
+	public void testTroubledHumanIsUpkeptUntilItsTroublesAreOver()
+	{
+		new WeaponBuilder("Torch").burning(10, 3).build().useOn(merchant);
+		int life = merchant.life();
+		
+		for( int upkeep = 1 ; upkeep <= 3 ; upkeep++ )
+		{
+			assertEquals("upkeep #" + upkeep, 1, world.troubledCount());
+			world.makePeopleLive();
+			assertEquals("upkeep #" + upkeep, life - 10 * upkeep, merchant.life());
+		}
+		
+		assertEquals(0, world.troubledCount());
+		assertFalse(merchant.hasTroubles());
+		
+		world.makePeopleLive();
+		assertEquals(life - 30, merchant.life());
+	}
+	
+	public void testHitAgainPostponesTheEndOfTheTroubles()
+	{
+		Weapon torch = new WeaponBuilder("Torch").burning(10, 3).build();
+		torch.useOn(merchant);
+		
+		world.makePeopleLive();
+		world.makePeopleLive();
+		torch.useOn(merchant);
+		
+		for( int upkeep = 1 ; upkeep <= 3 ; upkeep++ )
+		{
+			assertEquals("upkeep #" + upkeep, 1, world.troubledCount());
+			world.makePeopleLive();
+		}
+		
+		assertEquals(0, world.troubledCount());
+	}
+	
+	public void testDeadHumansAreNoLongerUpkept()
+	{
+		new WeaponBuilder("Inferno").burning(merchant.life(), 3).build().useOn(merchant);
+		Merchant other = world.living(Merchant.class).get(1);
+		new WeaponBuilder("Torch").burning(1, 5).build().useOn(other);
+		
+		world.makePeopleLive();
+		
+		assertFalse(merchant.isAlive());
+		assertEquals(2, world.count(Merchant.class));
+		assertEquals(1, world.troubledCount());
+		
+		world.makePeopleLive();
+		assertEquals(1, world.troubledCount());
+	}
+	
+	public void testOnlyTroubledPeopleAreVisited()
+	{
+		world.makePeopleLive();
+		new WeaponBuilder("Torch").burning(10, 2).build().useOn(merchant);
+		world.makePeopleLive();
+		world.makePeopleLive();
+		world.makePeopleLive();
+		
+		assertEquals(4, world.troubledPerGeneration().getCount());
+		assertEquals(2, world.troubledPerGeneration().getSum());
+		assertEquals(1, world.troubledPerGeneration().getMax());
+	}
+	
+	public void testTroubledPeopleAreExactlyTheOnesWithTroubles()
+	{
+		world = World.randomized(new WorldSeedParameters().samurais(0).yakuzas(0).merchants(200).traitors(0).seed(2).toSeed());
+		List <Merchant> merchants = world.living(Merchant.class);
+		SplittableRandom random = new SplittableRandom(3);
+		
+		for( int upkeep = 0 ; upkeep < 300 ; upkeep++ )
+		{
+			for( int hit = 0 ; hit < 5 ; hit++ )
+			{
+				Merchant target = merchants.get(random.nextInt(merchants.size()));
+				int duration = random.nextInt(6) == 0 ? 100 + random.nextInt(5000) : 1 + random.nextInt(8);
+				new WeaponBuilder("Torch").burning(1, duration).build().useOn(target);
+			}
+			world.makePeopleLive();
+			
+			int troubled = 0;
+			
+			for( Merchant merchant : world.living(Merchant.class) )
+			{
+				if( merchant.hasTroubles() )
+					troubled++;
+			}
+			assertEquals("upkeep #" + upkeep, troubled, world.troubledCount());
+		}
+	}
+}
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (C) 2017 Emmanuel Chebbi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package fr.kazejiyu.stoneandsaber.world;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import fr.kazejiyu.stoneandsaber.behaviors.weapon.Weapon;
+import fr.kazejiyu.stoneandsaber.behaviors.weapon.WeaponBuilder;
+import fr.kazejiyu.stoneandsaber.human.characters.Merchant;
+import junit.framework.TestCase;
+
+/**
+ * Checks that a parallel upkeep of a {@link World} gives the same world as a sequential one.
+ */
+public class WorldUpkeepTest extends TestCase
+{
+	/**
+	 * Enough merchants for the parallel upkeep to be split in several shards.
+	 */
+	private static final int MERCHANTS = 20000;
+	
+	private ForkJoinPool pool;
+	
+	private PrintStream out;
+	
+	@Override
+	protected void setUp()
+	{
+		pool = new ForkJoinPool(4);
+		
+		// the dead say so
+		out = System.out;
+		System.setOut(new PrintStream(new ByteArrayOutputStream()));
+	}
+	
+	@Override
+	protected void tearDown()
+	{
+		System.setOut(out);
+		pool.shutdownNow();
+	}
+	
+	public void testParallelUpkeepMatchesTheSequentialOne()
+	{
+		World sequential = troubledWorld();
+		World parallel = troubledWorld();
+		parallel.setUpkeepPool(pool);
+		
+		for( int upkeep = 1 ; upkeep <= 5 ; upkeep++ )
+		{
+			sequential.makePeopleLive();
+			parallel.makePeopleLive();
+			
+			assertSameWorld("upkeep #" + upkeep, sequential, parallel);
+		}
+		
+		assertEquals(0, parallel.troubledCount());
+		assertTrue(parallel.count(Merchant.class) < MERCHANTS);
+	}
+	
+	public void testDeadAreBuriedByTheUpkeepThatKilledThem()
+	{
+		World world = troubledWorld();
+		world.setUpkeepPool(pool);
+		
+		List <Merchant> merchants = world.living(Merchant.class);
+		int killed = 0;
+		
+		for( int i = 0 ; i < merchants.size() ; i++ )
+			if( merchants.get(i).life() <= firstBurn(i) )
+				killed++;
+		
+		world.makePeopleLive();
+		
+		assertTrue(killed > 0);
+		assertEquals(MERCHANTS - killed, world.count(Merchant.class));
+		
+		for( Merchant merchant : world.living(Merchant.class) )
+			assertTrue(merchant.isAlive());
+	}
+	
+	/**
+	 * Creates a world whose merchants are all burning, some of them to death.
+	 */
+	private static World troubledWorld()
+	{
+		World world = World.randomized(new WorldSeedParameters().samurais(0).yakuzas(0).merchants(MERCHANTS).traitors(0).seed(11).toSeed());
+		
+		Weapon torch = new WeaponBuilder("Torch").burning(10, 3).build();
+		Weapon inferno = new WeaponBuilder("Inferno").burning(100, 2).build();
+		List <Merchant> merchants = world.living(Merchant.class);
+		
+		for( int i = 0 ; i < merchants.size() ; i++ )
+		{
+			Merchant merchant = merchants.get(i);
+			
+			if( i % 3 == 0 )
+				merchant.status().setLife(1 + i % 150);
+			
+			(firstBurn(i) == 100 ? inferno : torch).useOn(merchant);
+		}
+		return world;
+	}
+	
+	/**
+	 * Returns the damage the <code>i</code>th merchant of a {@link #troubledWorld()} suffers at the first upkeep.
+	 */
+	private static int firstBurn(int i)
+	{
+		return i % 2 == 0 ? 100 : 10;
+	}
+	
+	private static void assertSameWorld(String message, World expected, World actual)
+	{
+		assertEquals(message, expected.troubledCount(), actual.troubledCount());
+		assertEquals(message, expected.count(Merchant.class), actual.count(Merchant.class));
+		
+		List <Merchant> expectedMerchants = expected.living(Merchant.class);
+		List <Merchant> actualMerchants = actual.living(Merchant.class);
+		
+		for( int i = 0 ; i < expectedMerchants.size() ; i++ )
+		{
+			assertEquals(message, expectedMerchants.get(i).name(), actualMerchants.get(i).name());
+			assertEquals(message, expectedMerchants.get(i).life(), actualMerchants.get(i).life());
+		}
+	}
+}